@@ -0,0 +1,46 @@
+package pathfinding.benchmarks;
+
+import pathfinding.engine.CompactGraph;
+import pathfinding.generator.GenerateGraph;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic graphs for the benchmarks.
+ */
+final class BenchmarkGraphs {
+
+    private static final long SEED = 42;
+
+    private BenchmarkGraphs() { }
+
+    /**
+     * Generates a graph with one of the synthetic generators.
+     *
+     * @param type generator type, as accepted by {@link GenerateGraph#create}
+     * @param vertices approximate number of vertices
+     * @return the graph
+     */
+    static CompactGraph generate(String type, int vertices) {
+        return GenerateGraph.create(type, vertices, Map.of("seed", String.valueOf(SEED)))
+            .generate();
+    }
+
+    /**
+     * Picks random source & goal pairs.
+     *
+     * @param graph graph to pick from
+     * @param count number of pairs
+     * @param seed random seed
+     * @return sources at even indices & goals at odd indices
+     */
+    static int[] queries(CompactGraph graph, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] queries = new int[2 * count];
+        for (int i = 0; i < queries.length; ++i) {
+            queries[i] = random.nextInt(graph.vertexCount());
+        }
+        return queries;
+    }
+}
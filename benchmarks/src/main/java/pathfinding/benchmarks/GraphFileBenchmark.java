@@ -0,0 +1,79 @@
+package pathfinding.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphFiles;
+
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse & write throughput of the {@code .graph} format. Files are kept in
+ * memory so the numbers do not depend on the disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GraphFileBenchmark {
+
+    @Param({"1000", "100000"})
+    public int vertices;
+
+    private CompactGraph graph;
+    private char[] contents;
+    private CharArrayWriter output;
+
+    /**
+     * Number of characters processed, reported as characters per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Chars {
+        public long chars;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            chars = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        graph = BenchmarkGraphs.generate("road", vertices);
+        CharArrayWriter writer = new CharArrayWriter();
+        GraphFiles.write(graph, writer);
+        contents = writer.toCharArray();
+        output = new CharArrayWriter(contents.length);
+    }
+
+    @Benchmark
+    public CompactGraph read(Chars counter) throws IOException {
+        counter.chars += contents.length;
+        return GraphFiles.read(new CharArrayReader(contents));
+    }
+
+    @Benchmark
+    public int write(Chars counter) throws IOException {
+        output.reset();
+        GraphFiles.write(graph, output);
+        counter.chars += output.size();
+        return output.size();
+    }
+}
@@ -0,0 +1,102 @@
+package pathfinding.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GridMap;
+import pathfinding.engine.JumpPointSearch;
+import pathfinding.engine.JumpTable;
+import pathfinding.engine.PathResult;
+import pathfinding.engine.PathSearch;
+import pathfinding.engine.SearchMethods;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grid map queries with jump point search, JPS+ and A* over the grid
+ * expanded into a graph. The maps are square, with scattered rectangular
+ * obstacles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"256", "1024"})
+    public int side;
+
+    private GridMap map;
+    private JumpTable table;
+    private CompactGraph expanded;
+    private int[] vertexOfCell;
+    private int[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        map = new GridMap(side, side);
+        int obstacles = side * side / 2500;
+        for (int i = 0; i < obstacles; ++i) {
+            int x = random.nextInt(side);
+            int y = random.nextInt(side);
+            int width = 5 + random.nextInt(side / 25);
+            int height = 5 + random.nextInt(side / 25);
+            for (int dy = 0; dy < height && y + dy < side; ++dy) {
+                for (int dx = 0; dx < width && x + dx < side; ++dx) {
+                    map.setBlocked(x + dx, y + dy, true);
+                }
+            }
+        }
+        table = JumpTable.build(map);
+        vertexOfCell = new int[map.cellCount()];
+        expanded = map.toGraph(1.0, vertexOfCell);
+        queries = new int[2 * QUERY_COUNT];
+        for (int i = 0; i < queries.length; ) {
+            int cell = random.nextInt(map.cellCount());
+            if (vertexOfCell[cell] >= 0) {
+                queries[i++] = cell;
+            }
+        }
+    }
+
+    @Benchmark
+    public PathResult jumpPointSearch() {
+        int i = nextQuery();
+        return JumpPointSearch.search(map, queries[i], queries[i + 1]);
+    }
+
+    @Benchmark
+    public PathResult jumpTable() {
+        int i = nextQuery();
+        return table.search(queries[i], queries[i + 1]);
+    }
+
+    @Benchmark
+    public PathResult expandedAStar() {
+        int i = nextQuery();
+        return PathSearch.search(expanded, vertexOfCell[queries[i]], vertexOfCell[queries[i + 1]],
+            SearchMethods.A_STAR);
+    }
+
+    private int nextQuery() {
+        int i = next;
+        next = (i + 2) % queries.length;
+        return i;
+    }
+}
@@ -0,0 +1,105 @@
+package pathfinding.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphBuilder;
+import pathfinding.engine.MultiLevelPartition;
+import pathfinding.engine.OverlayMetric;
+import pathfinding.engine.OverlaySearch;
+import pathfinding.engine.PathResult;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-level overlay: query latency, and the time to absorb a batch of
+ * weight changes by re-customizing the affected cells.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OverlayBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"road"})
+    public String graph;
+
+    @Param({"10000", "100000"})
+    public int vertices;
+
+    @Param({"128,1024,8192"})
+    public String cellSizes;
+
+    @Param({"100"})
+    public int changedEdges;
+
+    private OverlayMetric metric;
+    private int[] queries;
+    private int next;
+    private CompactGraph[] updates;
+    private int[][] updatedEdges;
+    private int nextUpdate;
+
+    @Setup
+    public void setUp() {
+        CompactGraph searched = BenchmarkGraphs.generate(graph, vertices);
+        int[] sizes = Arrays.stream(cellSizes.split(",")).mapToInt(Integer::parseInt).toArray();
+        metric = OverlayMetric.customize(MultiLevelPartition.build(searched, sizes), searched);
+        queries = BenchmarkGraphs.queries(searched, QUERY_COUNT, 7);
+
+        // Alternating batches of random weight changes & their undo
+        GraphBuilder builder = new GraphBuilder(searched.vertexCount(), searched.edgeCount());
+        for (int v = 0; v < searched.vertexCount(); ++v) {
+            builder.addVertex(searched.x(v), searched.y(v), searched.name(v));
+        }
+        for (int e = 0; e < searched.edgeCount(); ++e) {
+            builder.connect(searched.edgeFrom(e), searched.edgeTo(e), searched.edgeWeight(e));
+        }
+        builder.build();
+        SplittableRandom random = new SplittableRandom(11);
+        int[] edges = random.ints(changedEdges, 0, searched.edgeCount()).toArray();
+        double[] slower = new double[edges.length];
+        double[] original = new double[edges.length];
+        for (int i = 0; i < edges.length; ++i) {
+            original[i] = searched.edgeWeight(edges[i]);
+            slower[i] = 2 * original[i];
+        }
+        builder.setWeights(edges, slower);
+        updatedEdges = new int[][] {builder.changedEdges(), null};
+        CompactGraph congested = builder.build();
+        builder.setWeights(edges, original);
+        updatedEdges[1] = builder.changedEdges();
+        updates = new CompactGraph[] {congested, builder.build()};
+    }
+
+    @Benchmark
+    public PathResult query() {
+        int i = next;
+        next = (i + 2) % queries.length;
+        return OverlaySearch.search(metric, queries[i], queries[i + 1]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public OverlayMetric customize() {
+        int i = nextUpdate;
+        nextUpdate = 1 - i;
+        metric = metric.update(updates[i], updatedEdges[i]);
+        return metric;
+    }
+}
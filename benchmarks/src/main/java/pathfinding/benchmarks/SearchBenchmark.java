@@ -0,0 +1,62 @@
+package pathfinding.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.PathResult;
+import pathfinding.engine.PathSearch;
+import pathfinding.engine.SearchMethods;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-to-point query latency for every search method on graphs of
+ * increasing size. Other graph shapes can be picked with
+ * {@code -p graph=grid,geometric,road,scalefree}. Run with {@code -prof gc}
+ * to see the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"road"})
+    public String graph;
+
+    @Param({"1000", "10000", "100000"})
+    public int vertices;
+
+    @Param({SearchMethods.UCS, SearchMethods.GREEDY, SearchMethods.A_STAR})
+    public String method;
+
+    private CompactGraph searched;
+    private int[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        searched = BenchmarkGraphs.generate(graph, vertices);
+        queries = BenchmarkGraphs.queries(searched, QUERY_COUNT, 7);
+    }
+
+    @Benchmark
+    public PathResult search() {
+        int i = next;
+        next = (i + 2) % queries.length;
+        return PathSearch.search(searched, queries[i], queries[i + 1], method);
+    }
+}
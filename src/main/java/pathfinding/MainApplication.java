@@ -8,6 +8,7 @@ import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
 import pathfinding.controller.GraphEditorController;
+import pathfinding.jfr.PulseRecorder;
 
 import java.io.IOException;
 
@@ -35,6 +36,7 @@ public class MainApplication extends Application {
         controller.setStage(primaryStage);
 
         Scene scene = new Scene(root, WINDOW_WIDTH, WINDOW_HEIGHT);
+        PulseRecorder.install(scene);
         primaryStage.setScene(scene);
         primaryStage.setTitle("Untitled - " + WINDOW_TITLE);
         primaryStage.getIcons().add(new Image("/images/icon.png"));
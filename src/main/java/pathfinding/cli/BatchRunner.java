@@ -0,0 +1,266 @@
+package pathfinding.cli;
+
+import jdk.jfr.Recording;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphFiles;
+import pathfinding.engine.PathResult;
+import pathfinding.engine.PathSearch;
+import pathfinding.engine.SearchMethods;
+import pathfinding.metrics.LatencyHistogram;
+import pathfinding.jfr.Recordings;
+import pathfinding.metrics.MetricsRegistry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless entry point that answers a stream of path queries without
+ * JavaFX.
+ *
+ * <pre>
+ * BatchRunner &lt;graph file&gt; [queries file | -] [--workers=N] [--output=file]
+ *             [--method=name] [--metrics=file] [--jfr=file]
+ * </pre>
+ *
+ * Every query line reads {@code source,goal[,method]}, where the vertices
+ * are given by name (or index when no vertex has that name) and the method
+ * is {@code ucs}, {@code greedy}, {@code astar} or one of the
+ * {@link SearchMethods} names. Blank lines & lines starting with '#' are
+ * ignored. Results are written as they complete, one tab separated line per
+ * query: {@code number, source, goal, method, cost, path}. A summary with
+ * throughput & latency percentiles is printed to stderr at the end, and the
+ * engine's {@link MetricsRegistry} can be exported to a file. With
+ * {@code --jfr} the whole run is captured in a flight recording.
+ */
+public class BatchRunner {
+
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int QUEUED_QUERIES_PER_WORKER = 256;
+
+    private final CompactGraph graph;
+    private final String defaultMethod;
+    private final Writer output;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong failures = new AtomicLong();
+    private long lastFlush = System.nanoTime();
+    // First error writing a result; no query is read after it
+    private volatile IOException writeFailure;
+
+    public BatchRunner(CompactGraph graph, String defaultMethod, Writer output) {
+        this.graph = graph;
+        this.defaultMethod = defaultMethod;
+        this.output = output;
+    }
+
+    public static void main(String[] args) {
+        String graphFile = null;
+        String queryFile = "-";
+        String outputFile = null;
+        String metricsFile = null;
+        String jfrFile = null;
+        String method = SearchMethods.UCS;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int positional = 0;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--workers=")) {
+                    workers = Integer.parseInt(arg.substring("--workers=".length()));
+                } else if (arg.startsWith("--output=")) {
+                    outputFile = arg.substring("--output=".length());
+                } else if (arg.startsWith("--metrics=")) {
+                    metricsFile = arg.substring("--metrics=".length());
+                } else if (arg.startsWith("--jfr=")) {
+                    jfrFile = arg.substring("--jfr=".length());
+                } else if (arg.startsWith("--method=")) {
+                    method = SearchMethods.parse(arg.substring("--method=".length()));
+                } else if (positional == 0) {
+                    graphFile = arg;
+                    ++positional;
+                } else if (positional == 1) {
+                    queryFile = arg;
+                    ++positional;
+                } else {
+                    throw new IllegalArgumentException("Unexpected argument " + arg);
+                }
+            }
+            if (graphFile == null) {
+                throw new IllegalArgumentException("Missing graph file");
+            }
+            if (workers <= 0) {
+                throw new IllegalArgumentException("The number of workers must be positive, got " + workers);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchRunner <graph file> [queries file | -] "
+                + "[--workers=N] [--output=file] [--method=ucs|greedy|astar] [--metrics=file] [--jfr=file]");
+            System.exit(2);
+            return;
+        }
+
+        try (Recording recording = jfrFile == null ? null : Recordings.start(Path.of(jfrFile))) {
+            long loadStart = System.nanoTime();
+            CompactGraph graph = GraphFiles.read(new File(graphFile));
+            System.err.printf("Loaded %d vertices, %d edges in %d ms%n",
+                graph.vertexCount(), graph.edgeCount(),
+                (System.nanoTime() - loadStart) / 1_000_000);
+
+            try (BufferedReader queries = queryFile.equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in))
+                     : new BufferedReader(new FileReader(queryFile));
+                 Writer output = outputFile == null
+                     ? new BufferedWriter(new OutputStreamWriter(System.out))
+                     : new BufferedWriter(new FileWriter(outputFile))) {
+                BatchRunner runner = new BatchRunner(graph, method, output);
+                runner.run(queries, workers, System.err);
+            }
+            if (metricsFile != null) {
+                try (Writer metrics = new BufferedWriter(new FileWriter(metricsFile))) {
+                    MetricsRegistry.global().export(metrics);
+                }
+            }
+            if (recording != null) {
+                // Stopping dumps the recording to its destination
+                recording.stop();
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Answers every query from the reader on a pool of worker threads, then
+     * prints a summary. If a result cannot be written, no further query is
+     * read and the error is thrown once the queries in flight are done.
+     *
+     * @param queries query lines
+     * @param workers number of worker threads
+     * @param summary stream to print the summary to
+     * @throws IOException error reading the queries or writing the results
+     * @throws InterruptedException interrupted while waiting for the workers
+     */
+    public void run(BufferedReader queries, int workers, PrintStream summary)
+        throws IOException, InterruptedException {
+        // Bounded queue: when the workers fall behind, the reading thread
+        // answers queries itself instead of buffering the whole input
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers,
+            0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers * QUEUED_QUERIES_PER_WORKER),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        long start = System.nanoTime();
+        long number = 0;
+        try {
+            String line;
+            while (writeFailure == null && (line = queries.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                long queryNumber = ++number;
+                String query = line;
+                pool.execute(() -> answer(queryNumber, query));
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+        synchronized (output) {
+            output.flush();
+        }
+        printSummary(summary, number, elapsed);
+    }
+
+    private void answer(long number, String query) {
+        String[] parts = query.split(",");
+        StringBuilder line = new StringBuilder();
+        line.append(number).append('\t');
+        try {
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Expected source,goal[,method]");
+            }
+            int source = graph.resolve(parts[0].trim());
+            int goal = graph.resolve(parts[1].trim());
+            String method = parts.length == 3 ? SearchMethods.parse(parts[2].trim()) : defaultMethod;
+
+            long begin = System.nanoTime();
+            PathResult result = PathSearch.search(graph, source, goal, method);
+            latencies.record(System.nanoTime() - begin);
+
+            line.append(graph.name(source)).append('\t')
+                .append(graph.name(goal)).append('\t')
+                .append(method).append('\t')
+                .append(result.cost).append('\t');
+            for (int i = 0; i < result.path.length; ++i) {
+                if (i > 0) {
+                    line.append(" -> ");
+                }
+                line.append(graph.name(result.path[i]));
+            }
+        } catch (IllegalArgumentException e) {
+            failures.incrementAndGet();
+            line.setLength(0);
+            line.append(number).append("\terror\t").append(e.getMessage());
+        }
+        line.append('\n');
+        write(line);
+    }
+
+    private void write(CharSequence line) {
+        synchronized (output) {
+            if (writeFailure != null) {
+                return;
+            }
+            try {
+                output.append(line);
+                long now = System.nanoTime();
+                if (now - lastFlush >= FLUSH_INTERVAL_NANOS) {
+                    output.flush();
+                    lastFlush = now;
+                }
+            } catch (IOException e) {
+                writeFailure = e;
+            }
+        }
+    }
+
+    private void printSummary(PrintStream out, long queries, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Queries: %d (%d failed) in %.3f s, %.1f queries/s%n",
+            queries, failures.get(), seconds, seconds > 0 ? queries / seconds : 0.0);
+        out.printf("Latency: p50 %s, p99 %s, max %s, mean %s%n",
+            formatNanos(latencies.percentile(50)),
+            formatNanos(latencies.percentile(99)),
+            formatNanos(latencies.max()),
+            formatNanos((long) latencies.mean()));
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + " ns";
+        }
+        if (nanos < 10_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        }
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
@@ -3,12 +3,14 @@ package pathfinding.controller;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.Cursor;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextInputDialog;
@@ -25,28 +27,45 @@ import javafx.stage.Stage;
 
 import pathfinding.Constants;
 import pathfinding.MainApplication;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphFiles;
+import pathfinding.engine.GridFiles;
+import pathfinding.engine.GridMap;
+import pathfinding.engine.JumpTable;
+import pathfinding.engine.PathResult;
+import pathfinding.engine.SearchStats;
 import pathfinding.model.Graph;
 import pathfinding.model.GraphCanvas;
+import pathfinding.ui.DragCoalescer;
 import pathfinding.ui.GraphNode;
+import pathfinding.ui.GridView;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class GraphEditorController {
 
     private enum InteractionMode {
-        CREATE, EDIT, DELETE, VIEW, SEARCH
+        CREATE, EDIT, DELETE, VIEW, SEARCH, REACH
     }
     private static final double EDITOR_INSET = 20.0;
+    private static final String K_SHORTEST_PATHS = "K Shortest Paths";
+    private static final String ANYTIME_A_STAR = "Anytime A* Search";
+    private static final String ALL_PAIRS_TABLE = "All-Pairs Table";
+    // One color per alternative path, cheapest first
+    private static final Color[] PATH_COLORS = {
+        Color.ORANGE, Color.DEEPSKYBLUE, Color.LIMEGREEN, Color.MEDIUMORCHID,
+        Color.GOLD, Color.TOMATO, Color.TURQUOISE, Color.HOTPINK
+    };
 
     private InteractionMode mode = InteractionMode.VIEW;
 
     private Stage stage;
     private FileChooser fileChooser;
+    private FileChooser gridFileChooser;
     private GraphCanvas graphCanvas;
 
     private GraphNode currentlySelected = null;
@@ -54,6 +73,17 @@ public class GraphEditorController {
 
     private File currentFile = null;
 
+    private boolean showStats = false;
+    private final DragCoalescer dragCoalescer = new DragCoalescer();
+    // Whether the A* heuristic waits for dragged nodes to be dropped
+    private boolean deferHeuristics = true;
+    private CompletableFuture<Graph.SearchResult> anytimeSearch = null;
+
+    // Shown instead of the graph while a grid map is open
+    private GridView gridView = null;
+    private JumpTable jumpTable = null;
+    private int gridStart = -1;
+
     @FXML
     private Pane graphCanvasPane;
 
@@ -63,6 +93,9 @@ public class GraphEditorController {
     @FXML
     private Label costLabel;
 
+    @FXML
+    private Label statsLabel;
+
     @FXML
     private void initialize() {
         fileChooser = new FileChooser();
@@ -73,6 +106,12 @@ public class GraphEditorController {
                 "*" + Constants.EXT
             )
         );
+        gridFileChooser = new FileChooser();
+        gridFileChooser.setInitialDirectory(new File("."));
+        gridFileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Grid maps (*.map, *.pgm, *.txt)", "*.map", "*.pgm", "*.txt"),
+            new FileChooser.ExtensionFilter("All files", "*.*")
+        );
         graphCanvas = new GraphCanvas(graphCanvasPane);
         graphCanvasPane.setFocusTraversable(true);
 
@@ -114,47 +153,115 @@ public class GraphEditorController {
     }
 
     private void loadFromFile(File file) throws IOException, NumberFormatException {
+        CompactGraph graph = GraphFiles.read(file);
         clearGraph();
 
-        BufferedReader reader = new BufferedReader(new FileReader(file));
-        HashMap<Integer, GraphNode> indexMapping = new HashMap<>();
-        String[] vertices = reader.readLine().split("\\|");
-        int vertexCount = 0;
-        for (String vertexData : vertices) {
-            if (vertexData.isEmpty()) {
-                continue;
-            }
-            String[] data = vertexData.split(",");
-            GraphNode node = makeNode(
-                Double.parseDouble(data[0]), Double.parseDouble(data[1]),
-                data[2]
-            );
-            graphCanvas.addNode(node);
-            indexMapping.put(vertexCount, node);
-            ++vertexCount;
+        GraphNode[] nodes = new GraphNode[graph.vertexCount()];
+        for (int v = 0; v < nodes.length; ++v) {
+            nodes[v] = makeNode(graph.x(v), graph.y(v), graph.name(v));
+            graphCanvas.addNode(nodes[v]);
+        }
+        for (int e = 0; e < graph.edgeCount(); ++e) {
+            graphCanvas.addConnection(nodes[graph.edgeFrom(e)], nodes[graph.edgeTo(e)],
+                new SimpleDoubleProperty(graph.edgeWeight(e)));
+        }
+    }
+
+    @FXML
+    private void openGridMap() {
+        File file = gridFileChooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
         }
-        for (int i = 0; i < vertexCount; ++i) {
-            String[] connections = reader.readLine().split("\\|");
-            for (String connectionData : connections) {
-                String[] data = connectionData.split(",");
-                if (connectionData.isEmpty()) {
-                    continue;
+        GridMap map;
+        try {
+            map = GridFiles.read(file);
+        } catch (IOException e) {
+            Alert a = new Alert(Alert.AlertType.ERROR);
+            a.setHeaderText("Failed to load grid map.");
+            a.setContentText(e.getMessage());
+            a.showAndWait();
+            return;
+        }
+        clearGraph();
+        currentFile = null;
+        stage.setTitle(file.getAbsolutePath() + " - " + MainApplication.WINDOW_TITLE);
+        gridView = new GridView(map);
+        gridView.widthProperty().bind(graphCanvasPane.widthProperty());
+        gridView.heightProperty().bind(graphCanvasPane.heightProperty());
+        gridView.setMouseTransparent(true);
+        graphCanvasPane.getChildren().add(0, gridView);
+        jumpTable = JumpTable.build(map);
+    }
+
+    /**
+     * Handles a click on a grid map: edit mode toggles obstacles, search
+     * mode picks the start & then the goal of a jump point search.
+     */
+    private void gridClicked(MouseEvent event) {
+        int cell = gridView.cellAt(gridView.sceneToLocal(event.getSceneX(), event.getSceneY()));
+        if (cell < 0) {
+            return;
+        }
+        GridMap map = gridView.getMap();
+        int x = map.x(cell);
+        int y = map.y(cell);
+        switch (mode) {
+            case EDIT:
+                map.setBlocked(x, y, map.isFree(x, y));
+                gridStart = -1;
+                gridView.clearPath();
+                break;
+            case SEARCH:
+                if (!map.isFree(x, y)) {
+                    break;
                 }
-                double weight = Double.parseDouble(data[0]);
-                int endingIndex = Integer.parseInt(data[1]);
-                GraphNode node1 = indexMapping.get(i);
-                GraphNode node2 = indexMapping.get(endingIndex);
-                if (!graphCanvas.areConnected(node1, node2)) {
-                    graphCanvas.addConnection(node1, node2,
-                        new SimpleDoubleProperty(weight));
+                if (gridStart < 0) {
+                    gridStart = cell;
+                    gridView.clearPath();
+                    gridView.setStart(cell);
+                    costLabel.setText("Cost: ");
+                    break;
                 }
-            }
+                // Edits since the last search invalidate the jump table
+                if (!jumpTable.isCurrent()) {
+                    jumpTable = JumpTable.build(map);
+                }
+                PathResult result = jumpTable.search(gridStart, cell);
+                gridStart = -1;
+                gridView.setStart(-1);
+                if (!result.isFound()) {
+                    gridView.clearPath();
+                    costLabel.setText("Cost: Unreachable");
+                } else {
+                    gridView.showPath(result.path);
+                    costLabel.setText("Cost: " + result.cost);
+                }
+                statsLabel.setText(formatStats(result.stats));
+                statsLabel.setVisible(showStats);
+                break;
+            default:
+                break;
         }
-        reader.close();
     }
 
     @FXML
     private void saveFile() {
+        if (gridView != null) {
+            File file = gridFileChooser.showSaveDialog(stage);
+            if (file == null) {
+                return;
+            }
+            try {
+                GridFiles.write(gridView.getMap(), file);
+                stage.setTitle(file.getAbsolutePath() + " - " + MainApplication.WINDOW_TITLE);
+            } catch (IOException e) {
+                Alert a = new Alert(Alert.AlertType.ERROR);
+                a.setHeaderText("Failed to save file.");
+                a.showAndWait();
+            }
+            return;
+        }
         if (currentFile == null) {
             File file = fileChooser.showSaveDialog(stage);
             if (file != null) {
@@ -173,9 +280,13 @@ public class GraphEditorController {
 
     @FXML
     private void clearGraph() {
+        stopAnytimeSearch();
         graphCanvas.clear();
         graphCanvasPane.getChildren().add(guidingLine);
         currentlySelected = null;
+        gridView = null;
+        jumpTable = null;
+        gridStart = -1;
     }
 
     @FXML
@@ -188,54 +299,97 @@ public class GraphEditorController {
             "- C (Create): Create nodes & connections\n" +
             "- E (Edit): Edit nodes & connections\n" +
             "- D (Delete): Delete nodes\n" +
-            "- S (Search): Search the graph by choosing a start & end node\n"
+            "- S (Search): Search the graph by choosing a start & end node, or\n" +
+            "  highlight the k shortest paths between them in distinct colors\n" +
+            "- R (Reach): Color everything within a budget of a node, by cost band\n" +
+            "- I (Info): Toggle search statistics next to the cost\n" +
+            "\n" +
+            "Grid maps opened from the File menu are searched with jump point\n" +
+            "search: pick a start & goal cell in Search mode, toggle obstacles\n" +
+            "in Edit mode.\n"
         );
         helpDialog.showAndWait();
     }
 
+    @FXML
+    private void toggleDeferredHeuristics(ActionEvent event) {
+        deferHeuristics = ((CheckMenuItem) event.getSource()).isSelected();
+    }
+
     @FXML
     private void changeMode(KeyEvent event) {
         KeyCode key = event.getCode();
+        InteractionMode previous = mode;
         switch (key) {
             case C: // Create mode
                 mode = InteractionMode.CREATE;
                 interactionMode.setText("Create Mode");
                 currentlySelected = null;
+                stopAnytimeSearch();
                 graphCanvas.resetColors();
                 costLabel.setVisible(false);
+                statsLabel.setVisible(false);
                 break;
             case E: // Edit mode
                 mode = InteractionMode.EDIT;
                 interactionMode.setText("Edit Mode");
                 currentlySelected = null;
+                stopAnytimeSearch();
                 graphCanvas.resetColors();
                 costLabel.setVisible(false);
+                statsLabel.setVisible(false);
                 break;
             case D: // Delete mode
                 mode = InteractionMode.DELETE;
                 interactionMode.setText("Delete Mode");
                 currentlySelected = null;
+                stopAnytimeSearch();
                 graphCanvas.resetColors();
                 costLabel.setVisible(false);
+                statsLabel.setVisible(false);
                 break;
             case V: // View mode
                 mode = InteractionMode.VIEW;
                 interactionMode.setText("View Mode");
                 currentlySelected = null;
+                stopAnytimeSearch();
                 graphCanvas.resetColors();
                 costLabel.setVisible(false);
+                statsLabel.setVisible(false);
                 break;
             case S: // Search mode
                 mode = InteractionMode.SEARCH;
                 interactionMode.setText("Search Mode");
                 currentlySelected = null;
+                stopAnytimeSearch();
                 graphCanvas.resetColors();
                 costLabel.setVisible(true);
                 costLabel.setText("Cost: ");
+                statsLabel.setText("");
+                statsLabel.setVisible(false);
+                break;
+            case R: // Reachability mode
+                mode = InteractionMode.REACH;
+                interactionMode.setText("Reach Mode");
+                currentlySelected = null;
+                stopAnytimeSearch();
+                graphCanvas.resetColors();
+                costLabel.setVisible(true);
+                costLabel.setText("Reachable: ");
+                statsLabel.setVisible(false);
+                break;
+            case I: // Toggle search statistics
+                showStats = !showStats;
+                statsLabel.setVisible(showStats && mode == InteractionMode.SEARCH
+                    && !statsLabel.getText().isEmpty());
                 break;
             default:
                 break;
         }
+        if (gridView != null && mode != previous) {
+            gridStart = -1;
+            gridView.clearPath();
+        }
     }
 
     @FXML
@@ -243,6 +397,10 @@ public class GraphEditorController {
         if (event.getButton() != MouseButton.PRIMARY) {
             return;
         }
+        if (gridView != null) {
+            gridClicked(event);
+            return;
+        }
         switch (mode) {
             case CREATE:
                 if (currentlySelected != null) {
@@ -311,28 +469,24 @@ public class GraphEditorController {
             dragDelta.y = node.getLayoutY() - mouseEvent.getSceneY();
             getScene().setCursor(Cursor.CLOSED_HAND);
             node.toFront();
+            dragCoalescer.begin(node);
+            if (deferHeuristics) {
+                graphCanvas.getGraph().setCalibrationDeferred(node, true);
+            }
         });
         node.setOnMouseDragged(mouseEvent -> {
             final Bounds bounds = node.getParent().getBoundsInLocal();
             final double boundsWidth = bounds.getWidth();
             final double boundsHeight = bounds.getHeight();
 
+            double maxX = boundsWidth - node.getLayoutBounds().getWidth() - EDITOR_INSET;
+            double maxY = boundsHeight - node.getLayoutBounds().getHeight() - EDITOR_INSET;
             double x = mouseEvent.getSceneX() + dragDelta.x;
             double y = mouseEvent.getSceneY() + dragDelta.y;
-            if (x >= EDITOR_INSET && x < boundsWidth - node.getLayoutBounds().getWidth() - EDITOR_INSET) {
-                node.setLayoutX(mouseEvent.getSceneX() + dragDelta.x);
-            } else if (x < EDITOR_INSET) {
-                node.setLayoutX(EDITOR_INSET);
-            } else {
-                node.setLayoutX(boundsWidth - node.getLayoutBounds().getWidth() - EDITOR_INSET);
-            }
-            if (y >= EDITOR_INSET && y < boundsHeight - node.getLayoutBounds().getHeight() - EDITOR_INSET) {
-                node.setLayoutY(mouseEvent.getSceneY() + dragDelta.y);
-            } else if (y < EDITOR_INSET) {
-                node.setLayoutY(EDITOR_INSET);
-            } else {
-                node.setLayoutY(boundsHeight - node.getLayoutBounds().getHeight() - EDITOR_INSET);
-            }
+            x = x < EDITOR_INSET ? EDITOR_INSET : Math.min(x, maxX);
+            y = y < EDITOR_INSET ? EDITOR_INSET : Math.min(y, maxY);
+            // Applied on the next pulse, together with any later move
+            dragCoalescer.moveTo(x, y);
         });
         node.setOnMouseClicked(mouseEvent -> {
             if (mouseEvent.isStillSincePress()) {
@@ -379,18 +533,42 @@ public class GraphEditorController {
                             search.getItems().addAll(
                                 Graph.SearchMethods.UCS,
                                 Graph.SearchMethods.GREEDY,
-                                Graph.SearchMethods.A_STAR
+                                Graph.SearchMethods.A_STAR,
+                                ANYTIME_A_STAR,
+                                K_SHORTEST_PATHS,
+                                ALL_PAIRS_TABLE
                             );
                             search.setHeaderText("Search Method:");
                             search.setSelectedItem(Graph.SearchMethods.UCS);
                             Optional<String> method = search.showAndWait();
                             method.ifPresentOrElse(name -> {
+                                stopAnytimeSearch();
                                 graphCanvas.resetColors();
+                                if (name.equals(ANYTIME_A_STAR)) {
+                                    showAnytimeSearch(currentlySelected, node);
+                                    currentlySelected = null;
+                                    return;
+                                }
+                                if (name.equals(K_SHORTEST_PATHS)) {
+                                    showShortestPaths(currentlySelected, node);
+                                    currentlySelected = null;
+                                    return;
+                                }
 
                                 Graph.SearchResult searchResult;
-                                searchResult = graphCanvas.getGraph().search(
-                                    currentlySelected, node, name);
-                                costLabel.setText("Cost: " + searchResult.cost);
+                                if (name.equals(ALL_PAIRS_TABLE)) {
+                                    searchResult = graphCanvas.getGraph().tablePath(
+                                        currentlySelected, node);
+                                    graphCanvas.highlightPath(searchResult.path, PATH_COLORS[0]);
+                                } else {
+                                    searchResult = graphCanvas.getGraph().search(
+                                        currentlySelected, node, name);
+                                }
+                                costLabel.setText(searchResult.path.isEmpty()
+                                    ? "Cost: Unreachable"
+                                    : "Cost: " + searchResult.cost);
+                                statsLabel.setText(formatStats(searchResult.stats));
+                                statsLabel.setVisible(showStats);
                                 currentlySelected = null;
 //                                if (searchResult != null) {
 //                                    Alert resultDialog = new Alert(Alert.AlertType.INFORMATION);
@@ -404,6 +582,9 @@ public class GraphEditorController {
                             }, () -> currentlySelected = null);
                         }
                         break;
+                    case REACH:
+                        showReachable(node);
+                        break;
                     default:
                         break;
                 }
@@ -415,9 +596,11 @@ public class GraphEditorController {
                 getScene().setCursor(Cursor.HAND);
             }
         });
-        node.setOnMouseReleased(
-            mouseEvent -> getScene().setCursor(Cursor.HAND)
-        );
+        node.setOnMouseReleased(mouseEvent -> {
+            dragCoalescer.end();
+            graphCanvas.getGraph().setCalibrationDeferred(node, false);
+            getScene().setCursor(Cursor.HAND);
+        });
         node.setOnMouseExited(mouseEvent -> {
             if (!mouseEvent.isPrimaryButtonDown()) {
                 getScene().setCursor(Cursor.DEFAULT);
@@ -425,6 +608,125 @@ public class GraphEditorController {
         });
     }
 
+    private void showReachable(GraphNode source) {
+        TextInputDialog dialog = new TextInputDialog("100, 200, 400");
+        dialog.setHeaderText("Cost thresholds (increasing): ");
+        Optional<String> result = dialog.showAndWait();
+        if (result.isEmpty()) {
+            return;
+        }
+        List<List<GraphNode>> bands;
+        try {
+            String[] tokens = result.get().split(",");
+            double[] thresholds = new double[tokens.length];
+            for (int i = 0; i < tokens.length; ++i) {
+                thresholds[i] = Double.parseDouble(tokens[i].trim());
+            }
+            bands = graphCanvas.getGraph().reachableBands(source, thresholds);
+        } catch (IllegalArgumentException e) {
+            Alert a = new Alert(Alert.AlertType.ERROR);
+            a.setHeaderText("Thresholds must be increasing non-negative numbers.");
+            a.showAndWait();
+            return;
+        }
+        graphCanvas.resetColors();
+        graphCanvas.showHeatOverlay(bands);
+        StringBuilder counts = new StringBuilder();
+        for (List<GraphNode> band : bands) {
+            counts.append(counts.length() == 0 ? "" : " / ").append(band.size());
+        }
+        costLabel.setText("Reachable: " + counts);
+    }
+
+    private void showAnytimeSearch(GraphNode source, GraphNode goal) {
+        TextInputDialog dialog = new TextInputDialog("2.0");
+        dialog.setHeaderText("Initial suboptimality bound (at least 1): ");
+        Optional<String> result = dialog.showAndWait();
+        if (result.isEmpty()) {
+            return;
+        }
+        double epsilon;
+        try {
+            epsilon = Double.parseDouble(result.get().trim());
+        } catch (NumberFormatException e) {
+            epsilon = 0.0;
+        }
+        if (!(epsilon >= 1.0)) {
+            Alert a = new Alert(Alert.AlertType.ERROR);
+            a.setHeaderText("The bound must be a number of at least 1.");
+            a.showAndWait();
+            return;
+        }
+        // Show every improved path as it arrives, until a new search starts
+        anytimeSearch = graphCanvas.getGraph().searchAnytime(source, goal, epsilon, solution -> {
+            graphCanvas.resetColors();
+            if (solution.path.isEmpty()) {
+                costLabel.setText("Cost: Unreachable");
+            } else {
+                graphCanvas.highlightPath(solution.path, PATH_COLORS[0]);
+                costLabel.setText(solution.bound <= 1.0
+                    ? "Cost: " + solution.cost + " (optimal)"
+                    : String.format("Cost: %s (within %.2fx of optimal)", solution.cost, solution.bound));
+            }
+            statsLabel.setText(formatStats(solution.stats));
+            statsLabel.setVisible(showStats);
+        });
+    }
+
+    private void stopAnytimeSearch() {
+        if (anytimeSearch != null) {
+            anytimeSearch.cancel(false);
+            anytimeSearch = null;
+        }
+    }
+
+    private void showShortestPaths(GraphNode source, GraphNode goal) {
+        TextInputDialog dialog = new TextInputDialog("3");
+        dialog.setHeaderText("Number of paths: ");
+        Optional<String> result = dialog.showAndWait();
+        if (result.isEmpty()) {
+            return;
+        }
+        int k;
+        try {
+            k = Integer.parseInt(result.get().trim());
+        } catch (NumberFormatException e) {
+            k = 0;
+        }
+        if (k < 1) {
+            Alert a = new Alert(Alert.AlertType.ERROR);
+            a.setHeaderText("The number of paths must be a positive integer.");
+            a.showAndWait();
+            return;
+        }
+        List<Graph.SearchResult> paths = graphCanvas.getGraph().kShortestPaths(source, goal, k);
+        // Cheapest last, so it stays on top where the paths overlap
+        for (int i = paths.size() - 1; i >= 0; --i) {
+            graphCanvas.highlightPath(paths.get(i).path, PATH_COLORS[i % PATH_COLORS.length]);
+        }
+        StringBuilder costs = new StringBuilder();
+        for (Graph.SearchResult path : paths) {
+            costs.append(costs.length() == 0 ? "" : ", ").append(path.cost);
+        }
+        costLabel.setText(paths.isEmpty() ? "Cost: Unreachable" : "Costs: " + costs);
+        statsLabel.setText(paths.isEmpty() ? "" : formatStats(paths.get(paths.size() - 1).stats));
+        statsLabel.setVisible(showStats && !paths.isEmpty());
+    }
+
+    private static String formatStats(SearchStats stats) {
+        return String.format(
+            "Settled: %d   Relaxed: %d%n" +
+            "Heap: %d pushes, %d pops, %d decrease-keys%n" +
+            "Peak frontier: %d%n" +
+            "Time: %.3f ms   Allocated: %s",
+            stats.settled, stats.relaxed,
+            stats.pushes, stats.pops, stats.decreaseKeys,
+            stats.peakFrontier,
+            stats.wallNanos / 1e6,
+            stats.allocatedBytes < 0 ? "n/a" : (stats.allocatedBytes / 1024) + " KB"
+        );
+    }
+
     public void setStage(Stage stage) {
         this.stage = stage;
     }
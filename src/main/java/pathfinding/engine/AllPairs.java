@@ -0,0 +1,254 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of the cheapest path between every pair of vertices, with the first
+ * step of each, so that any path is read off in time proportional to its
+ * length without searching.
+ *
+ * <p>Both tables are flat, row by source: {@code n * n} doubles & ints, 12
+ * bytes per pair, which limits graphs to {@link #MAX_VERTICES}. Dense graphs
+ * are computed with Floyd-Warshall over square blocks that fit the cache,
+ * the independent blocks of every step in parallel; sparse ones with one
+ * Dijkstra search per source, also in parallel. {@link #compute} picks
+ * between them by density.
+ */
+public final class AllPairs {
+
+    /** Largest graph a table is computed for, about 200 MB of tables. */
+    public static final int MAX_VERTICES = 4096;
+
+    private static final int NONE = -1;
+    // Vertices per side of a Floyd-Warshall block: a block of costs & one
+    // of next steps take 48 KB
+    private static final int BLOCK = 64;
+    // Floyd-Warshall relaxes n^3 pairs in a tight loop, the searches relax
+    // every arc with a heap operation; on random graphs one arc costs about
+    // log2(n) / 2 pairs, so Floyd-Warshall only wins past 2n / log2(n) arcs
+    // per vertex
+    private static final int HEAP_COST_DIVISOR = 2;
+
+    private final int n;
+    private final double[] costs;
+    private final int[] next;
+
+    private AllPairs(int n, double[] costs, int[] next) {
+        this.n = n;
+        this.costs = costs;
+        this.next = next;
+    }
+
+    /**
+     * Computes the tables with whichever algorithm suits the graph's
+     * density.
+     *
+     * @param graph graph of at most {@link #MAX_VERTICES} vertices, with
+     *     non-negative weights
+     * @return the tables
+     */
+    public static AllPairs compute(CompactGraph graph) {
+        long n = graph.vertexCount();
+        long log = 64 - Long.numberOfLeadingZeros(Math.max(n, 1));
+        long dijkstraWork = 2L * graph.edgeCount() * log * n / HEAP_COST_DIVISOR;
+        return dijkstraWork < n * n * n ? dijkstra(graph) : floydWarshall(graph);
+    }
+
+    /**
+     * Computes the tables with blocked, parallel Floyd-Warshall.
+     *
+     * @param graph graph of at most {@link #MAX_VERTICES} vertices, with
+     *     non-negative weights
+     * @return the tables
+     */
+    public static AllPairs floydWarshall(CompactGraph graph) {
+        int n = checkSize(graph);
+        double[] costs = new double[n * n];
+        int[] next = new int[n * n];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        Arrays.fill(next, NONE);
+        for (int v = 0; v < n; ++v) {
+            costs[v * n + v] = 0.0;
+            next[v * n + v] = v;
+            for (int a = graph.arcStart(v), end = graph.arcEnd(v); a < end; ++a) {
+                int w = graph.arcHead(a);
+                // The cheapest of parallel edges
+                if (graph.arcWeight(a) < costs[v * n + w]) {
+                    costs[v * n + w] = graph.arcWeight(a);
+                    next[v * n + w] = w;
+                }
+            }
+        }
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        for (int k = 0; k < blocks; ++k) {
+            final int pivot = k;
+            // The pivot block first, then the rest of its row & column,
+            // which only depend on it, then everything else, which depends
+            // on those
+            relaxBlock(costs, next, n, pivot, pivot, pivot);
+            IntStream.range(0, blocks).parallel().filter(b -> b != pivot).forEach(b -> {
+                relaxBlock(costs, next, n, pivot, b, pivot);
+                relaxBlock(costs, next, n, b, pivot, pivot);
+            });
+            IntStream.range(0, blocks * blocks).parallel().forEach(ij -> {
+                int i = ij / blocks;
+                int j = ij % blocks;
+                if (i != pivot && j != pivot) {
+                    relaxBlock(costs, next, n, i, j, pivot);
+                }
+            });
+        }
+        return new AllPairs(n, costs, next);
+    }
+
+    /**
+     * Relaxes the pairs of block {@code (bi, bj)} through the vertices of
+     * block {@code bk}.
+     */
+    private static void relaxBlock(double[] costs, int[] next, int n, int bi, int bj, int bk) {
+        int iEnd = Math.min(n, (bi + 1) * BLOCK);
+        int jStart = bj * BLOCK;
+        int jEnd = Math.min(n, jStart + BLOCK);
+        int kEnd = Math.min(n, (bk + 1) * BLOCK);
+        for (int k = bk * BLOCK; k < kEnd; ++k) {
+            int kRow = k * n;
+            for (int i = bi * BLOCK; i < iEnd; ++i) {
+                int iRow = i * n;
+                double throughK = costs[iRow + k];
+                if (throughK == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                int step = next[iRow + k];
+                for (int j = jStart; j < jEnd; ++j) {
+                    double cost = throughK + costs[kRow + j];
+                    if (cost < costs[iRow + j]) {
+                        costs[iRow + j] = cost;
+                        next[iRow + j] = step;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the tables with one Dijkstra search per source, in parallel.
+     *
+     * @param graph graph of at most {@link #MAX_VERTICES} vertices, with
+     *     non-negative weights
+     * @return the tables
+     */
+    public static AllPairs dijkstra(CompactGraph graph) {
+        int n = checkSize(graph);
+        double[] costs = new double[n * n];
+        int[] next = new int[n * n];
+        IntStream.range(0, n).parallel().forEach(source -> {
+            int row = source * n;
+            Arrays.fill(costs, row, row + n, Double.POSITIVE_INFINITY);
+            Arrays.fill(next, row, row + n, NONE);
+            try (SearchWorkspace workspace = SearchWorkspace.acquire(n)) {
+                workspace.reach(source, 0.0, NONE, NONE);
+                workspace.insertOrDecrease(source, 0.0);
+                while (!workspace.isQueueEmpty()) {
+                    int current = workspace.poll();
+                    workspace.settle(current);
+                    double currentDist = workspace.dist(current);
+                    costs[row + current] = currentDist;
+                    // The first step is inherited from the parent, settled
+                    // before
+                    int parent = workspace.parent(current);
+                    next[row + current] = parent == NONE || parent == source
+                        ? current : next[row + parent];
+                    for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                        int neighbor = graph.arcHead(a);
+                        if (workspace.isSettled(neighbor)) {
+                            continue;
+                        }
+                        double newDist = currentDist + graph.arcWeight(a);
+                        if (newDist < workspace.dist(neighbor)) {
+                            workspace.reach(neighbor, newDist, current, graph.arcEdge(a));
+                            workspace.insertOrDecrease(neighbor, newDist);
+                        }
+                    }
+                }
+            }
+        });
+        return new AllPairs(n, costs, next);
+    }
+
+    private static int checkSize(CompactGraph graph) {
+        int n = graph.vertexCount();
+        if (n > MAX_VERTICES) {
+            throw new IllegalArgumentException(
+                "All-pairs tables are limited to " + MAX_VERTICES + " vertices, graph has " + n);
+        }
+        return n;
+    }
+
+    public int vertexCount() {
+        return n;
+    }
+
+    /**
+     * Returns the cost of the cheapest path between two vertices.
+     *
+     * @param source start vertex
+     * @param goal goal vertex
+     * @return the cost, infinite if unreachable
+     */
+    public double cost(int source, int goal) {
+        checkVertex(source);
+        checkVertex(goal);
+        return costs[source * n + goal];
+    }
+
+    /**
+     * Returns the vertex after {@code source} on the cheapest path to
+     * {@code goal}.
+     *
+     * @param source start vertex
+     * @param goal goal vertex
+     * @return the next vertex, {@code goal} itself if it is the source, or
+     *     -1 if unreachable
+     */
+    public int nextHop(int source, int goal) {
+        checkVertex(source);
+        checkVertex(goal);
+        return next[source * n + goal];
+    }
+
+    /**
+     * Reads the cheapest path between two vertices off the tables, in time
+     * proportional to its length.
+     *
+     * @param source start vertex
+     * @param goal goal vertex
+     * @return cost & vertices of the path, infinite cost if unreachable
+     */
+    public PathResult path(int source, int goal) {
+        long startNanos = System.nanoTime();
+        double cost = cost(source, goal);
+        if (cost == Double.POSITIVE_INFINITY) {
+            return PathResult.unreachable(
+                new SearchStats(0, 0, 0, 0, 0, 0, System.nanoTime() - startNanos, -1));
+        }
+        int length = 1;
+        for (int v = source; v != goal; v = next[v * n + goal]) {
+            ++length;
+        }
+        int[] path = new int[length];
+        path[0] = source;
+        for (int i = 1, v = source; v != goal; ++i) {
+            v = next[v * n + goal];
+            path[i] = v;
+        }
+        return new PathResult(cost, path,
+            new SearchStats(0, 0, 0, 0, 0, 0, System.nanoTime() - startNanos, -1));
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= n) {
+            throw new IllegalArgumentException("Vertex " + v + " out of range");
+        }
+    }
+}
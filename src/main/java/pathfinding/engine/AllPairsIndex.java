@@ -0,0 +1,129 @@
+package pathfinding.engine;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an {@link AllPairs} table in step with a {@link GraphStore}.
+ *
+ * <p>Every published snapshot is handed to a background thread, which
+ * computes the table again unless only positions or names changed.
+ * Snapshots that arrive while it is busy are merged into one rebuild.
+ * Queries are answered from the table when it reflects the store's latest
+ * version, and by searching the latest snapshot otherwise, so they never
+ * wait for a rebuild nor see a stale path. Graphs over
+ * {@link AllPairs#MAX_VERTICES} are always searched.
+ */
+public final class AllPairsIndex implements AutoCloseable {
+
+    /**
+     * A table & the version of the store it reflects; the table is null
+     * while the graph is too large.
+     */
+    private static final class Table {
+
+        final long version;
+        final AllPairs pairs;
+
+        Table(long version, AllPairs pairs) {
+            this.version = version;
+            this.pairs = pairs;
+        }
+    }
+
+    private final GraphStore store;
+    private final AtomicReference<Table> current = new AtomicReference<>(new Table(-1, null));
+    private final ConcurrentLinkedQueue<GraphSnapshot> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<GraphSnapshot> listener = this::enqueue;
+    // A single thread that goes away while idle, so that an index nobody
+    // closed does not keep one alive
+    private final ThreadPoolExecutor updater = new ThreadPoolExecutor(
+        1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "all-pairs-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    /**
+     * Starts computing the table of the store's current graph in the
+     * background, then follows its updates.
+     *
+     * @param store store to follow
+     */
+    public AllPairsIndex(GraphStore store) {
+        this.store = store;
+        updater.allowCoreThreadTimeOut(true);
+        store.addListener(listener);
+        GraphSnapshot latest = store.current();
+        enqueue(new GraphSnapshot(latest.version, latest.graph, null));
+    }
+
+    /**
+     * Returns whether queries on the store's latest version are answered
+     * from the table.
+     *
+     * @return true if the table is up to date
+     */
+    public boolean isCurrent() {
+        Table table = current.get();
+        return table.pairs != null && table.version == store.current().version;
+    }
+
+    /**
+     * Finds the cheapest path on the store's latest version, from the table
+     * if it is up to date.
+     *
+     * @param source start vertex
+     * @param goal goal vertex
+     * @return cost & vertices of the path, infinite cost if unreachable
+     */
+    public PathResult search(int source, int goal) {
+        GraphSnapshot latest = store.current();
+        Table table = current.get();
+        if (table.pairs != null && table.version == latest.version) {
+            return table.pairs.path(source, goal);
+        }
+        return PathSearch.search(latest.graph, source, goal, SearchMethods.A_STAR);
+    }
+
+    @Override
+    public void close() {
+        store.removeListener(listener);
+        updater.shutdown();
+    }
+
+    private void enqueue(GraphSnapshot snapshot) {
+        pending.add(snapshot);
+        updater.execute(this::update);
+    }
+
+    private void update() {
+        GraphSnapshot latest = null;
+        boolean sameWeights = true;
+        GraphSnapshot snapshot;
+        while ((snapshot = pending.poll()) != null) {
+            latest = snapshot;
+            if (!snapshot.isSameTopology() || snapshot.changedEdges.length > 0) {
+                sameWeights = false;
+            }
+        }
+        if (latest == null) {
+            // Already merged into an earlier update
+            return;
+        }
+        Table table = current.get();
+        CompactGraph graph = latest.graph;
+        if (sameWeights && table.version >= 0) {
+            // Moving or renaming vertices changes no path
+            current.set(new Table(latest.version, table.pairs));
+        } else if (graph.vertexCount() > AllPairs.MAX_VERTICES) {
+            current.set(new Table(latest.version, null));
+        } else {
+            current.set(new Table(latest.version, AllPairs.compute(graph)));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Anytime repairing A* (ARA*, Likhachev et al.): a weighted A* whose first
+ * path costs at most {@code epsilon} times the optimal one, improved by
+ * further searches with a shrinking inflation until it is proven optimal.
+ *
+ * <p>Each search continues from the previous one instead of starting over:
+ * costs & parents are kept, and only the vertices whose cost dropped after
+ * they were expanded are queued again. Straight line distances are scaled
+ * down by the lowest weight to length ratio so that they never overestimate,
+ * which makes every reported bound a proven one.
+ */
+public final class AnytimeSearch {
+
+    private static final int NONE = -1;
+
+    private AnytimeSearch() { }
+
+    /**
+     * A path found by one iteration.
+     */
+    public static final class Solution {
+
+        public final PathResult result;
+        /** Inflation of the heuristic used by the iteration. */
+        public final double epsilon;
+        /**
+         * Proven upper bound on the path's cost divided by the optimal cost,
+         * 1 once the path is optimal.
+         */
+        public final double bound;
+
+        Solution(PathResult result, double epsilon, double bound) {
+            this.result = result;
+            this.epsilon = epsilon;
+            this.bound = bound;
+        }
+
+        public boolean isOptimal() {
+            return bound <= 1.0;
+        }
+    }
+
+    /**
+     * Searches with decreasing inflation until the path is proven optimal
+     * or the thread is interrupted.
+     *
+     * @param graph graph to search
+     * @param source start vertex
+     * @param goal goal vertex
+     * @param epsilon initial inflation, at least 1
+     * @param step how much the inflation shrinks after each iteration
+     * @param listener called with every improved solution, on this thread
+     * @return the last solution, with infinite cost if unreachable
+     */
+    public static Solution search(CompactGraph graph, int source, int goal,
+                                  double epsilon, double step, Consumer<Solution> listener) {
+        ShortestPaths.checkVertex(graph, source);
+        ShortestPaths.checkVertex(graph, goal);
+        if (!(epsilon >= 1.0) || !(step > 0.0)) {
+            throw new IllegalArgumentException(
+                "Epsilon must be at least 1 & step positive. Epsilon: " + epsilon + " | Step: " + step);
+        }
+        long startNanos = System.nanoTime();
+        if (!graph.connected(source, goal)) {
+            Solution solution = new Solution(PathResult.unreachable(new SearchStats(0, 0, 0, 0, 0, 0,
+                System.nanoTime() - startNanos, 0)), 1.0, 1.0);
+            listener.accept(solution);
+            return solution;
+        }
+        Query query = new Query(graph, source, goal, startNanos);
+        Solution solution = query.improve(epsilon);
+        listener.accept(solution);
+        while (!solution.isOptimal() && !Thread.currentThread().isInterrupted()) {
+            epsilon = Math.max(1.0, Math.min(epsilon - step, solution.bound));
+            solution = query.improve(epsilon);
+            listener.accept(solution);
+        }
+        return solution;
+    }
+
+    private static final class Query {
+
+        private final CompactGraph graph;
+        private final int goal;
+        private final double scale;
+        private final long startNanos;
+        private final long startBytes = SearchStats.allocatedBytes();
+        private final double[] dist;
+        private final int[] parent;
+        private final int[] parentArc;
+        // Expanded in the current iteration, where equal to the iteration
+        private final int[] closed;
+        private final boolean[] inconsistent;
+        private final IntList incons = new IntList(64);
+        private final IntList reopen = new IntList(64);
+        private final IndexedMinHeap open;
+        private int iteration;
+        private double epsilon;
+
+        private long settled;
+        private long relaxed;
+        private long pushes;
+        private long pops;
+        private long decreaseKeys;
+        private int peakFrontier;
+
+        Query(CompactGraph graph, int source, int goal, long startNanos) {
+            this.graph = graph;
+            this.goal = goal;
+            this.scale = graph.heuristicScale();
+            this.startNanos = startNanos;
+            int n = graph.vertexCount();
+            dist = new double[n];
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            parent = new int[n];
+            parentArc = new int[n];
+            closed = new int[n];
+            inconsistent = new boolean[n];
+            open = new IndexedMinHeap(n);
+            dist[source] = 0.0;
+            parent[source] = NONE;
+            incons.add(source);
+            inconsistent[source] = true;
+        }
+
+        private double heuristic(int v) {
+            return scale * graph.distance(v, goal);
+        }
+
+        /**
+         * Runs one iteration with a new inflation and returns its solution.
+         */
+        Solution improve(double newEpsilon) {
+            epsilon = newEpsilon;
+            ++iteration;
+            // Requeue what is still open plus the vertices that improved
+            // after being expanded, keyed with the new inflation
+            reopen.clear();
+            for (int i = 0; i < open.size(); ++i) {
+                reopen.add(open.get(i));
+            }
+            open.clear();
+            for (int i = 0; i < incons.size(); ++i) {
+                inconsistent[incons.get(i)] = false;
+                reopen.add(incons.get(i));
+            }
+            incons.clear();
+            for (int i = 0; i < reopen.size(); ++i) {
+                int v = reopen.get(i);
+                if (open.insertOrDecrease(v, key(v)) == IndexedMinHeap.INSERTED) {
+                    ++pushes;
+                }
+            }
+            peakFrontier = Math.max(peakFrontier, open.size());
+
+            while (!open.isEmpty() && dist[goal] > open.minKey()) {
+                int current = open.poll();
+                ++pops;
+                ++settled;
+                closed[current] = iteration;
+                double currentDist = dist[current];
+                for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                    int neighbor = graph.arcHead(a);
+                    double newDist = currentDist + graph.arcWeight(a);
+                    if (newDist >= dist[neighbor]) {
+                        continue;
+                    }
+                    ++relaxed;
+                    dist[neighbor] = newDist;
+                    parent[neighbor] = current;
+                    parentArc[neighbor] = a;
+                    if (closed[neighbor] != iteration) {
+                        int queued = open.insertOrDecrease(neighbor, key(neighbor));
+                        if (queued == IndexedMinHeap.INSERTED) {
+                            ++pushes;
+                            peakFrontier = Math.max(peakFrontier, open.size());
+                        } else if (queued == IndexedMinHeap.DECREASED) {
+                            ++decreaseKeys;
+                        }
+                    } else if (!inconsistent[neighbor]) {
+                        // Expanded already this iteration, wait for the next
+                        inconsistent[neighbor] = true;
+                        incons.add(neighbor);
+                    }
+                }
+            }
+            return solution();
+        }
+
+        private double key(int v) {
+            return dist[v] + epsilon * heuristic(v);
+        }
+
+        private Solution solution() {
+            // No path through a waiting vertex can cost less than its
+            // uninflated key, which bounds the optimal cost from below
+            double lower = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < open.size(); ++i) {
+                int v = open.get(i);
+                lower = Math.min(lower, dist[v] + heuristic(v));
+            }
+            for (int i = 0; i < incons.size(); ++i) {
+                int v = incons.get(i);
+                lower = Math.min(lower, dist[v] + heuristic(v));
+            }
+            // Costs upstream may have dropped since the goal's was set, so
+            // the path can be cheaper than dist[goal]
+            int[] path = path();
+            double cost = 0.0;
+            for (int i = 1; i < path.length; ++i) {
+                cost += graph.arcWeight(parentArc[path[i]]);
+            }
+            // Without inflation the heuristic's consistency proves the path
+            // optimal
+            double bound = epsilon <= 1.0 || cost <= lower ? 1.0 : Math.min(epsilon, cost / lower);
+            long endBytes = SearchStats.allocatedBytes();
+            SearchStats stats = new SearchStats(settled, relaxed, pushes, pops, decreaseKeys,
+                peakFrontier, System.nanoTime() - startNanos,
+                startBytes < 0 ? -1 : endBytes - startBytes);
+            return new Solution(new PathResult(cost, path, stats), epsilon, bound);
+        }
+
+        private int[] path() {
+            int length = 0;
+            for (int v = goal; v != NONE; v = parent[v]) {
+                ++length;
+            }
+            int[] path = new int[length];
+            for (int v = goal; v != NONE; v = parent[v]) {
+                path[--length] = v;
+            }
+            return path;
+        }
+    }
+}
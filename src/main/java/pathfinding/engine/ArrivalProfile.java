@@ -0,0 +1,276 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Earliest arrival at a vertex as a function of the departure time from the
+ * source, over a window of departure times: piecewise linear between
+ * breakpoints, and never decreasing when travel times are FIFO. Found by
+ * {@link TimeDependentSearch#profile}.
+ */
+public final class ArrivalProfile {
+
+    // Below this, arrival times are considered equal
+    private static final double EPSILON = 1e-9;
+
+    private final double[] departures;
+    private final double[] arrivals;
+
+    private ArrivalProfile(double[] departures, double[] arrivals) {
+        this.departures = departures;
+        this.arrivals = arrivals;
+    }
+
+    /**
+     * Returns the profile of staying at the source: arriving when leaving.
+     */
+    static ArrivalProfile identity(double windowStart, double windowEnd) {
+        return windowEnd > windowStart
+            ? new ArrivalProfile(new double[] {windowStart, windowEnd}, new double[] {windowStart, windowEnd})
+            : new ArrivalProfile(new double[] {windowStart}, new double[] {windowStart});
+    }
+
+    public int breakpointCount() {
+        return departures.length;
+    }
+
+    public double departure(int i) {
+        return departures[i];
+    }
+
+    /**
+     * Returns the arrival time when departing at breakpoint {@code i}.
+     */
+    public double arrivalAt(int i) {
+        return arrivals[i];
+    }
+
+    public double windowStart() {
+        return departures[0];
+    }
+
+    public double windowEnd() {
+        return departures[departures.length - 1];
+    }
+
+    /**
+     * Returns the earliest arrival when departing at a given time.
+     *
+     * @param departure departure time within the window
+     * @return the arrival time
+     */
+    public double arrival(double departure) {
+        if (departure < windowStart() || departure > windowEnd()) {
+            throw new IllegalArgumentException("Departure " + departure + " outside of the window ["
+                + windowStart() + ", " + windowEnd() + "]");
+        }
+        return interpolate(departures, arrivals, departures.length, departure);
+    }
+
+    /**
+     * Returns the shortest travel time when departing at a given time.
+     *
+     * @param departure departure time within the window
+     * @return the travel time
+     */
+    public double travelTime(double departure) {
+        return arrival(departure) - departure;
+    }
+
+    /**
+     * Returns the earliest arrival over the whole window, that of departing
+     * at its start.
+     *
+     * @return the arrival time
+     */
+    public double earliestArrival() {
+        return arrivals[0];
+    }
+
+    /**
+     * Returns the latest arrival over the whole window.
+     *
+     * @return the arrival time
+     */
+    public double latestArrival() {
+        return arrivals[arrivals.length - 1];
+    }
+
+    /**
+     * Returns the departure time within the window with the shortest travel
+     * time, the earliest of them if several tie. Travel time is linear
+     * between breakpoints, so one of them is always the best.
+     *
+     * @return the departure time
+     */
+    public double bestDeparture() {
+        int best = 0;
+        for (int i = 1; i < departures.length; ++i) {
+            if (arrivals[i] - departures[i] < arrivals[best] - departures[best] - EPSILON) {
+                best = i;
+            }
+        }
+        return departures[best];
+    }
+
+    /**
+     * Returns the profile of going on through an edge: the arrival at its
+     * head for every departure from the source.
+     */
+    ArrivalProfile link(TravelTimeProfiles profiles, int edge) {
+        int n = departures.length;
+        if (!profiles.hasProfile(edge)) {
+            double weight = profiles.travelTime(edge, 0.0);
+            double[] shifted = new double[n];
+            for (int i = 0; i < n; ++i) {
+                shifted[i] = arrivals[i] + weight;
+            }
+            return new ArrivalProfile(departures, shifted);
+        }
+        // The result bends where this profile does, and where it reaches
+        // the edge's breakpoints
+        double period = profiles.period();
+        int firstBreakpoint = profiles.firstBreakpoint(edge);
+        int endBreakpoint = profiles.endBreakpoint(edge);
+        double[] points = new double[2 * n + 2];
+        int count = 0;
+        for (int i = 0; i < n; ++i) {
+            if (count == points.length) {
+                points = Arrays.copyOf(points, 2 * count);
+            }
+            points[count++] = departures[i];
+            if (i + 1 == n || !(arrivals[i + 1] > arrivals[i])) {
+                continue;
+            }
+            double y0 = arrivals[i];
+            double y1 = arrivals[i + 1];
+            double slope = (departures[i + 1] - departures[i]) / (y1 - y0);
+            for (double cycle = Math.floor(y0 / period) * period; cycle < y1; cycle += period) {
+                for (int b = firstBreakpoint; b < endBreakpoint; ++b) {
+                    double y = cycle + profiles.breakpointTime(b);
+                    if (y > y0 && y < y1) {
+                        if (count == points.length) {
+                            points = Arrays.copyOf(points, 2 * count);
+                        }
+                        points[count++] = departures[i] + (y - y0) * slope;
+                    }
+                }
+            }
+        }
+        // Breakpoints of the edge come in order within a segment, but
+        // rounding may have pushed one past the segment's end
+        Arrays.sort(points, 0, count);
+        double[] linkedArrivals = new double[count];
+        for (int i = 0; i < count; ++i) {
+            double reached = interpolate(departures, arrivals, n, points[i]);
+            linkedArrivals[i] = reached + profiles.travelTime(edge, reached);
+        }
+        return simplify(Arrays.copyOf(points, count), linkedArrivals, count);
+    }
+
+    /**
+     * Returns the earlier of this profile & {@code other}, over the same
+     * window, at every departure, or null if this one is nowhere earlier.
+     */
+    ArrivalProfile improve(ArrivalProfile other) {
+        if (other == null) {
+            return this;
+        }
+        double[] a = departures;
+        double[] b = other.departures;
+        double[] points = new double[2 * (a.length + b.length)];
+        double[] values = new double[points.length];
+        int count = 0;
+        boolean improved = false;
+        int i = 0;
+        int j = 0;
+        double previousX = Double.NaN;
+        double previousMine = 0.0;
+        double previousTheirs = 0.0;
+        while (i < a.length || j < b.length) {
+            double x;
+            if (j == b.length || (i < a.length && a[i] <= b[j])) {
+                x = a[i];
+            } else {
+                x = b[j];
+            }
+            while (i < a.length && a[i] == x) {
+                ++i;
+            }
+            while (j < b.length && b[j] == x) {
+                ++j;
+            }
+            double mine = interpolate(departures, arrivals, departures.length, x);
+            double theirs = interpolate(other.departures, other.arrivals, other.departures.length, x);
+            if (count > 0) {
+                // Add the point where the profiles cross, if they do
+                double before = previousMine - previousTheirs;
+                double after = mine - theirs;
+                if ((before < -EPSILON && after > EPSILON) || (before > EPSILON && after < -EPSILON)) {
+                    double crossing = previousX + (x - previousX) * before / (before - after);
+                    points[count] = crossing;
+                    values[count] = previousMine + (mine - previousMine) * (crossing - previousX) / (x - previousX);
+                    ++count;
+                }
+            }
+            if (mine < theirs - EPSILON) {
+                improved = true;
+            }
+            points[count] = x;
+            values[count] = Math.min(mine, theirs);
+            ++count;
+            previousX = x;
+            previousMine = mine;
+            previousTheirs = theirs;
+        }
+        return improved ? simplify(points, values, count) : null;
+    }
+
+    /**
+     * Drops breakpoints that lie on the line through their neighbors.
+     */
+    private static ArrivalProfile simplify(double[] xs, double[] ys, int count) {
+        double[] keptX = new double[count];
+        double[] keptY = new double[count];
+        int kept = 0;
+        for (int i = 0; i < count; ++i) {
+            if (kept > 1 && xs[i] - keptX[kept - 1] <= EPSILON) {
+                // Same departure twice, after rounding; the window's ends
+                // stay exact
+                keptX[kept - 1] = xs[i];
+                keptY[kept - 1] = Math.min(keptY[kept - 1], ys[i]);
+                continue;
+            }
+            if (kept >= 2) {
+                double x0 = keptX[kept - 2];
+                double y0 = keptY[kept - 2];
+                double x1 = keptX[kept - 1];
+                double y1 = keptY[kept - 1];
+                double expected = y0 + (ys[i] - y0) * (x1 - x0) / (xs[i] - x0);
+                if (Math.abs(expected - y1) <= EPSILON * Math.max(1.0, Math.abs(y1))) {
+                    --kept;
+                }
+            }
+            keptX[kept] = xs[i];
+            keptY[kept] = ys[i];
+            ++kept;
+        }
+        return new ArrivalProfile(Arrays.copyOf(keptX, kept), Arrays.copyOf(keptY, kept));
+    }
+
+    private static double interpolate(double[] xs, double[] ys, int n, double x) {
+        int at = Arrays.binarySearch(xs, 0, n, x);
+        if (at >= 0) {
+            return ys[at];
+        }
+        int next = -at - 1;
+        if (next == 0) {
+            return ys[0];
+        }
+        if (next == n) {
+            return ys[n - 1];
+        }
+        int previous = next - 1;
+        return ys[previous] + (ys[next] - ys[previous]) * (x - xs[previous]) / (xs[next] - xs[previous]);
+    }
+}
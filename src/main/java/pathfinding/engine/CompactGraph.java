@@ -0,0 +1,345 @@
+package pathfinding.engine;
+
+import java.util.HashMap;
+
+/**
+ * Immutable, JavaFX-free graph stored as flat primitive arrays.
+ *
+ * <p>Vertices are numbered {@code 0..vertexCount()-1} and keep the layout
+ * coordinates and names of the editor's nodes. Every undirected edge has an
+ * id {@code 0..edgeCount()-1} and is stored as two arcs in a compressed
+ * adjacency layout, so the arcs of vertex {@code v} are
+ * {@code arcStart(v) .. arcEnd(v) - 1}.
+ */
+public final class CompactGraph {
+
+    private final double[] xs;
+    private final double[] ys;
+    private final String[] names;
+
+    private final int[] firstArc;
+    private final int[] arcHead;
+    private final int[] arcEdge;
+    private final double[] arcWeight;
+
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    // Positions of the two arcs of every edge: 2e & 2e + 1
+    private final int[] edgeArcs;
+
+    private volatile HashMap<String, Integer> nameIndex;
+    // Connected component of every vertex, computed on first use
+    private volatile int[] components;
+    // Admissible heuristic scale, NaN until first used
+    private volatile double heuristicScale = Double.NaN;
+
+    CompactGraph(double[] xs, double[] ys, String[] names,
+                 int[] firstArc, int[] arcHead, int[] arcEdge, double[] arcWeight,
+                 int[] edgeFrom, int[] edgeTo, int[] edgeArcs) {
+        this.xs = xs;
+        this.ys = ys;
+        this.names = names;
+        this.firstArc = firstArc;
+        this.arcHead = arcHead;
+        this.arcEdge = arcEdge;
+        this.arcWeight = arcWeight;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeArcs = edgeArcs;
+    }
+
+    /**
+     * Builds the compressed adjacency arrays from an edge list.
+     *
+     * @param n number of vertices
+     * @param m number of edges
+     * @param xs x coordinates (length &gt;= n)
+     * @param ys y coordinates (length &gt;= n)
+     * @param names vertex names (length &gt;= n)
+     * @param from first endpoint of each edge (length &gt;= m)
+     * @param to second endpoint of each edge (length &gt;= m)
+     * @param weight weight of each edge (length &gt;= m)
+     * @return the graph
+     */
+    static CompactGraph fromEdgeList(int n, int m, double[] xs, double[] ys, String[] names,
+                                     int[] from, int[] to, double[] weight) {
+        int[] firstArc = new int[n + 1];
+        for (int e = 0; e < m; ++e) {
+            ++firstArc[from[e] + 1];
+            ++firstArc[to[e] + 1];
+        }
+        for (int v = 0; v < n; ++v) {
+            firstArc[v + 1] += firstArc[v];
+        }
+        int[] fill = new int[n];
+        System.arraycopy(firstArc, 0, fill, 0, n);
+        int[] arcHead = new int[2 * m];
+        int[] arcEdge = new int[2 * m];
+        double[] arcWeight = new double[2 * m];
+        int[] edgeArcs = new int[2 * m];
+        for (int e = 0; e < m; ++e) {
+            int u = from[e];
+            int v = to[e];
+            int a = fill[u]++;
+            arcHead[a] = v;
+            arcEdge[a] = e;
+            arcWeight[a] = weight[e];
+            int b = fill[v]++;
+            arcHead[b] = u;
+            arcEdge[b] = e;
+            arcWeight[b] = weight[e];
+            edgeArcs[2 * e] = a;
+            edgeArcs[2 * e + 1] = b;
+        }
+        return new CompactGraph(
+            trim(xs, n), trim(ys, n), trim(names, n),
+            firstArc, arcHead, arcEdge, arcWeight,
+            trim(from, m), trim(to, m), edgeArcs
+        );
+    }
+
+    /**
+     * Returns a graph with the same topology, sharing every array that is
+     * passed in unchanged.
+     *
+     * @param xs x coordinates
+     * @param ys y coordinates
+     * @param names vertex names
+     * @param arcWeight weight of every arc
+     * @return the new graph
+     */
+    CompactGraph withVertexData(double[] xs, double[] ys, String[] names, double[] arcWeight) {
+        CompactGraph graph = new CompactGraph(xs, ys, names, firstArc, arcHead, arcEdge,
+            arcWeight, edgeFrom, edgeTo, edgeArcs);
+        if (names == this.names) {
+            graph.nameIndex = nameIndex;
+        }
+        graph.components = components;
+        if (xs == this.xs && ys == this.ys && arcWeight == this.arcWeight) {
+            graph.heuristicScale = heuristicScale;
+        }
+        return graph;
+    }
+
+    double[] arcWeights() {
+        return arcWeight;
+    }
+
+    double[] xs() {
+        return xs;
+    }
+
+    double[] ys() {
+        return ys;
+    }
+
+    String[] names() {
+        return names;
+    }
+
+    int edgeArc(int edge, int side) {
+        return edgeArcs[2 * edge + side];
+    }
+
+    public int vertexCount() {
+        return xs.length;
+    }
+
+    public int edgeCount() {
+        return edgeFrom.length;
+    }
+
+    public double x(int v) {
+        return xs[v];
+    }
+
+    public double y(int v) {
+        return ys[v];
+    }
+
+    public String name(int v) {
+        return names[v];
+    }
+
+    public int degree(int v) {
+        return firstArc[v + 1] - firstArc[v];
+    }
+
+    public int arcStart(int v) {
+        return firstArc[v];
+    }
+
+    public int arcEnd(int v) {
+        return firstArc[v + 1];
+    }
+
+    public int arcHead(int arc) {
+        return arcHead[arc];
+    }
+
+    public int arcEdge(int arc) {
+        return arcEdge[arc];
+    }
+
+    public double arcWeight(int arc) {
+        return arcWeight[arc];
+    }
+
+    public int edgeFrom(int edge) {
+        return edgeFrom[edge];
+    }
+
+    public int edgeTo(int edge) {
+        return edgeTo[edge];
+    }
+
+    /**
+     * Returns the weight of an edge.
+     *
+     * @param edge edge id
+     * @return weight of the edge
+     */
+    public double edgeWeight(int edge) {
+        return arcWeight[edgeArcs[2 * edge]];
+    }
+
+    /**
+     * Straight line distance between two vertices, the same measure as
+     * {@code GraphNode.distance}.
+     *
+     * @param u first vertex
+     * @param v second vertex
+     * @return euclidean distance between the layout positions
+     */
+    public double distance(int u, int v) {
+        double dx = xs[u] - xs[v];
+        double dy = ys[u] - ys[v];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns the connected component of a vertex. The components are found
+     * on the first call, in time proportional to the number of edges.
+     *
+     * @param v vertex
+     * @return id of the component, the same for all vertices connected to v
+     */
+    public int component(int v) {
+        int[] labels = components;
+        if (labels == null) {
+            UnionFind sets = new UnionFind(vertexCount());
+            for (int e = 0; e < edgeFrom.length; ++e) {
+                sets.union(edgeFrom[e], edgeTo[e]);
+            }
+            labels = new int[vertexCount()];
+            for (int u = 0; u < labels.length; ++u) {
+                labels[u] = sets.find(u);
+            }
+            components = labels;
+        }
+        return labels[v];
+    }
+
+    /**
+     * Returns whether there is a path between two vertices.
+     *
+     * @param u first vertex
+     * @param v second vertex
+     * @return true if both are in the same connected component
+     */
+    public boolean connected(int u, int v) {
+        return component(u) == component(v);
+    }
+
+    /**
+     * Returns the largest factor by which straight line distances can be
+     * multiplied without exceeding any path's cost, so that A* stays
+     * optimal: the lowest ratio of weight to length over all edges. Computed
+     * on the first call, in time proportional to the number of edges.
+     *
+     * @return the scale, 0 if no edge has a length or a weight is negative
+     */
+    public double heuristicScale() {
+        double scale = heuristicScale;
+        if (Double.isNaN(scale)) {
+            scale = Double.POSITIVE_INFINITY;
+            for (int e = 0; e < edgeFrom.length; ++e) {
+                double length = distance(edgeFrom[e], edgeTo[e]);
+                if (length > 0.0) {
+                    scale = Math.min(scale, edgeWeight(e) / length);
+                }
+            }
+            scale = scale == Double.POSITIVE_INFINITY ? 0.0 : Math.max(scale, 0.0);
+            heuristicScale = scale;
+        }
+        return scale;
+    }
+
+    /**
+     * Looks up a vertex by its name.
+     *
+     * @param name name of the vertex
+     * @return index of the vertex, or -1 if there is none
+     */
+    public int indexOf(String name) {
+        HashMap<String, Integer> index = nameIndex;
+        if (index == null) {
+            index = new HashMap<>();
+            for (int v = names.length - 1; v >= 0; --v) {
+                index.put(names[v], v);
+            }
+            nameIndex = index;
+        }
+        return index.getOrDefault(name, -1);
+    }
+
+    /**
+     * Finds a vertex by name, or by index when no vertex has that name.
+     *
+     * @param token name or index of the vertex
+     * @return index of the vertex
+     * @throws IllegalArgumentException no such vertex
+     */
+    public int resolve(String token) {
+        int index = indexOf(token);
+        if (index >= 0) {
+            return index;
+        }
+        try {
+            index = Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown vertex " + token);
+        }
+        if (index < 0 || index >= vertexCount()) {
+            throw new IllegalArgumentException("Unknown vertex " + token);
+        }
+        return index;
+    }
+
+    private static double[] trim(double[] array, int length) {
+        if (array.length == length) {
+            return array;
+        }
+        double[] copy = new double[length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static int[] trim(int[] array, int length) {
+        if (array.length == length) {
+            return array;
+        }
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static String[] trim(String[] array, int length) {
+        if (array.length == length) {
+            return array;
+        }
+        String[] copy = new String[length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+}
@@ -0,0 +1,101 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing table from vertex to tentative cost & parent, with a
+ * settled flag per entry. Grows with the vertices put in it, so a search that
+ * touches a small part of a large graph stays small too.
+ */
+final class CostTable {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys = new int[64];
+    private double[] costs = new double[64];
+    private int[] parents = new int[64];
+    private boolean[] settled = new boolean[64];
+    private int size;
+
+    CostTable() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Returns the slot of a vertex, or -1 if it has no cost yet.
+     */
+    int find(int v) {
+        int mask = keys.length - 1;
+        for (int slot = hash(v) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == v) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    void put(int v, double cost, int parent) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = hash(v) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != v) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = v;
+            ++size;
+        }
+        costs[slot] = cost;
+        parents[slot] = parent;
+    }
+
+    double cost(int slot) {
+        return costs[slot];
+    }
+
+    int parent(int slot) {
+        return parents[slot];
+    }
+
+    boolean isSettled(int slot) {
+        return settled[slot];
+    }
+
+    void settle(int slot) {
+        settled[slot] = true;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldCosts = costs;
+        int[] oldParents = parents;
+        boolean[] oldSettled = settled;
+        keys = new int[2 * oldKeys.length];
+        Arrays.fill(keys, EMPTY);
+        costs = new double[keys.length];
+        parents = new int[keys.length];
+        settled = new boolean[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                costs[slot] = oldCosts[i];
+                parents[slot] = oldParents[i];
+                settled[slot] = oldSettled[i];
+            }
+        }
+    }
+
+    private static int hash(int v) {
+        int h = v * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,427 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Accumulates vertices & edges in growable primitive arrays and turns them
+ * into immutable {@link CompactGraph} snapshots.
+ *
+ * <p>The builder remembers the last snapshot it built and what changed
+ * since. When only weights, positions or names were edited, the next
+ * snapshot shares the adjacency arrays (and any other untouched array) with
+ * the previous one, and only the arcs of edited edges are patched, so
+ * publishing a small edit costs a copy of the affected arrays instead of a
+ * full rebuild. A builder is meant to be used by a single writer.
+ *
+ * <p>Removing vertices & edges renumbers the last one into the freed id, in
+ * time proportional to the degrees involved: the edges of every vertex are
+ * listed from the first removal on, so graphs that are only ever added to
+ * don't pay for the lists.
+ */
+public class GraphBuilder {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+
+    private int vertexCount;
+    private double[] xs;
+    private double[] ys;
+    private String[] names;
+
+    private int edgeCount;
+    private int[] from;
+    private int[] to;
+    private double[] weights;
+    // Edges of every vertex, a loop listed twice; null until the first
+    // removal
+    private IntList[] incident;
+
+    // Changes since the last build
+    private CompactGraph last;
+    private boolean topologyChanged = true;
+    private boolean positionsChanged;
+    private boolean namesChanged;
+    private final BitSet changedWeights = new BitSet();
+
+    public GraphBuilder() {
+        this(INITIAL_CAPACITY, INITIAL_CAPACITY);
+    }
+
+    public GraphBuilder(int expectedVertices, int expectedEdges) {
+        int vertexCapacity = Math.max(expectedVertices, 1);
+        int edgeCapacity = Math.max(expectedEdges, 1);
+        xs = new double[vertexCapacity];
+        ys = new double[vertexCapacity];
+        names = new String[vertexCapacity];
+        from = new int[edgeCapacity];
+        to = new int[edgeCapacity];
+        weights = new double[edgeCapacity];
+    }
+
+    /**
+     * Adds a vertex.
+     *
+     * @param x layout x coordinate
+     * @param y layout y coordinate
+     * @param name name of the vertex
+     * @return index of the new vertex
+     */
+    public int addVertex(double x, double y, String name) {
+        if (vertexCount == xs.length) {
+            int capacity = grow(vertexCount);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            names = Arrays.copyOf(names, capacity);
+            if (incident != null) {
+                incident = Arrays.copyOf(incident, capacity);
+            }
+        }
+        if (incident != null) {
+            incident[vertexCount] = new IntList(4);
+        }
+        xs[vertexCount] = x;
+        ys[vertexCount] = y;
+        names[vertexCount] = name;
+        topologyChanged = true;
+        changedWeights.clear();
+        return vertexCount++;
+    }
+
+    /**
+     * Adds an undirected edge between two existing vertices.
+     *
+     * @param u first vertex
+     * @param v second vertex
+     * @param weight weight of the edge
+     * @return id of the new edge
+     */
+    public int connect(int u, int v, double weight) {
+        checkVertex(u);
+        checkVertex(v);
+        if (edgeCount == from.length) {
+            int capacity = grow(edgeCount);
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        from[edgeCount] = u;
+        to[edgeCount] = v;
+        weights[edgeCount] = weight;
+        if (incident != null) {
+            incident[u].add(edgeCount);
+            incident[v].add(edgeCount);
+        }
+        topologyChanged = true;
+        changedWeights.clear();
+        return edgeCount++;
+    }
+
+    /**
+     * Returns the weight of an edge.
+     *
+     * @param edge edge id
+     * @return the weight
+     */
+    public double weight(int edge) {
+        checkEdge(edge);
+        return weights[edge];
+    }
+
+    /**
+     * Changes the weight of an edge.
+     *
+     * @param edge edge id
+     * @param weight new weight
+     * @throws IllegalArgumentException an invalid edge id, or a weight that
+     *     is negative, infinite or NaN
+     */
+    public void setWeight(int edge, double weight) {
+        checkEdge(edge);
+        checkWeight(edge, weight);
+        weights[edge] = weight;
+        if (!topologyChanged) {
+            changedWeights.set(edge);
+        }
+    }
+
+    /**
+     * Changes the weights of many edges at once. Every edge id & weight is
+     * checked before anything is changed, so either all weights are updated
+     * or none.
+     *
+     * @param edges edge ids
+     * @param newWeights new weight of each edge, same length as {@code edges}
+     * @throws IllegalArgumentException an invalid edge id, a weight that is
+     *     negative, infinite or NaN, or arrays of different lengths
+     */
+    public void setWeights(int[] edges, double[] newWeights) {
+        if (edges.length != newWeights.length) {
+            throw new IllegalArgumentException(
+                edges.length + " edges but " + newWeights.length + " weights");
+        }
+        for (int i = 0; i < edges.length; ++i) {
+            checkEdge(edges[i]);
+            checkWeight(edges[i], newWeights[i]);
+        }
+        for (int i = 0; i < edges.length; ++i) {
+            weights[edges[i]] = newWeights[i];
+        }
+        if (!topologyChanged) {
+            for (int edge : edges) {
+                changedWeights.set(edge);
+            }
+        }
+    }
+
+    /**
+     * Returns whether vertices or edges were added or removed since the last
+     * build, so that ids may no longer match its snapshot.
+     *
+     * @return true if the topology changed
+     */
+    public boolean isTopologyChanged() {
+        return last == null || topologyChanged;
+    }
+
+    /**
+     * Returns the edges whose weight changed since the last build.
+     *
+     * @return sorted edge ids, or null if vertices or edges were added or
+     *     removed since, so that every id may have changed
+     */
+    public int[] changedEdges() {
+        if (last == null || topologyChanged) {
+            return null;
+        }
+        return changedWeights.stream().toArray();
+    }
+
+    /**
+     * Moves a vertex.
+     *
+     * @param v vertex
+     * @param x new x coordinate
+     * @param y new y coordinate
+     */
+    public void moveVertex(int v, double x, double y) {
+        checkVertex(v);
+        xs[v] = x;
+        ys[v] = y;
+        positionsChanged = true;
+    }
+
+    /**
+     * Renames a vertex.
+     *
+     * @param v vertex
+     * @param name new name
+     */
+    public void renameVertex(int v, String name) {
+        checkVertex(v);
+        names[v] = name;
+        namesChanged = true;
+    }
+
+    /**
+     * Removes an edge. The last edge takes over the id of the removed one.
+     *
+     * @param edge edge id
+     * @return former id of the edge that now has id {@code edge}, or -1 if
+     *     the removed edge was the last one
+     */
+    public int removeEdge(int edge) {
+        checkEdge(edge);
+        listIncidentEdges();
+        removeIncident(from[edge], edge);
+        removeIncident(to[edge], edge);
+        int moved = --edgeCount;
+        topologyChanged = true;
+        changedWeights.clear();
+        if (moved == edge) {
+            return NONE;
+        }
+        renameIncident(from[moved], moved, edge);
+        renameIncident(to[moved], moved, edge);
+        from[edge] = from[moved];
+        to[edge] = to[moved];
+        weights[edge] = weights[moved];
+        return moved;
+    }
+
+    /**
+     * Removes a vertex that has no edges left. The last vertex takes over
+     * the index of the removed one, and its edges are renumbered, which
+     * takes time proportional to its degree.
+     *
+     * @param v vertex
+     * @return former index of the vertex that now has index {@code v}, or -1
+     *     if the removed vertex was the last one
+     * @throws IllegalStateException the vertex still has edges
+     */
+    public int removeVertex(int v) {
+        checkVertex(v);
+        listIncidentEdges();
+        if (incident[v].size() > 0) {
+            throw new IllegalStateException("Vertex " + v + " still has edges");
+        }
+        int moved = --vertexCount;
+        topologyChanged = true;
+        changedWeights.clear();
+        if (moved == v) {
+            names[v] = null;
+            incident[v] = null;
+            return NONE;
+        }
+        xs[v] = xs[moved];
+        ys[v] = ys[moved];
+        names[v] = names[moved];
+        names[moved] = null;
+        IntList edges = incident[moved];
+        for (int i = 0; i < edges.size(); ++i) {
+            int e = edges.get(i);
+            if (from[e] == moved) {
+                from[e] = v;
+            }
+            if (to[e] == moved) {
+                to[e] = v;
+            }
+        }
+        incident[v] = edges;
+        incident[moved] = null;
+        return moved;
+    }
+
+    /**
+     * Lists the edges of every vertex, before the first removal.
+     */
+    private void listIncidentEdges() {
+        if (incident != null) {
+            return;
+        }
+        int[] degree = new int[vertexCount];
+        for (int e = 0; e < edgeCount; ++e) {
+            ++degree[from[e]];
+            ++degree[to[e]];
+        }
+        incident = new IntList[xs.length];
+        for (int v = 0; v < vertexCount; ++v) {
+            incident[v] = new IntList(Math.max(degree[v], 4));
+        }
+        for (int e = 0; e < edgeCount; ++e) {
+            incident[from[e]].add(e);
+            incident[to[e]].add(e);
+        }
+    }
+
+    private void removeIncident(int v, int edge) {
+        IntList edges = incident[v];
+        for (int i = 0; i < edges.size(); ++i) {
+            if (edges.get(i) == edge) {
+                edges.swapRemove(i);
+                return;
+            }
+        }
+    }
+
+    private void renameIncident(int v, int edge, int newId) {
+        IntList edges = incident[v];
+        for (int i = 0; i < edges.size(); ++i) {
+            if (edges.get(i) == edge) {
+                edges.set(i, newId);
+            }
+        }
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Builds an immutable graph out of everything added so far. The builder
+     * can keep being used afterwards.
+     *
+     * @return the graph
+     */
+    public CompactGraph build() {
+        CompactGraph graph;
+        if (last == null || topologyChanged) {
+            graph = CompactGraph.fromEdgeList(
+                vertexCount, edgeCount,
+                Arrays.copyOf(xs, vertexCount), Arrays.copyOf(ys, vertexCount),
+                Arrays.copyOf(names, vertexCount),
+                Arrays.copyOf(from, edgeCount), Arrays.copyOf(to, edgeCount),
+                Arrays.copyOf(weights, edgeCount)
+            );
+        } else if (positionsChanged || namesChanged || !changedWeights.isEmpty()) {
+            graph = last.withVertexData(
+                positionsChanged ? Arrays.copyOf(xs, vertexCount) : last.xs(),
+                positionsChanged ? Arrays.copyOf(ys, vertexCount) : last.ys(),
+                namesChanged ? Arrays.copyOf(names, vertexCount) : last.names(),
+                buildArcWeights(last)
+            );
+        } else {
+            return last;
+        }
+        last = graph;
+        topologyChanged = false;
+        positionsChanged = false;
+        namesChanged = false;
+        changedWeights.clear();
+        return graph;
+    }
+
+    private double[] buildArcWeights(CompactGraph previous) {
+        double[] arcWeight = previous.arcWeights();
+        int changed = changedWeights.cardinality();
+        if (changed == 0) {
+            return arcWeight;
+        }
+        // Past an eighth of all edges, recomputing every arc is cheaper
+        if (changed > edgeCount >>> 3) {
+            arcWeight = new double[arcWeight.length];
+            for (int a = 0; a < arcWeight.length; ++a) {
+                arcWeight[a] = weights[previous.arcEdge(a)];
+            }
+            return arcWeight;
+        }
+        arcWeight = arcWeight.clone();
+        for (int e = changedWeights.nextSetBit(0); e >= 0; e = changedWeights.nextSetBit(e + 1)) {
+            arcWeight[previous.edgeArc(e, 0)] = weights[e];
+            arcWeight[previous.edgeArc(e, 1)] = weights[e];
+        }
+        return arcWeight;
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= vertexCount) {
+            throw new IllegalArgumentException("Invalid vertex " + v + " of " + vertexCount);
+        }
+    }
+
+    private void checkEdge(int e) {
+        if (e < 0 || e >= edgeCount) {
+            throw new IllegalArgumentException("Invalid edge " + e + " of " + edgeCount);
+        }
+    }
+
+    private static void checkWeight(int edge, double weight) {
+        // Searches & the heuristic calibration assume finite, non-negative
+        // weights
+        if (!(weight >= 0.0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Invalid weight " + weight + " for edge " + edge);
+        }
+    }
+
+    private static int grow(int size) {
+        int capacity = size + (size >> 1) + 1;
+        if (capacity < 0) {
+            throw new OutOfMemoryError("Graph too large");
+        }
+        return capacity;
+    }
+}
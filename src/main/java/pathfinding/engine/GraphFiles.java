@@ -0,0 +1,280 @@
+package pathfinding.engine;
+
+import pathfinding.jfr.GraphLoadEvent;
+import pathfinding.jfr.GraphSaveEvent;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Reads & writes the {@code .graph} format without touching JavaFX.
+ *
+ * <p>The first line lists the vertices as {@code x,y,name|}. It is followed by
+ * one line per vertex listing its edges as {@code weight,neighborIndex|}.
+ * Every edge is written on the lines of both of its endpoints. When reading,
+ * a pair of vertices is connected by the first line listing it, as many times
+ * as that line lists it, so files listing an edge on only one of its
+ * endpoints' lines load the same. Edges from a vertex to itself are skipped.
+ */
+public final class GraphFiles {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private GraphFiles() { }
+
+    /**
+     * Loads a graph from a file.
+     *
+     * @param file file to load
+     * @return the graph
+     * @throws IOException error reading the file or malformed contents
+     * @throws NumberFormatException malformed number in the file
+     */
+    public static CompactGraph read(File file) throws IOException {
+        GraphLoadEvent event = new GraphLoadEvent();
+        event.begin();
+        CompactGraph graph;
+        try (Reader reader = new FileReader(file)) {
+            graph = read(reader, event);
+        }
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.bytes = file.length();
+            event.vertices = graph.vertexCount();
+            event.edges = graph.edgeCount();
+            event.commit();
+        }
+        return graph;
+    }
+
+    /**
+     * Parses a graph from a character stream. The reader is not closed.
+     *
+     * @param reader stream to parse
+     * @return the graph
+     * @throws IOException error reading the stream or malformed contents
+     * @throws NumberFormatException malformed number in the stream
+     */
+    public static CompactGraph read(Reader reader) throws IOException {
+        return read(reader, null);
+    }
+
+    /**
+     * Parses a graph, recording the time spent in each phase if the event is
+     * enabled.
+     */
+    private static CompactGraph read(Reader reader, GraphLoadEvent event) throws IOException {
+        boolean timed = event != null && event.isEnabled();
+        long parseStart = timed ? System.nanoTime() : 0;
+        Tokenizer in = new Tokenizer(reader);
+        GraphBuilder builder = new GraphBuilder();
+        StringBuilder record = in.record;
+
+        // Vertex line
+        int delimiter;
+        do {
+            delimiter = in.nextRecord();
+            if (record.length() == 0) {
+                continue;
+            }
+            int first = indexOf(record, ',', 0);
+            int second = indexOf(record, ',', first + 1);
+            if (first < 0 || second < 0) {
+                throw new IOException("Malformed vertex \"" + record + "\"");
+            }
+            builder.addVertex(
+                Double.parseDouble(record.substring(0, first)),
+                Double.parseDouble(record.substring(first + 1, second)),
+                record.substring(second + 1)
+            );
+        } while (delimiter == '|');
+
+        // One edge line per vertex, missing trailing lines mean no edges.
+        // Neighbors listed on each line above its own vertex, sorted per
+        // line, tell whether a later line's pair was already connected.
+        // Later lines come in order, so each line's lookups only move
+        // forward from a cursor
+        int vertexCount = builder.vertexCount();
+        int[] listed = new int[16];
+        int[] listedEnd = new int[vertexCount];
+        int[] cursor = new int[vertexCount];
+        int listedCount = 0;
+        for (int i = 0; i < vertexCount && delimiter != Tokenizer.EOF; ++i) {
+            cursor[i] = listedCount;
+            do {
+                delimiter = in.nextRecord();
+                if (record.length() == 0) {
+                    continue;
+                }
+                int comma = indexOf(record, ',', 0);
+                if (comma < 0) {
+                    throw new IOException("Malformed edge \"" + record + "\"");
+                }
+                int ending = Integer.parseInt(record.substring(comma + 1));
+                if (ending < 0 || ending >= vertexCount) {
+                    throw new IOException("Edge to unknown vertex " + ending);
+                }
+                if (ending > i) {
+                    if (listedCount == listed.length) {
+                        listed = Arrays.copyOf(listed, 2 * listedCount);
+                    }
+                    listed[listedCount++] = ending;
+                } else if (ending == i || isListed(listed, cursor, listedEnd[ending], ending, i)) {
+                    continue;
+                }
+                builder.connect(i, ending, Double.parseDouble(record.substring(0, comma)));
+            } while (delimiter == '|');
+            Arrays.sort(listed, cursor[i], listedCount);
+            listedEnd[i] = listedCount;
+        }
+        if (!timed) {
+            return builder.build();
+        }
+        long buildStart = System.nanoTime();
+        CompactGraph graph = builder.build();
+        event.parseDuration = buildStart - parseStart;
+        event.buildDuration = System.nanoTime() - buildStart;
+        return graph;
+    }
+
+    /**
+     * Saves a graph to a file.
+     *
+     * @param graph graph to save
+     * @param file file to save to
+     * @throws IOException error saving the file
+     */
+    public static void write(CompactGraph graph, File file) throws IOException {
+        GraphSaveEvent event = new GraphSaveEvent();
+        event.begin();
+        boolean timed = event.isEnabled();
+        long formatStart = timed ? System.nanoTime() : 0;
+        long flushStart;
+        Writer writer = new BufferedWriter(new FileWriter(file), BUFFER_SIZE);
+        try {
+            format(graph, writer);
+            flushStart = timed ? System.nanoTime() : 0;
+        } finally {
+            writer.close();
+        }
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.bytes = file.length();
+            event.vertices = graph.vertexCount();
+            event.edges = graph.edgeCount();
+            event.formatDuration = flushStart - formatStart;
+            event.flushDuration = System.nanoTime() - flushStart;
+            event.commit();
+        }
+    }
+
+    /**
+     * Writes a graph to a character stream. The writer is flushed but not
+     * closed.
+     *
+     * @param graph graph to write
+     * @param writer stream to write to
+     * @throws IOException error writing the stream
+     */
+    public static void write(CompactGraph graph, Writer writer) throws IOException {
+        format(graph, writer);
+        writer.flush();
+    }
+
+    private static void format(CompactGraph graph, Writer writer) throws IOException {
+        int vertexCount = graph.vertexCount();
+        for (int v = 0; v < vertexCount; ++v) {
+            writer.write(Double.toString(graph.x(v)));
+            writer.write(',');
+            writer.write(Double.toString(graph.y(v)));
+            writer.write(',');
+            writer.write(graph.name(v));
+            writer.write('|');
+        }
+        writer.write('\n');
+        for (int v = 0; v < vertexCount; ++v) {
+            for (int a = graph.arcStart(v); a < graph.arcEnd(v); ++a) {
+                writer.write(Double.toString(graph.arcWeight(a)));
+                writer.write(',');
+                writer.write(Integer.toString(graph.arcHead(a)));
+                writer.write('|');
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Returns whether line {@code line} listed {@code v}, skipping the
+     * line's neighbors below {@code v} for good.
+     */
+    private static boolean isListed(int[] listed, int[] cursor, int end, int line, int v) {
+        int at = cursor[line];
+        while (at < end && listed[at] < v) {
+            ++at;
+        }
+        cursor[line] = at;
+        return at < end && listed[at] == v;
+    }
+
+    private static int indexOf(StringBuilder s, char c, int from) {
+        for (int i = from; i < s.length(); ++i) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits a stream into records separated by '|' or line breaks.
+     */
+    private static final class Tokenizer {
+
+        static final int EOF = -1;
+
+        final StringBuilder record = new StringBuilder();
+
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        Tokenizer(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Reads the next record into {@link #record}.
+         *
+         * @return the delimiter that ended the record: '|', '\n' or EOF
+         */
+        int nextRecord() throws IOException {
+            record.setLength(0);
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return EOF;
+                    }
+                }
+                char c = buffer[position++];
+                if (c == '|' || c == '\n') {
+                    int last = record.length() - 1;
+                    if (last >= 0 && record.charAt(last) == '\r') {
+                        record.setLength(last);
+                    }
+                    return c;
+                }
+                record.append(c);
+            }
+        }
+    }
+}
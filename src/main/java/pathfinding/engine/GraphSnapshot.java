@@ -0,0 +1,29 @@
+package pathfinding.engine;
+
+/**
+ * A graph published by a {@link GraphStore}, tagged with its version.
+ */
+public final class GraphSnapshot {
+
+    public final long version;
+    public final CompactGraph graph;
+    // Sorted ids of the edges whose weight changed since the previous
+    // version, or null if vertices or edges were added or removed
+    public final int[] changedEdges;
+
+    public GraphSnapshot(long version, CompactGraph graph, int[] changedEdges) {
+        this.version = version;
+        this.graph = graph;
+        this.changedEdges = changedEdges;
+    }
+
+    /**
+     * Returns whether edge ids of this snapshot mean the same edges as in
+     * the previous version.
+     *
+     * @return true if only weights, positions or names changed
+     */
+    public boolean isSameTopology() {
+        return changedEdges != null;
+    }
+}
@@ -0,0 +1,82 @@
+package pathfinding.engine;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Holds the latest version of a graph that is being edited.
+ *
+ * <p>The writer edits a {@link GraphBuilder} and publishes what it builds;
+ * readers call {@link #current()} once and keep using that snapshot for as
+ * long as they need a consistent view. Snapshots are immutable, so any
+ * number of threads can search them without locks while newer versions are
+ * published. Caches & preprocessing that depend on the graph can listen for
+ * new versions and update only the edges that changed.
+ */
+public final class GraphStore {
+
+    private final AtomicReference<GraphSnapshot> current;
+    private final CopyOnWriteArrayList<Consumer<GraphSnapshot>> listeners =
+        new CopyOnWriteArrayList<>();
+
+    public GraphStore() {
+        this(new GraphBuilder().build());
+    }
+
+    public GraphStore(CompactGraph initial) {
+        current = new AtomicReference<>(new GraphSnapshot(0, initial, null));
+    }
+
+    /**
+     * Returns the latest published snapshot.
+     *
+     * @return the snapshot
+     */
+    public GraphSnapshot current() {
+        return current.get();
+    }
+
+    public long version() {
+        return current.get().version;
+    }
+
+    /**
+     * Builds & publishes the builder's graph, along with the edges whose
+     * weight changed since its last build.
+     *
+     * @param builder builder to publish
+     * @return the published snapshot
+     */
+    public GraphSnapshot publish(GraphBuilder builder) {
+        int[] changedEdges = builder.changedEdges();
+        return publish(builder.build(), changedEdges);
+    }
+
+    /**
+     * Publishes a new version of the graph. Readers that already hold a
+     * snapshot are unaffected; listeners are called on the publishing thread
+     * once the new version is visible.
+     *
+     * @param graph the new graph
+     * @param changedEdges edges whose weight changed, or null if the
+     *     topology changed
+     * @return the published snapshot
+     */
+    public GraphSnapshot publish(CompactGraph graph, int[] changedEdges) {
+        GraphSnapshot snapshot = current.updateAndGet(
+            previous -> new GraphSnapshot(previous.version + 1, graph, changedEdges));
+        for (Consumer<GraphSnapshot> listener : listeners) {
+            listener.accept(snapshot);
+        }
+        return snapshot;
+    }
+
+    public void addListener(Consumer<GraphSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<GraphSnapshot> listener) {
+        listeners.remove(listener);
+    }
+}
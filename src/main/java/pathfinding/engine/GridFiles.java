@@ -0,0 +1,227 @@
+package pathfinding.engine;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads & writes grid maps.
+ *
+ * <p>Three formats are read, told apart by their first bytes:
+ * <ul>
+ *   <li>Moving AI benchmark maps: a {@code type}, {@code height},
+ *   {@code width} & {@code map} header, then one line per row where
+ *   {@code .}, {@code G} & {@code S} are free and anything else blocked.</li>
+ *   <li>Portable graymaps, plain ({@code P2}) or binary ({@code P5}), where
+ *   pixels darker than half the maximum value are blocked.</li>
+ *   <li>Plain text, one line per row, where {@code #} & {@code @} are
+ *   blocked and anything else free. Short rows are padded with free
+ *   cells.</li>
+ * </ul>
+ * Maps are written in the Moving AI format.
+ */
+public final class GridFiles {
+
+    private GridFiles() { }
+
+    /**
+     * Loads a grid map from a file.
+     *
+     * @param file file to load
+     * @return the map
+     * @throws IOException error reading the file or malformed contents
+     */
+    public static GridMap read(File file) throws IOException {
+        return read(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Parses a grid map in any of the supported formats.
+     *
+     * @param data contents of a file
+     * @return the map
+     * @throws IOException malformed contents
+     */
+    public static GridMap read(byte[] data) throws IOException {
+        if (data.length >= 2 && data[0] == 'P' && (data[1] == '2' || data[1] == '5')) {
+            return readGraymap(data);
+        }
+        List<String> lines = new String(data, StandardCharsets.ISO_8859_1).lines()
+            .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        if (!lines.isEmpty() && lines.get(0).startsWith("type ")) {
+            return readMovingAi(lines);
+        }
+        return readText(lines);
+    }
+
+    private static GridMap readMovingAi(List<String> lines) throws IOException {
+        int width = -1;
+        int height = -1;
+        int row = 0;
+        while (row < lines.size() && !lines.get(row).trim().equals("map")) {
+            String[] header = lines.get(row).trim().split("\\s+");
+            if (header.length == 2 && header[0].equals("width")) {
+                width = parseSize(header[1]);
+            } else if (header.length == 2 && header[0].equals("height")) {
+                height = parseSize(header[1]);
+            }
+            ++row;
+        }
+        if (width <= 0 || height <= 0 || row == lines.size()) {
+            throw new IOException("Missing width, height or map in the header");
+        }
+        if (lines.size() - row - 1 < height) {
+            throw new IOException("Expected " + height + " rows, got " + (lines.size() - row - 1));
+        }
+        GridMap map = new GridMap(width, height);
+        for (int y = 0; y < height; ++y) {
+            String line = lines.get(row + 1 + y);
+            if (line.length() < width) {
+                throw new IOException("Row " + y + " is shorter than " + width);
+            }
+            for (int x = 0; x < width; ++x) {
+                char c = line.charAt(x);
+                if (c != '.' && c != 'G' && c != 'S') {
+                    map.setBlocked(x, y, true);
+                }
+            }
+        }
+        return map;
+    }
+
+    private static GridMap readText(List<String> lines) throws IOException {
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).isBlank()) {
+            lines.remove(lines.size() - 1);
+        }
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, line.length());
+        }
+        if (width == 0) {
+            throw new IOException("Empty grid");
+        }
+        GridMap map = new GridMap(width, lines.size());
+        for (int y = 0; y < lines.size(); ++y) {
+            String line = lines.get(y);
+            for (int x = 0; x < line.length(); ++x) {
+                char c = line.charAt(x);
+                if (c == '#' || c == '@') {
+                    map.setBlocked(x, y, true);
+                }
+            }
+        }
+        return map;
+    }
+
+    private static GridMap readGraymap(byte[] data) throws IOException {
+        boolean binary = data[1] == '5';
+        int[] at = {2};
+        int width = parseSize(nextToken(data, at));
+        int height = parseSize(nextToken(data, at));
+        int maxValue = Integer.parseInt(nextToken(data, at));
+        if (maxValue <= 0 || maxValue > 65535) {
+            throw new IOException("Invalid maximum gray value " + maxValue);
+        }
+        // A single whitespace byte separates the header from binary pixels
+        ++at[0];
+        int bytesPerPixel = maxValue < 256 ? 1 : 2;
+        if (binary && data.length - at[0] < (long) width * height * bytesPerPixel) {
+            throw new IOException("Graymap is missing pixels");
+        }
+        GridMap map = new GridMap(width, height);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int value;
+                if (!binary) {
+                    value = Integer.parseInt(nextToken(data, at));
+                } else if (bytesPerPixel == 1) {
+                    value = data[at[0]++] & 0xFF;
+                } else {
+                    value = (data[at[0]++] & 0xFF) << 8 | (data[at[0]++] & 0xFF);
+                }
+                if (2 * value < maxValue) {
+                    map.setBlocked(x, y, true);
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns the next whitespace separated token of a graymap, skipping
+     * comments.
+     */
+    private static String nextToken(byte[] data, int[] at) throws IOException {
+        int i = at[0];
+        while (i < data.length) {
+            if (data[i] == '#') {
+                while (i < data.length && data[i] != '\n') {
+                    ++i;
+                }
+            } else if (Character.isWhitespace(data[i])) {
+                ++i;
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < data.length && !Character.isWhitespace(data[i])) {
+            ++i;
+        }
+        if (start == i) {
+            throw new IOException("Unexpected end of graymap");
+        }
+        at[0] = i;
+        return new String(data, start, i - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int parseSize(String token) throws IOException {
+        try {
+            int size = Integer.parseInt(token);
+            if (size > 0) {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IOException("Invalid grid size " + token);
+    }
+
+    /**
+     * Saves a grid map in the Moving AI format.
+     *
+     * @param map map to save
+     * @param file file to write
+     * @throws IOException error saving the file
+     */
+    public static void write(GridMap map, File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            write(map, writer);
+        }
+    }
+
+    /**
+     * Writes a grid map in the Moving AI format. The writer is not closed.
+     *
+     * @param map map to write
+     * @param writer destination
+     * @throws IOException error writing the stream
+     */
+    public static void write(GridMap map, Writer writer) throws IOException {
+        writer.write("type octile\nheight " + map.height() + "\nwidth " + map.width() + "\nmap\n");
+        char[] row = new char[map.width() + 1];
+        row[map.width()] = '\n';
+        for (int y = 0; y < map.height(); ++y) {
+            for (int x = 0; x < map.width(); ++x) {
+                row[x] = map.isFree(x, y) ? '.' : '@';
+            }
+            writer.write(row);
+        }
+    }
+}
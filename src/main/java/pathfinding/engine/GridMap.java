@@ -0,0 +1,177 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Occupancy grid: a rectangle of cells, each free or blocked, stored as one
+ * bit per cell.
+ *
+ * <p>Cells are numbered row by row, {@code cell = y * width + x}. Moves go to
+ * any of the 8 neighbors, straight ones costing 1 and diagonal ones
+ * {@code sqrt(2)}; a diagonal move needs both cells it passes between to be
+ * free, so paths never cut corners. Everything outside the grid counts as
+ * blocked.
+ */
+public final class GridMap {
+
+    public static final double DIAGONAL = Math.sqrt(2.0);
+
+    private final int width;
+    private final int height;
+    private final long[] blocked;
+    private long version;
+
+    /**
+     * Creates a grid with every cell free.
+     *
+     * @param width number of columns
+     * @param height number of rows
+     */
+    public GridMap(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid grid size " + width + "x" + height);
+        }
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid too large: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        blocked = new long[(int) (((long) width * height + 63) >>> 6)];
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int cellCount() {
+        return width * height;
+    }
+
+    public int cell(int x, int y) {
+        return y * width + x;
+    }
+
+    public int x(int cell) {
+        return cell % width;
+    }
+
+    public int y(int cell) {
+        return cell / width;
+    }
+
+    /**
+     * Returns whether a position is inside the grid & free.
+     *
+     * @param x column, may be out of range
+     * @param y row, may be out of range
+     * @return true if the cell can be entered
+     */
+    public boolean isFree(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        int cell = y * width + x;
+        return (blocked[cell >>> 6] & (1L << cell)) == 0;
+    }
+
+    /**
+     * Blocks or frees a cell.
+     *
+     * @param x column
+     * @param y row
+     * @param isBlocked whether the cell becomes blocked
+     */
+    public void setBlocked(int x, int y, boolean isBlocked) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IllegalArgumentException("Invalid cell " + x + "," + y);
+        }
+        int cell = y * width + x;
+        if (isBlocked) {
+            blocked[cell >>> 6] |= 1L << cell;
+        } else {
+            blocked[cell >>> 6] &= ~(1L << cell);
+        }
+        ++version;
+    }
+
+    /**
+     * Returns a counter that changes whenever a cell is blocked or freed, for
+     * telling whether tables computed from the grid are still valid.
+     *
+     * @return the version
+     */
+    public long version() {
+        return version;
+    }
+
+    public int freeCount() {
+        int count = cellCount();
+        for (long word : blocked) {
+            count -= Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the cost of the cheapest path between two cells on an empty
+     * grid, the octile distance.
+     *
+     * @param from first cell
+     * @param to second cell
+     * @return the distance
+     */
+    public double octile(int from, int to) {
+        int dx = Math.abs(x(from) - x(to));
+        int dy = Math.abs(y(from) - y(to));
+        return Math.abs(dx - dy) + DIAGONAL * Math.min(dx, dy);
+    }
+
+    /**
+     * Expands the grid into a graph with one vertex per free cell, at its
+     * column & row times the spacing, and an edge per allowed move.
+     *
+     * @param spacing distance between neighboring cells
+     * @param vertexOfCell filled with the vertex of every cell, -1 for
+     *     blocked ones; may be null
+     * @return the graph, with weights in cells
+     */
+    public CompactGraph toGraph(double spacing, int[] vertexOfCell) {
+        int[] vertices = vertexOfCell == null ? new int[cellCount()] : vertexOfCell;
+        Arrays.fill(vertices, -1);
+        GraphBuilder builder = new GraphBuilder(freeCount(), 4 * freeCount());
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                if (isFree(x, y)) {
+                    vertices[cell(x, y)] = builder.addVertex(x * spacing, y * spacing,
+                        "r" + y + "c" + x);
+                }
+            }
+        }
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                if (!isFree(x, y)) {
+                    continue;
+                }
+                int v = vertices[cell(x, y)];
+                // Right, down, and both diagonals below, so each move once
+                if (isFree(x + 1, y)) {
+                    builder.connect(v, vertices[cell(x + 1, y)], 1.0);
+                }
+                if (isFree(x, y + 1)) {
+                    builder.connect(v, vertices[cell(x, y + 1)], 1.0);
+                }
+                if (isFree(x + 1, y + 1) && isFree(x + 1, y) && isFree(x, y + 1)) {
+                    builder.connect(v, vertices[cell(x + 1, y + 1)], DIAGONAL);
+                }
+                if (isFree(x - 1, y + 1) && isFree(x - 1, y) && isFree(x, y + 1)) {
+                    builder.connect(v, vertices[cell(x - 1, y + 1)], DIAGONAL);
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,67 @@
+package pathfinding.engine;
+
+/**
+ * Keeps the tightest admissible scale for straight line distance
+ * heuristics up to date while edges are added, moved, reweighted or removed.
+ *
+ * <p>A* stays optimal as long as the heuristic never exceeds the cost left,
+ * which holds for the straight line distance times the lowest ratio of
+ * weight to length over all edges, and for no larger factor. The ratio of
+ * every edge sits in an indexed heap, so each change costs O(log m) and
+ * reading the scale O(1).
+ */
+public final class HeuristicCalibration {
+
+    private final IndexedMinHeap ratios = new IndexedMinHeap(16);
+    private int capacity = 16;
+
+    /**
+     * Sets or replaces the weight & length of an edge. Edges of zero length
+     * put no limit on the scale and are left out.
+     *
+     * @param edge edge id, any non-negative int
+     * @param weight weight of the edge
+     * @param length straight line distance between its ends
+     */
+    public void set(int edge, double weight, double length) {
+        if (edge < 0) {
+            throw new IllegalArgumentException("Invalid edge " + edge);
+        }
+        if (!(length > 0.0)) {
+            remove(edge);
+            return;
+        }
+        if (edge >= capacity) {
+            capacity = Math.max(edge + 1, 2 * capacity);
+            ratios.ensureCapacity(capacity);
+        }
+        double ratio = weight / length;
+        if (ratios.contains(edge)) {
+            ratios.update(edge, ratio);
+        } else {
+            ratios.insertOrDecrease(edge, ratio);
+        }
+    }
+
+    /**
+     * Forgets an edge, if it was set.
+     *
+     * @param edge edge id
+     */
+    public void remove(int edge) {
+        if (edge >= 0 && edge < capacity && ratios.contains(edge)) {
+            ratios.remove(edge);
+        }
+    }
+
+    /**
+     * Returns the factor to multiply straight line distances by: the lowest
+     * weight to length ratio, 0 for negative ratios, or 0 if no edge has a
+     * length.
+     *
+     * @return the scale
+     */
+    public double scale() {
+        return ratios.isEmpty() ? 0.0 : Math.max(ratios.minKey(), 0.0);
+    }
+}
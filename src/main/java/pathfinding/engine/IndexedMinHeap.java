@@ -0,0 +1,188 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of vertex indices keyed by a double priority, with
+ * decrease-key support through a position table.
+ */
+final class IndexedMinHeap {
+
+    /** {@link #insertOrDecrease} queued a vertex that was not queued. */
+    static final int INSERTED = 0;
+    /** {@link #insertOrDecrease} lowered the key of a queued vertex. */
+    static final int DECREASED = 1;
+    /** {@link #insertOrDecrease} found a queued vertex's key no higher. */
+    static final int UNCHANGED = 2;
+
+    private static final int ABSENT = -1;
+
+    private int[] heap;
+    private double[] keys;
+    private int[] position;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[Math.max(capacity, 1)];
+        keys = new double[Math.max(capacity, 1)];
+        position = new int[Math.max(capacity, 1)];
+        Arrays.fill(position, ABSENT);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int v) {
+        return position[v] != ABSENT;
+    }
+
+    /**
+     * Returns the vertex at a position of the heap array, for visiting every
+     * queued vertex in no particular order.
+     */
+    int get(int index) {
+        return heap[index];
+    }
+
+    double minKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Inserts a vertex, or lowers its key if it is already queued.
+     *
+     * @param v vertex
+     * @param key new priority
+     * @return {@link #INSERTED}, {@link #DECREASED}, or {@link #UNCHANGED}
+     *     if the vertex was queued with a key no higher
+     */
+    int insertOrDecrease(int v, double key) {
+        int at = position[v];
+        if (at == ABSENT) {
+            keys[v] = key;
+            heap[size] = v;
+            position[v] = size;
+            siftUp(size++);
+            return INSERTED;
+        }
+        if (key < keys[v]) {
+            keys[v] = key;
+            siftUp(at);
+            return DECREASED;
+        }
+        return UNCHANGED;
+    }
+
+    int poll() {
+        int top = heap[0];
+        position[top] = ABSENT;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Changes the key of a queued vertex, in either direction.
+     *
+     * @param v queued vertex
+     * @param key new priority
+     */
+    void update(int v, double key) {
+        double old = keys[v];
+        keys[v] = key;
+        if (key < old) {
+            siftUp(position[v]);
+        } else {
+            siftDown(position[v]);
+        }
+    }
+
+    /**
+     * Removes a queued vertex.
+     *
+     * @param v queued vertex
+     */
+    void remove(int v) {
+        int at = position[v];
+        position[v] = ABSENT;
+        int last = heap[--size];
+        if (at < size) {
+            heap[at] = last;
+            position[last] = at;
+            siftUp(at);
+            siftDown(position[last]);
+        }
+    }
+
+    /**
+     * Makes room for vertices up to {@code capacity - 1}.
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity > position.length) {
+            int old = position.length;
+            heap = Arrays.copyOf(heap, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            position = Arrays.copyOf(position, capacity);
+            Arrays.fill(position, old, capacity, ABSENT);
+        }
+    }
+
+    /**
+     * Empties the heap in time proportional to its current size.
+     */
+    void clear() {
+        for (int i = 0; i < size; ++i) {
+            position[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int at) {
+        int v = heap[at];
+        double key = keys[v];
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            int p = heap[parent];
+            if (keys[p] <= key) {
+                break;
+            }
+            heap[at] = p;
+            position[p] = at;
+            at = parent;
+        }
+        heap[at] = v;
+        position[v] = at;
+    }
+
+    private void siftDown(int at) {
+        int v = heap[at];
+        double key = keys[v];
+        int half = size >>> 1;
+        while (at < half) {
+            int child = 2 * at + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[c]) {
+                child = right;
+                c = heap[child];
+            }
+            if (key <= keys[c]) {
+                break;
+            }
+            heap[at] = c;
+            position[c] = at;
+            at = child;
+        }
+        heap[at] = v;
+        position[v] = at;
+    }
+}
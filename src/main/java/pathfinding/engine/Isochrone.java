@@ -0,0 +1,151 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Everything reachable from a source within a cost budget, optionally split
+ * into bands by several thresholds.
+ *
+ * <p>A Dijkstra that stops once the cheapest frontier entry exceeds the
+ * budget. Tentative costs live in a small open addressing table and the
+ * frontier is a lazy binary heap, both growing with the region searched, so
+ * the work & memory are proportional to the reachable region rather than to
+ * the whole graph. Vertices come out in settling order, which is also cost
+ * order, so every band is a contiguous range of them.
+ */
+public final class Isochrone {
+
+    public final int source;
+    /** Settled vertices, cheapest first. */
+    public final int[] vertices;
+    /** Cost of every settled vertex, not decreasing. */
+    public final double[] costs;
+    /** Upper bound of every band, increasing; the last one is the budget. */
+    public final double[] thresholds;
+    public final SearchStats stats;
+    // Band b holds vertices[bandStart[b]..bandStart[b + 1])
+    private final int[] bandStart;
+
+    private Isochrone(int source, int[] vertices, double[] costs, double[] thresholds,
+                      int[] bandStart, SearchStats stats) {
+        this.source = source;
+        this.vertices = vertices;
+        this.costs = costs;
+        this.thresholds = thresholds;
+        this.bandStart = bandStart;
+        this.stats = stats;
+    }
+
+    /**
+     * Finds every vertex whose cost from the source is at most the last
+     * threshold, banded by the thresholds in the same pass.
+     *
+     * @param graph graph to search
+     * @param source start vertex
+     * @param thresholds band limits, non-negative & increasing; a single
+     *     one is just the budget
+     * @return the reachable vertices & their costs
+     */
+    public static Isochrone compute(CompactGraph graph, int source, double... thresholds) {
+        ShortestPaths.checkVertex(graph, source);
+        if (thresholds.length == 0) {
+            throw new IllegalArgumentException("At least one threshold is required");
+        }
+        for (int i = 0; i < thresholds.length; ++i) {
+            if (!(thresholds[i] >= 0.0) || (i > 0 && thresholds[i] <= thresholds[i - 1])) {
+                throw new IllegalArgumentException("Thresholds must be increasing & non-negative");
+            }
+        }
+        double budget = thresholds[thresholds.length - 1];
+        long startNanos = System.nanoTime();
+        long startBytes = SearchStats.allocatedBytes();
+        long relaxed = 0;
+        long pushes = 0;
+        long pops = 0;
+        long decreaseKeys = 0;
+        int peakFrontier = 1;
+
+        CostTable table = new CostTable();
+        LazyHeap queue = new LazyHeap();
+        IntList settledVertices = new IntList(64);
+        double[] settledCosts = new double[64];
+        int[] bandStart = new int[thresholds.length + 1];
+        int band = 0;
+
+        table.put(source, 0.0, -1);
+        queue.push(source, 0.0);
+        ++pushes;
+        while (!queue.isEmpty()) {
+            double currentDist = queue.minKey();
+            if (currentDist > budget) {
+                break;
+            }
+            int current = queue.poll();
+            ++pops;
+            int slot = table.find(current);
+            // Stale entry of a vertex that was queued again for less
+            if (table.isSettled(slot) || currentDist > table.cost(slot)) {
+                continue;
+            }
+            table.settle(slot);
+            while (currentDist > thresholds[band]) {
+                bandStart[++band] = settledVertices.size();
+            }
+            if (settledVertices.size() == settledCosts.length) {
+                settledCosts = Arrays.copyOf(settledCosts, 2 * settledCosts.length);
+            }
+            settledCosts[settledVertices.size()] = currentDist;
+            settledVertices.add(current);
+
+            for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                double newDist = currentDist + graph.arcWeight(a);
+                if (newDist > budget) {
+                    continue;
+                }
+                int head = graph.arcHead(a);
+                int headSlot = table.find(head);
+                if (headSlot >= 0 && (table.isSettled(headSlot) || newDist >= table.cost(headSlot))) {
+                    continue;
+                }
+                ++relaxed;
+                if (headSlot >= 0) {
+                    ++decreaseKeys;
+                }
+                table.put(head, newDist, current);
+                queue.push(head, newDist);
+                ++pushes;
+                peakFrontier = Math.max(peakFrontier, queue.size());
+            }
+        }
+        int count = settledVertices.size();
+        while (band < thresholds.length) {
+            bandStart[++band] = count;
+        }
+        long endBytes = SearchStats.allocatedBytes();
+        SearchStats stats = new SearchStats(count, relaxed, pushes, pops, decreaseKeys,
+            peakFrontier, System.nanoTime() - startNanos,
+            startBytes < 0 ? -1 : endBytes - startBytes);
+        return new Isochrone(source, settledVertices.toArray(), Arrays.copyOf(settledCosts, count),
+            thresholds.clone(), bandStart, stats);
+    }
+
+    public int size() {
+        return vertices.length;
+    }
+
+    public int bandCount() {
+        return thresholds.length;
+    }
+
+    /**
+     * Returns the position in {@link #vertices} of the first vertex of a
+     * band, the vertices costing more than the previous threshold.
+     */
+    public int bandStart(int band) {
+        return bandStart[band];
+    }
+
+    public int bandEnd(int band) {
+        return bandStart[band + 1];
+    }
+}
@@ -0,0 +1,265 @@
+package pathfinding.engine;
+
+/**
+ * Jump point search (Harabor & Grastien) on a {@link GridMap}.
+ *
+ * <p>An A* with the octile heuristic that, instead of queuing every
+ * neighbor of a cell, keeps moving in each direction worth trying until it
+ * reaches a cell where an optimal path could turn: the goal, or a cell next
+ * to an obstacle that makes some neighbor reachable only through it. Open
+ * areas are crossed in one step, so only a handful of jump points are ever
+ * queued. Costs & parents live in a table that grows with the jump points
+ * found rather than with the grid.
+ */
+public final class JumpPointSearch {
+
+    private static final int NONE = -1;
+
+    private JumpPointSearch() { }
+
+    /**
+     * Searches for a shortest path between two cells.
+     *
+     * @param map grid to search
+     * @param start start cell
+     * @param goal goal cell
+     * @return cost & every cell of the path, infinite cost if unreachable
+     *     or either cell is blocked
+     */
+    public static PathResult search(GridMap map, int start, int goal) {
+        checkCell(map, start);
+        checkCell(map, goal);
+        return new Query(map, goal).run(start);
+    }
+
+    static void checkCell(GridMap map, int cell) {
+        if (cell < 0 || cell >= map.cellCount()) {
+            throw new IllegalArgumentException("Invalid cell: " + cell);
+        }
+    }
+
+    /**
+     * Expands the jump points of a path into every cell along it; they are
+     * always joined by straight or diagonal lines.
+     */
+    static int[] fillPath(GridMap map, IntList jumpPoints) {
+        IntList cells = new IntList(64);
+        cells.add(jumpPoints.get(0));
+        for (int i = 1; i < jumpPoints.size(); ++i) {
+            int from = jumpPoints.get(i - 1);
+            int to = jumpPoints.get(i);
+            int x = map.x(from);
+            int y = map.y(from);
+            int dx = Integer.signum(map.x(to) - x);
+            int dy = Integer.signum(map.y(to) - y);
+            for (int cell = from; cell != to; ) {
+                x += dx;
+                y += dy;
+                cell = map.cell(x, y);
+                cells.add(cell);
+            }
+        }
+        return cells.toArray();
+    }
+
+    private static final class Query {
+
+        private final GridMap map;
+        private final int goal;
+        private final int goalX;
+        private final int goalY;
+        private final CostTable table = new CostTable();
+        private final LazyHeap queue = new LazyHeap();
+
+        private long settled;
+        private long relaxed;
+        private long pushes;
+        private long pops;
+        private long decreaseKeys;
+        private int peakFrontier;
+
+        Query(GridMap map, int goal) {
+            this.map = map;
+            this.goal = goal;
+            this.goalX = map.x(goal);
+            this.goalY = map.y(goal);
+        }
+
+        PathResult run(int start) {
+            long startNanos = System.nanoTime();
+            long startBytes = SearchStats.allocatedBytes();
+            int[] path = null;
+            double cost = Double.POSITIVE_INFINITY;
+            if (map.isFree(map.x(start), map.y(start)) && map.isFree(goalX, goalY)) {
+                table.put(start, 0.0, NONE);
+                queue.push(start, map.octile(start, goal));
+                ++pushes;
+                peakFrontier = 1;
+                while (!queue.isEmpty()) {
+                    int current = queue.poll();
+                    ++pops;
+                    int slot = table.find(current);
+                    // Keys share the heuristic, so the first entry out is
+                    // the cheapest & later ones are stale
+                    if (table.isSettled(slot)) {
+                        continue;
+                    }
+                    table.settle(slot);
+                    ++settled;
+                    if (current == goal) {
+                        cost = table.cost(slot);
+                        path = path();
+                        break;
+                    }
+                    expand(current, table.cost(slot), table.parent(slot));
+                }
+            }
+            long endBytes = SearchStats.allocatedBytes();
+            SearchStats stats = new SearchStats(settled, relaxed, pushes, pops, decreaseKeys,
+                peakFrontier, System.nanoTime() - startNanos,
+                startBytes < 0 ? -1 : endBytes - startBytes);
+            return path == null ? PathResult.unreachable(stats) : new PathResult(cost, path, stats);
+        }
+
+        /**
+         * Jumps in every direction an optimal path through the cell could
+         * continue in, given the direction it arrived from.
+         */
+        private void expand(int cell, double dist, int parent) {
+            int x = map.x(cell);
+            int y = map.y(cell);
+            if (parent == NONE) {
+                for (int dy = -1; dy <= 1; ++dy) {
+                    for (int dx = -1; dx <= 1; ++dx) {
+                        if (dx != 0 || dy != 0) {
+                            tryJump(cell, x, y, dx, dy, dist);
+                        }
+                    }
+                }
+                return;
+            }
+            int dx = Integer.signum(x - map.x(parent));
+            int dy = Integer.signum(y - map.y(parent));
+            if (dx != 0 && dy != 0) {
+                // Diagonal: keep going, or turn into either component
+                tryJump(cell, x, y, dx, 0, dist);
+                tryJump(cell, x, y, 0, dy, dist);
+                tryJump(cell, x, y, dx, dy, dist);
+            } else if (dx != 0) {
+                // Horizontal: keep going or turn sideways, and diagonally
+                // past an obstacle behind
+                tryJump(cell, x, y, dx, 0, dist);
+                tryJump(cell, x, y, 0, -1, dist);
+                tryJump(cell, x, y, 0, 1, dist);
+                if (!map.isFree(x - dx, y - 1)) {
+                    tryJump(cell, x, y, dx, -1, dist);
+                }
+                if (!map.isFree(x - dx, y + 1)) {
+                    tryJump(cell, x, y, dx, 1, dist);
+                }
+            } else {
+                tryJump(cell, x, y, 0, dy, dist);
+                tryJump(cell, x, y, -1, 0, dist);
+                tryJump(cell, x, y, 1, 0, dist);
+                if (!map.isFree(x - 1, y - dy)) {
+                    tryJump(cell, x, y, -1, dy, dist);
+                }
+                if (!map.isFree(x + 1, y - dy)) {
+                    tryJump(cell, x, y, 1, dy, dist);
+                }
+            }
+        }
+
+        private void tryJump(int cell, int x, int y, int dx, int dy, double dist) {
+            int next = jump(x, y, dx, dy);
+            if (next == NONE) {
+                return;
+            }
+            double newDist = dist + map.octile(cell, next);
+            int slot = table.find(next);
+            if (slot >= 0 && (table.isSettled(slot) || newDist >= table.cost(slot))) {
+                return;
+            }
+            ++relaxed;
+            if (slot >= 0) {
+                ++decreaseKeys;
+            }
+            table.put(next, newDist, cell);
+            queue.push(next, newDist + map.octile(next, goal));
+            ++pushes;
+            peakFrontier = Math.max(peakFrontier, queue.size());
+        }
+
+        /**
+         * Moves from a cell in one direction until reaching a jump point.
+         *
+         * @return the jump point, or -1 if an obstacle comes first
+         */
+        private int jump(int x, int y, int dx, int dy) {
+            while (true) {
+                if (!canMove(x, y, dx, dy)) {
+                    return NONE;
+                }
+                x += dx;
+                y += dy;
+                if (x == goalX && y == goalY) {
+                    return goal;
+                }
+                if (dx != 0 && dy != 0) {
+                    // A diagonal stops where either component finds one
+                    if (jumpStraight(x, y, dx, 0) || jumpStraight(x, y, 0, dy)) {
+                        return map.cell(x, y);
+                    }
+                } else if (isForced(x, y, dx, dy)) {
+                    return map.cell(x, y);
+                }
+            }
+        }
+
+        /**
+         * Returns whether a straight jump from a cell finds a jump point.
+         */
+        private boolean jumpStraight(int x, int y, int dx, int dy) {
+            while (map.isFree(x + dx, y + dy)) {
+                x += dx;
+                y += dy;
+                if ((x == goalX && y == goalY) || isForced(x, y, dx, dy)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean canMove(int x, int y, int dx, int dy) {
+            return map.isFree(x + dx, y + dy)
+                && (dx == 0 || dy == 0 || (map.isFree(x + dx, y) && map.isFree(x, y + dy)));
+        }
+
+        /**
+         * Returns whether a straight move into a cell forces a turn: a side
+         * cell is free but the one behind it is blocked, so without cutting
+         * corners the side cell is best reached through this one.
+         */
+        private boolean isForced(int x, int y, int dx, int dy) {
+            if (dx != 0) {
+                return (map.isFree(x, y - 1) && !map.isFree(x - dx, y - 1))
+                    || (map.isFree(x, y + 1) && !map.isFree(x - dx, y + 1));
+            }
+            return (map.isFree(x - 1, y) && !map.isFree(x - 1, y - dy))
+                || (map.isFree(x + 1, y) && !map.isFree(x + 1, y - dy));
+        }
+
+        private int[] path() {
+            IntList jumpPoints = new IntList(16);
+            for (int v = goal; v != NONE; v = table.parent(table.find(v))) {
+                jumpPoints.add(v);
+            }
+            for (int i = 0, j = jumpPoints.size() - 1; i < j; ++i, --j) {
+                int t = jumpPoints.get(i);
+                jumpPoints.set(i, jumpPoints.get(j));
+                jumpPoints.set(j, t);
+            }
+            return fillPath(map, jumpPoints);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package pathfinding.engine;
+
+/**
+ * Precomputed jumps of a {@link GridMap} for JPS+ (Harabor & Grastien,
+ * Rabin): for every free cell & each of the 8 directions, how far the next
+ * jump point is, or how far the last free cell before a wall is.
+ *
+ * <p>With the table a search never walks the grid, each jump is one lookup,
+ * which makes queries several times faster than plain jump point search.
+ * Building it takes a few sweeps over the whole grid, so it suits maps that
+ * are searched far more often than they change. The table remembers the
+ * map's version and refuses to search once the map has changed.
+ */
+public final class JumpTable {
+
+    private static final int NONE = -1;
+    // Directions clockwise from north, so d ± 1 are the neighbors of d and
+    // even ones are straight
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+    private final GridMap map;
+    private final long version;
+    // 8 per cell: positive is the steps to a jump point, otherwise minus
+    // the steps until the next move would hit a wall
+    private final int[] jumps;
+
+    private JumpTable(GridMap map, long version, int[] jumps) {
+        this.map = map;
+        this.version = version;
+        this.jumps = jumps;
+    }
+
+    /**
+     * Computes the jumps of every free cell of a map.
+     *
+     * @param map grid to preprocess
+     * @return the table
+     */
+    public static JumpTable build(GridMap map) {
+        int width = map.width();
+        int height = map.height();
+        int[] jumps = new int[8 * map.cellCount()];
+        // Straight directions first, the diagonal ones stop where these find
+        // jump points. Each sweep runs against its direction, so the cell
+        // ahead is always done.
+        for (int d = 0; d < 8; d += 2) {
+            for (int i = 0; i < height; ++i) {
+                int y = DY[d] > 0 ? height - 1 - i : i;
+                for (int j = 0; j < width; ++j) {
+                    int x = DX[d] > 0 ? width - 1 - j : j;
+                    if (!map.isFree(x, y)) {
+                        continue;
+                    }
+                    int nx = x + DX[d];
+                    int ny = y + DY[d];
+                    int jump;
+                    if (!map.isFree(nx, ny)) {
+                        jump = 0;
+                    } else if (isForced(map, nx, ny, DX[d], DY[d])) {
+                        jump = 1;
+                    } else {
+                        int next = jumps[8 * map.cell(nx, ny) + d];
+                        jump = next > 0 ? next + 1 : next - 1;
+                    }
+                    jumps[8 * map.cell(x, y) + d] = jump;
+                }
+            }
+        }
+        for (int d = 1; d < 8; d += 2) {
+            int dx = DX[d];
+            int dy = DY[d];
+            for (int i = 0; i < height; ++i) {
+                int y = dy > 0 ? height - 1 - i : i;
+                for (int x = 0; x < width; ++x) {
+                    if (!map.isFree(x, y)) {
+                        continue;
+                    }
+                    int jump;
+                    if (!map.isFree(x + dx, y + dy) || !map.isFree(x + dx, y)
+                            || !map.isFree(x, y + dy)) {
+                        jump = 0;
+                    } else {
+                        int next = 8 * map.cell(x + dx, y + dy);
+                        if (jumps[next + (d + 7) % 8] > 0 || jumps[next + (d + 1) % 8] > 0) {
+                            jump = 1;
+                        } else {
+                            int ahead = jumps[next + d];
+                            jump = ahead > 0 ? ahead + 1 : ahead - 1;
+                        }
+                    }
+                    jumps[8 * map.cell(x, y) + d] = jump;
+                }
+            }
+        }
+        return new JumpTable(map, map.version(), jumps);
+    }
+
+    /**
+     * Returns whether a straight move into a cell forces a turn: a side
+     * cell is free but the one behind it is blocked, so without cutting
+     * corners the side cell is best reached through this one.
+     */
+    private static boolean isForced(GridMap map, int x, int y, int dx, int dy) {
+        if (dx != 0) {
+            return (map.isFree(x, y - 1) && !map.isFree(x - dx, y - 1))
+                || (map.isFree(x, y + 1) && !map.isFree(x - dx, y + 1));
+        }
+        return (map.isFree(x - 1, y) && !map.isFree(x - 1, y - dy))
+            || (map.isFree(x + 1, y) && !map.isFree(x + 1, y - dy));
+    }
+
+    public GridMap map() {
+        return map;
+    }
+
+    /**
+     * Returns whether the map is unchanged since the table was built.
+     *
+     * @return true if the table can still be searched
+     */
+    public boolean isCurrent() {
+        return version == map.version();
+    }
+
+    /**
+     * Searches for a shortest path between two cells.
+     *
+     * @param start start cell
+     * @param goal goal cell
+     * @return cost & every cell of the path, infinite cost if unreachable
+     *     or either cell is blocked
+     * @throws IllegalStateException if the map changed since the table was
+     *     built
+     */
+    public PathResult search(int start, int goal) {
+        if (!isCurrent()) {
+            throw new IllegalStateException("Grid map changed since the jump table was built");
+        }
+        JumpPointSearch.checkCell(map, start);
+        JumpPointSearch.checkCell(map, goal);
+        long startNanos = System.nanoTime();
+        long startBytes = SearchStats.allocatedBytes();
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 0;
+        long pops = 0;
+        long decreaseKeys = 0;
+        int peakFrontier = 0;
+        int[] path = null;
+        double cost = Double.POSITIVE_INFINITY;
+
+        int goalX = map.x(goal);
+        int goalY = map.y(goal);
+        if (map.isFree(map.x(start), map.y(start)) && map.isFree(goalX, goalY)) {
+            CostTable table = new CostTable();
+            LazyHeap queue = new LazyHeap();
+            table.put(start, 0.0, NONE);
+            queue.push(start, map.octile(start, goal));
+            ++pushes;
+            peakFrontier = 1;
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                ++pops;
+                int slot = table.find(current);
+                if (table.isSettled(slot)) {
+                    continue;
+                }
+                table.settle(slot);
+                ++settled;
+                double currentDist = table.cost(slot);
+                if (current == goal) {
+                    cost = currentDist;
+                    path = path(table, goal);
+                    break;
+                }
+                int x = map.x(current);
+                int y = map.y(current);
+                int parent = table.parent(slot);
+                int arrived = parent == NONE ? NONE : direction(x - map.x(parent), y - map.y(parent));
+                int from;
+                int to;
+                if (arrived == NONE) {
+                    from = 0;
+                    to = 7;
+                } else {
+                    // Straight moves may turn up to 90 degrees, diagonal
+                    // ones only into their components
+                    int spread = arrived % 2 == 0 ? 2 : 1;
+                    from = arrived - spread;
+                    to = arrived + spread;
+                }
+                for (int turn = from; turn <= to; ++turn) {
+                    int d = (turn + 8) % 8;
+                    if (arrived != NONE && arrived % 2 == 0 && d % 2 == 1) {
+                        // Turning diagonally off a straight move only pays
+                        // past an obstacle behind on that side
+                        int side = (turn < arrived ? arrived + 6 : arrived + 2) % 8;
+                        if (map.isFree(x - DX[arrived] + DX[side], y - DY[arrived] + DY[side])) {
+                            continue;
+                        }
+                    }
+                    int jump = jumps[8 * current + d];
+                    int gx = goalX - x;
+                    int gy = goalY - y;
+                    int steps;
+                    if (d % 2 == 0) {
+                        // Goal straight ahead, no further than the jump
+                        int along = DX[d] != 0 ? gx * DX[d] : gy * DY[d];
+                        int across = DX[d] != 0 ? gy : gx;
+                        if (across == 0 && along > 0 && along <= Math.abs(jump)) {
+                            steps = along;
+                        } else if (jump > 0) {
+                            steps = jump;
+                        } else {
+                            continue;
+                        }
+                    } else {
+                        // Goal in the quadrant & level with the diagonal
+                        // before the jump ends: stop there so a straight
+                        // move can reach it
+                        int ax = gx * DX[d];
+                        int ay = gy * DY[d];
+                        int nearer = Math.min(ax, ay);
+                        if (ax > 0 && ay > 0 && nearer <= Math.abs(jump)) {
+                            steps = nearer;
+                        } else if (jump > 0) {
+                            steps = jump;
+                        } else {
+                            continue;
+                        }
+                    }
+                    int next = map.cell(x + steps * DX[d], y + steps * DY[d]);
+                    double newDist = currentDist + (d % 2 == 0 ? steps : GridMap.DIAGONAL * steps);
+                    int nextSlot = table.find(next);
+                    if (nextSlot >= 0 && (table.isSettled(nextSlot) || newDist >= table.cost(nextSlot))) {
+                        continue;
+                    }
+                    ++relaxed;
+                    if (nextSlot >= 0) {
+                        ++decreaseKeys;
+                    }
+                    table.put(next, newDist, current);
+                    queue.push(next, newDist + map.octile(next, goal));
+                    ++pushes;
+                    peakFrontier = Math.max(peakFrontier, queue.size());
+                }
+            }
+        }
+        long endBytes = SearchStats.allocatedBytes();
+        SearchStats stats = new SearchStats(settled, relaxed, pushes, pops, decreaseKeys,
+            peakFrontier, System.nanoTime() - startNanos,
+            startBytes < 0 ? -1 : endBytes - startBytes);
+        return path == null ? PathResult.unreachable(stats) : new PathResult(cost, path, stats);
+    }
+
+    private static int direction(int dx, int dy) {
+        dx = Integer.signum(dx);
+        dy = Integer.signum(dy);
+        for (int d = 0; d < 8; ++d) {
+            if (DX[d] == dx && DY[d] == dy) {
+                return d;
+            }
+        }
+        throw new IllegalArgumentException("No direction for " + dx + "," + dy);
+    }
+
+    private int[] path(CostTable table, int goal) {
+        IntList jumpPoints = new IntList(16);
+        for (int v = goal; v != NONE; v = table.parent(table.find(v))) {
+            jumpPoints.add(v);
+        }
+        for (int i = 0, j = jumpPoints.size() - 1; i < j; ++i, --j) {
+            int t = jumpPoints.get(i);
+            jumpPoints.set(i, jumpPoints.get(j));
+            jumpPoints.set(j, t);
+        }
+        return JumpPointSearch.fillPath(map, jumpPoints);
+    }
+}
@@ -0,0 +1,363 @@
+package pathfinding.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The k shortest loopless paths between two vertices (Yen's algorithm).
+ *
+ * <p>One Dijkstra from the goal builds a reverse shortest path tree first.
+ * Its distances are exact for the unmodified graph, so they make a perfect
+ * A* heuristic for every spur search, which only ever removes edges &
+ * vertices. A spur search also stops as soon as it settles a vertex whose
+ * tree path to the goal avoids everything removed, since that path is
+ * optimal from there. All spur searches of a query share one set of scratch
+ * buffers, reset by bumping a generation stamp instead of clearing them.
+ */
+public final class KShortestPaths {
+
+    private static final int NONE = -1;
+
+    private KShortestPaths() { }
+
+    /**
+     * Finds up to {@code k} shortest loopless paths, cheapest first. Paths
+     * with equal cost are returned in the order they are found. Parallel
+     * edges give distinct paths.
+     *
+     * @param graph graph to search
+     * @param source start vertex
+     * @param goal goal vertex
+     * @param k maximum number of paths, at least 1
+     * @return the paths, fewer than {@code k} if there are no more, empty if
+     *     the goal is unreachable. Each path's stats cover the work done
+     *     until it was found.
+     */
+    public static List<PathResult> find(CompactGraph graph, int source, int goal, int k) {
+        ShortestPaths.checkVertex(graph, source);
+        ShortestPaths.checkVertex(graph, goal);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1, got " + k);
+        }
+        List<PathResult> results = new ArrayList<>();
+        if (!graph.connected(source, goal)) {
+            return results;
+        }
+        Query query = new Query(graph, source, goal);
+        query.run(k, results);
+        return results;
+    }
+
+    /**
+     * A path as its vertices & edges, equal to another path with the same
+     * edges.
+     */
+    private static final class Path {
+
+        final int[] vertices;
+        final int[] edges;
+        final double cost;
+        // Index of the vertex where it left the path it was derived from
+        final int deviation;
+
+        Path(int[] vertices, int[] edges, double cost, int deviation) {
+            this.vertices = vertices;
+            this.edges = edges;
+            this.cost = cost;
+            this.deviation = deviation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Path && Arrays.equals(edges, ((Path) o).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+
+    private static final class Query {
+
+        private final CompactGraph graph;
+        private final int source;
+        private final int goal;
+        private final long startNanos = System.nanoTime();
+        private final long startBytes = SearchStats.allocatedBytes();
+
+        // Reverse shortest path tree: distance to the goal, next vertex &
+        // edge towards it
+        private final double[] toGoal;
+        private final int[] treeNext;
+        private final int[] treeEdge;
+
+        // Spur search scratch, valid where the stamp equals the generation
+        private int generation;
+        private final int[] seen;
+        private final int[] blockedVertex;
+        private final int[] blockedEdge;
+        private final int[] checked;
+        private final boolean[] treeClear;
+        private final double[] dist;
+        private final int[] parent;
+        private final int[] parentEdge;
+        private final IndexedMinHeap queue;
+        private final IntList walk = new IntList(64);
+
+        private long settled;
+        private long relaxed;
+        private long pushes;
+        private long pops;
+        private long decreaseKeys;
+        private int peakFrontier;
+
+        Query(CompactGraph graph, int source, int goal) {
+            this.graph = graph;
+            this.source = source;
+            this.goal = goal;
+            int n = graph.vertexCount();
+            toGoal = new double[n];
+            treeNext = new int[n];
+            treeEdge = new int[n];
+            seen = new int[n];
+            blockedVertex = new int[n];
+            blockedEdge = new int[graph.edgeCount()];
+            checked = new int[n];
+            treeClear = new boolean[n];
+            dist = new double[n];
+            parent = new int[n];
+            parentEdge = new int[n];
+            queue = new IndexedMinHeap(n);
+            buildTree();
+        }
+
+        private void buildTree() {
+            Arrays.fill(toGoal, Double.POSITIVE_INFINITY);
+            toGoal[goal] = 0.0;
+            treeNext[goal] = NONE;
+            treeEdge[goal] = NONE;
+            queue.insertOrDecrease(goal, 0.0);
+            ++pushes;
+            peakFrontier = 1;
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                ++pops;
+                ++settled;
+                double currentDist = toGoal[current];
+                for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                    int head = graph.arcHead(a);
+                    double newDist = currentDist + graph.arcWeight(a);
+                    if (newDist < toGoal[head]) {
+                        ++relaxed;
+                        toGoal[head] = newDist;
+                        treeNext[head] = current;
+                        treeEdge[head] = graph.arcEdge(a);
+                        int queued = queue.insertOrDecrease(head, newDist);
+                        if (queued == IndexedMinHeap.INSERTED) {
+                            ++pushes;
+                            peakFrontier = Math.max(peakFrontier, queue.size());
+                        } else if (queued == IndexedMinHeap.DECREASED) {
+                            ++decreaseKeys;
+                        }
+                    }
+                }
+            }
+        }
+
+        void run(int k, List<PathResult> results) {
+            List<Path> found = new ArrayList<>();
+            PriorityQueue<Path> candidates = new PriorityQueue<>(
+                (a, b) -> Double.compare(a.cost, b.cost));
+            HashSet<Path> known = new HashSet<>();
+
+            ++generation;
+            Path first = treePath(new IntList(16), new IntList(16), source, 0.0, 0);
+            known.add(first);
+            accept(first, found, results);
+            while (found.size() < k) {
+                Path previous = found.get(found.size() - 1);
+                int[] vertices = previous.vertices;
+                int[] edges = previous.edges;
+                double rootCost = 0.0;
+                // Spurs before the deviation were already tried when the
+                // path it was derived from was accepted (Lawler)
+                for (int i = 0; i < previous.deviation; ++i) {
+                    rootCost += graph.edgeWeight(edges[i]);
+                }
+                for (int i = previous.deviation; i < edges.length; ++i) {
+                    ++generation;
+                    // No accepted path with the same root may be repeated,
+                    // and the root's vertices can't be visited again
+                    for (Path path : found) {
+                        if (path.edges.length > i && sharesRoot(path, previous, i)) {
+                            blockedEdge[path.edges[i]] = generation;
+                        }
+                    }
+                    for (int j = 0; j < i; ++j) {
+                        blockedVertex[vertices[j]] = generation;
+                    }
+                    Path spur = spur(vertices, edges, i, rootCost);
+                    if (spur != null && known.add(spur)) {
+                        candidates.add(spur);
+                    }
+                    rootCost += graph.edgeWeight(edges[i]);
+                }
+                Path next = candidates.poll();
+                if (next == null) {
+                    break;
+                }
+                accept(next, found, results);
+            }
+        }
+
+        private void accept(Path path, List<Path> found, List<PathResult> results) {
+            found.add(path);
+            long endBytes = SearchStats.allocatedBytes();
+            SearchStats stats = new SearchStats(settled, relaxed, pushes, pops, decreaseKeys,
+                peakFrontier, System.nanoTime() - startNanos,
+                startBytes < 0 ? -1 : endBytes - startBytes);
+            results.add(new PathResult(path.cost, path.vertices, stats));
+        }
+
+        private static boolean sharesRoot(Path path, Path previous, int length) {
+            for (int j = 0; j < length; ++j) {
+                if (path.edges[j] != previous.edges[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * A* from the spur vertex {@code vertices[i]} to the goal, avoiding
+         * the blocked vertices & edges, prefixed with the root path.
+         */
+        private Path spur(int[] vertices, int[] edges, int i, double rootCost) {
+            int spurVertex = vertices[i];
+            queue.clear();
+            dist[spurVertex] = 0.0;
+            parent[spurVertex] = NONE;
+            seen[spurVertex] = generation;
+            queue.insertOrDecrease(spurVertex, toGoal[spurVertex]);
+            ++pushes;
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                ++pops;
+                ++settled;
+                // The tree path is as short as the heuristic promises, so
+                // nothing left on the frontier can beat it
+                if (isTreeClear(current)) {
+                    IntList pathVertices = new IntList(vertices.length + 16);
+                    IntList pathEdges = new IntList(vertices.length + 16);
+                    for (int j = 0; j < i; ++j) {
+                        pathVertices.add(vertices[j]);
+                        pathEdges.add(edges[j]);
+                    }
+                    appendSpur(current, pathVertices, pathEdges);
+                    return treePath(pathVertices, pathEdges, current,
+                        rootCost + dist[current], i);
+                }
+                double currentDist = dist[current];
+                for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                    int head = graph.arcHead(a);
+                    int edge = graph.arcEdge(a);
+                    if (blockedVertex[head] == generation || blockedEdge[edge] == generation) {
+                        continue;
+                    }
+                    double newDist = currentDist + graph.arcWeight(a);
+                    if (seen[head] == generation && newDist >= dist[head]) {
+                        continue;
+                    }
+                    ++relaxed;
+                    seen[head] = generation;
+                    dist[head] = newDist;
+                    parent[head] = current;
+                    parentEdge[head] = edge;
+                    int queued = queue.insertOrDecrease(head, newDist + toGoal[head]);
+                    if (queued == IndexedMinHeap.INSERTED) {
+                        ++pushes;
+                        peakFrontier = Math.max(peakFrontier, queue.size());
+                    } else if (queued == IndexedMinHeap.DECREASED) {
+                        ++decreaseKeys;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns whether the tree path from a vertex to the goal avoids the
+         * blocked vertices & edges. Results are remembered for the current
+         * generation, so each vertex is walked once per spur search.
+         */
+        private boolean isTreeClear(int v) {
+            walk.clear();
+            boolean clear;
+            while (true) {
+                if (checked[v] == generation) {
+                    clear = treeClear[v];
+                    break;
+                }
+                if (blockedVertex[v] == generation) {
+                    clear = false;
+                    break;
+                }
+                if (v == goal) {
+                    clear = true;
+                    break;
+                }
+                walk.add(v);
+                if (blockedEdge[treeEdge[v]] == generation) {
+                    clear = false;
+                    break;
+                }
+                v = treeNext[v];
+            }
+            for (int j = 0; j < walk.size(); ++j) {
+                int w = walk.get(j);
+                checked[w] = generation;
+                treeClear[w] = clear;
+            }
+            return clear;
+        }
+
+        /**
+         * Appends the spur search's path up to, excluding, {@code v}.
+         */
+        private void appendSpur(int v, IntList pathVertices, IntList pathEdges) {
+            int start = pathVertices.size();
+            for (int w = v; parent[w] != NONE; w = parent[w]) {
+                pathVertices.add(parent[w]);
+                pathEdges.add(parentEdge[w]);
+            }
+            reverse(pathVertices, start);
+            reverse(pathEdges, start);
+        }
+
+        /**
+         * Completes a path with the tree path from {@code v} to the goal.
+         */
+        private Path treePath(IntList pathVertices, IntList pathEdges, int v,
+                              double costToV, int deviation) {
+            for (int w = v; w != goal; w = treeNext[w]) {
+                pathVertices.add(w);
+                pathEdges.add(treeEdge[w]);
+            }
+            pathVertices.add(goal);
+            return new Path(pathVertices.toArray(), pathEdges.toArray(),
+                costToV + toGoal[v], deviation);
+        }
+
+        private static void reverse(IntList list, int from) {
+            for (int i = from, j = list.size() - 1; i < j; ++i, --j) {
+                int t = list.get(i);
+                list.set(i, list.get(j));
+                list.set(j, t);
+            }
+        }
+    }
+}
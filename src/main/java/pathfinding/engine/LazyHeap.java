@@ -0,0 +1,68 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Growable binary heap of (vertex, key) entries. Lowering a key pushes
+ * another entry; the stale one is skipped when it comes out.
+ */
+final class LazyHeap {
+
+    private int[] vertices = new int[64];
+    private double[] keys = new double[64];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double minKey() {
+        return keys[0];
+    }
+
+    void push(int v, double key) {
+        if (size == vertices.length) {
+            vertices = Arrays.copyOf(vertices, 2 * size);
+            keys = Arrays.copyOf(keys, 2 * size);
+        }
+        int at = size++;
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            vertices[at] = vertices[parent];
+            keys[at] = keys[parent];
+            at = parent;
+        }
+        vertices[at] = v;
+        keys[at] = key;
+    }
+
+    int poll() {
+        int top = vertices[0];
+        int v = vertices[--size];
+        double key = keys[size];
+        int at = 0;
+        int half = size >>> 1;
+        while (at < half) {
+            int child = 2 * at + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                ++child;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            vertices[at] = vertices[child];
+            keys[at] = keys[child];
+            at = child;
+        }
+        vertices[at] = v;
+        keys[at] = key;
+        return top;
+    }
+}
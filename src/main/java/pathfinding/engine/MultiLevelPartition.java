@@ -0,0 +1,293 @@
+package pathfinding.engine;
+
+/**
+ * Nested multi-level partition of a graph's vertices into cells, the
+ * metric-independent half of the overlay (CRP-style) speedup.
+ *
+ * <p>Vertices are split by recursive coordinate bisection: every part is cut
+ * at the median of its wider coordinate until the parts are no larger than
+ * the smallest cell size. Level {@code l} (1-based) groups the parts into
+ * cells of at most {@code cellSizes[l - 1]} vertices, so every cell of a
+ * level lies inside exactly one cell of the level above. For each level the
+ * partition records the boundary vertices of every cell, the vertices with
+ * an edge leaving it. Only the topology is used, so the partition stays
+ * valid for any weights; {@link OverlayMetric} adds the weights.
+ */
+public final class MultiLevelPartition {
+
+    private static final int NOT_BOUNDARY = -1;
+
+    private final CompactGraph graph;
+    private final int levels;
+    // Bisection path of every vertex, one bit per cut, and the vertices
+    // sorted by it: the vertices of every cell are contiguous in that order
+    private final int[] code;
+    private final int[] order;
+    private final int[] rank;
+    // Per level (index 0 unused): cell of a code is code >>> shift[level]
+    private final int[] shift;
+    private final int[] cellCount;
+    private final int[][] boundaryStart;
+    private final int[][] boundary;
+    private final int[][] boundaryIndex;
+    private final int[][] cliqueStart;
+    private final int[] firstVertex;
+
+    private MultiLevelPartition(CompactGraph graph, int levels, int[] code, int[] order,
+                                int[] rank, int[] shift) {
+        this.graph = graph;
+        this.levels = levels;
+        this.code = code;
+        this.order = order;
+        this.rank = rank;
+        this.shift = shift;
+        int n = graph.vertexCount();
+        cellCount = new int[levels + 1];
+        boundaryStart = new int[levels + 1][];
+        boundary = new int[levels + 1][];
+        boundaryIndex = new int[levels + 1][];
+        cliqueStart = new int[levels + 1][];
+        for (int level = 1; level <= levels; ++level) {
+            int cells = (n == 0 ? 0 : (code[order[n - 1]] >>> shift[level]) + 1);
+            cellCount[level] = cells;
+            findBoundary(level, cells);
+        }
+        // Vertices of every level 1 cell, as a range of the bisection order
+        firstVertex = new int[cellCount[1] + 1];
+        for (int i = 0; i < n; ++i) {
+            ++firstVertex[cell(1, order[i]) + 1];
+        }
+        for (int c = 0; c < cellCount[1]; ++c) {
+            firstVertex[c + 1] += firstVertex[c];
+        }
+    }
+
+    /**
+     * Partitions a graph.
+     *
+     * @param graph graph to partition
+     * @param cellSizes maximum number of vertices per cell, for every level
+     *     from the bottom up, strictly increasing
+     * @return the partition
+     */
+    public static MultiLevelPartition build(CompactGraph graph, int... cellSizes) {
+        if (cellSizes.length == 0) {
+            throw new IllegalArgumentException("At least one level is required");
+        }
+        for (int i = 0; i < cellSizes.length; ++i) {
+            if (cellSizes[i] < 2 || (i > 0 && cellSizes[i] <= cellSizes[i - 1])) {
+                throw new IllegalArgumentException("Cell sizes must be increasing & at least 2");
+            }
+        }
+        int n = graph.vertexCount();
+        int levels = cellSizes.length;
+        int depth = depthFor(n, cellSizes[0]);
+        if (depth > 30) {
+            throw new IllegalArgumentException("Too many cells for " + n + " vertices");
+        }
+        int[] shift = new int[levels + 1];
+        for (int level = 1; level <= levels; ++level) {
+            shift[level] = depth - depthFor(n, cellSizes[level - 1]);
+        }
+
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int[] order = new int[n];
+        for (int v = 0; v < n; ++v) {
+            xs[v] = graph.x(v);
+            ys[v] = graph.y(v);
+            order[v] = v;
+        }
+        int[] code = new int[n];
+        bisect(order, xs, ys, code, 0, n, depth, 0);
+        int[] rank = new int[n];
+        for (int i = 0; i < n; ++i) {
+            rank[order[i]] = i;
+        }
+        return new MultiLevelPartition(graph, levels, code, order, rank, shift);
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public int levels() {
+        return levels;
+    }
+
+    public int cellCount(int level) {
+        return cellCount[level];
+    }
+
+    /**
+     * Returns the cell of a vertex.
+     *
+     * @param level level, from 1 to {@link #levels()}
+     * @param v vertex
+     * @return cell of the vertex on that level
+     */
+    public int cell(int level, int v) {
+        return code[v] >>> shift[level];
+    }
+
+    /**
+     * Returns log2 of the number of level {@code level - 1} cells inside
+     * every level {@code level} cell.
+     */
+    int subcellBits(int level) {
+        return shift[level] - shift[level - 1];
+    }
+
+    int boundaryStart(int level, int cell) {
+        return boundaryStart[level][cell];
+    }
+
+    int boundaryEnd(int level, int cell) {
+        return boundaryStart[level][cell + 1];
+    }
+
+    int boundaryVertex(int level, int index) {
+        return boundary[level][index];
+    }
+
+    /**
+     * Returns the position of a vertex among the boundary vertices of a
+     * level, or -1 if it is not on the boundary of its cell.
+     */
+    int boundaryIndex(int level, int v) {
+        return boundaryIndex[level][v];
+    }
+
+    int cliqueStart(int level, int cell) {
+        return cliqueStart[level][cell];
+    }
+
+    int cliqueSize(int level) {
+        return cliqueStart[level][cellCount[level]];
+    }
+
+    int firstVertex(int cell) {
+        return firstVertex[cell];
+    }
+
+    int endVertex(int cell) {
+        return firstVertex[cell + 1];
+    }
+
+    int vertexAt(int position) {
+        return order[position];
+    }
+
+    int rank(int v) {
+        return rank[v];
+    }
+
+    private void findBoundary(int level, int cells) {
+        int n = graph.vertexCount();
+        int[] index = new int[n];
+        int[] start = new int[cells + 1];
+        for (int i = 0; i < n; ++i) {
+            int v = order[i];
+            index[v] = NOT_BOUNDARY;
+            int cell = cell(level, v);
+            for (int a = graph.arcStart(v), end = graph.arcEnd(v); a < end; ++a) {
+                if (cell(level, graph.arcHead(a)) != cell) {
+                    index[v] = 0;
+                    ++start[cell + 1];
+                    break;
+                }
+            }
+        }
+        for (int c = 0; c < cells; ++c) {
+            start[c + 1] += start[c];
+        }
+        // Walking in bisection order keeps every cell's boundary contiguous
+        int[] vertices = new int[start[cells]];
+        int count = 0;
+        for (int i = 0; i < n; ++i) {
+            int v = order[i];
+            if (index[v] != NOT_BOUNDARY) {
+                index[v] = count;
+                vertices[count++] = v;
+            }
+        }
+        int[] cliques = new int[cells + 1];
+        for (int c = 0; c < cells; ++c) {
+            int size = start[c + 1] - start[c];
+            cliques[c + 1] = Math.addExact(cliques[c], size * size);
+        }
+        boundaryStart[level] = start;
+        boundary[level] = vertices;
+        boundaryIndex[level] = index;
+        cliqueStart[level] = cliques;
+    }
+
+    private static int depthFor(int n, int cellSize) {
+        int depth = 0;
+        while (((long) n + (1L << depth) - 1) >> depth > cellSize) {
+            ++depth;
+        }
+        return depth;
+    }
+
+    private static void bisect(int[] order, double[] xs, double[] ys, int[] code,
+                               int from, int to, int depth, int prefix) {
+        if (depth == 0) {
+            for (int i = from; i < to; ++i) {
+                code[order[i]] = prefix;
+            }
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; ++i) {
+            int v = order[i];
+            minX = Math.min(minX, xs[v]);
+            maxX = Math.max(maxX, xs[v]);
+            minY = Math.min(minY, ys[v]);
+            maxY = Math.max(maxY, ys[v]);
+        }
+        int middle = (from + to) >>> 1;
+        select(order, maxX - minX >= maxY - minY ? xs : ys, from, to, middle);
+        bisect(order, xs, ys, code, from, middle, depth - 1, prefix << 1);
+        bisect(order, xs, ys, code, middle, to, depth - 1, (prefix << 1) | 1);
+    }
+
+    /**
+     * Rearranges {@code order[from..to)} so that position {@code k} holds the
+     * vertex that would be there if sorted by key, with smaller keys before.
+     */
+    private static void select(int[] order, double[] key, int from, int to, int k) {
+        int lo = from;
+        int hi = to - 1;
+        while (hi > lo) {
+            double pivot = key[order[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (key[order[i]] < pivot) {
+                    ++i;
+                }
+                while (key[order[j]] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    ++i;
+                    --j;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
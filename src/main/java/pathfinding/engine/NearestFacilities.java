@@ -0,0 +1,31 @@
+package pathfinding.engine;
+
+/**
+ * Nearest facility of every vertex, the graph's Voronoi diagram for a set
+ * of sources. Computed by {@link ShortestPaths#fromSources}.
+ */
+public final class NearestFacilities {
+
+    /** Facility vertices, as given. */
+    public final int[] sources;
+    /** Cost from every vertex to its nearest facility, infinite if none. */
+    public final double[] costs;
+    /** Index in {@link #sources} of every vertex's nearest facility, or -1. */
+    public final int[] facility;
+
+    NearestFacilities(int[] sources, double[] costs, int[] facility) {
+        this.sources = sources;
+        this.costs = costs;
+        this.facility = facility;
+    }
+
+    /**
+     * Returns the nearest facility vertex of a vertex.
+     *
+     * @param v vertex
+     * @return the facility, or -1 if no facility can reach it
+     */
+    public int nearest(int v) {
+        return facility[v] < 0 ? -1 : sources[facility[v]];
+    }
+}
@@ -0,0 +1,110 @@
+package pathfinding.engine;
+
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an {@link OverlayMetric} in step with a {@link GraphStore}.
+ *
+ * <p>Every published snapshot is handed to a background thread. Weight
+ * changes are absorbed by re-customizing the affected cells; added or
+ * removed vertices & edges partition the graph again. Snapshots that arrive
+ * while the thread is busy are merged into one update. Queries read
+ * {@link #current()} and never wait for an update.
+ */
+public final class OverlayIndex implements AutoCloseable {
+
+    private final GraphStore store;
+    private final int[] cellSizes;
+    private final AtomicReference<OverlayMetric> current = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<GraphSnapshot> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<GraphSnapshot> listener = this::enqueue;
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "overlay-customization");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Partitions & customizes the store's current graph, then follows its
+     * updates.
+     *
+     * @param store store to follow
+     * @param cellSizes maximum cell size of every level, from the bottom up
+     */
+    public OverlayIndex(GraphStore store, int... cellSizes) {
+        this.store = store;
+        this.cellSizes = cellSizes.clone();
+        CompactGraph graph = store.current().graph;
+        current.set(OverlayMetric.customize(MultiLevelPartition.build(graph, cellSizes), graph));
+        store.addListener(listener);
+        // Catch up with anything published while customizing
+        GraphSnapshot latest = store.current();
+        if (latest.graph != graph) {
+            enqueue(new GraphSnapshot(latest.version, latest.graph, null));
+        }
+    }
+
+    /**
+     * Returns the latest customized overlay.
+     *
+     * @return the overlay
+     */
+    public OverlayMetric current() {
+        return current.get();
+    }
+
+    /**
+     * Searches the latest customized overlay.
+     *
+     * @param source start vertex
+     * @param goal goal vertex
+     * @return cost & vertices of the path, infinite cost if unreachable
+     */
+    public PathResult search(int source, int goal) {
+        return OverlaySearch.search(current.get(), source, goal);
+    }
+
+    @Override
+    public void close() {
+        store.removeListener(listener);
+        updater.shutdown();
+    }
+
+    private void enqueue(GraphSnapshot snapshot) {
+        pending.add(snapshot);
+        updater.execute(this::update);
+    }
+
+    private void update() {
+        GraphSnapshot latest = null;
+        boolean sameTopology = true;
+        BitSet changed = new BitSet();
+        GraphSnapshot snapshot;
+        while ((snapshot = pending.poll()) != null) {
+            latest = snapshot;
+            if (!snapshot.isSameTopology()) {
+                sameTopology = false;
+            } else if (sameTopology) {
+                for (int edge : snapshot.changedEdges) {
+                    changed.set(edge);
+                }
+            }
+        }
+        if (latest == null) {
+            // Already merged into an earlier update
+            return;
+        }
+        OverlayMetric metric = current.get();
+        CompactGraph graph = latest.graph;
+        if (!sameTopology) {
+            current.set(OverlayMetric.customize(MultiLevelPartition.build(graph, cellSizes), graph));
+        } else if (!changed.isEmpty() || graph != metric.graph()) {
+            current.set(metric.update(graph, changed.stream().toArray()));
+        }
+    }
+}
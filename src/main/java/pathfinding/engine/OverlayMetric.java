@@ -0,0 +1,338 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Weights of the overlay built on a {@link MultiLevelPartition}: for every
+ * cell, the shortest distance between each pair of its boundary vertices
+ * without leaving the cell.
+ *
+ * <p>Computing them ("customization") runs one Dijkstra per boundary vertex
+ * on the level below, in parallel over the cells of a level. When weights
+ * change, {@link #update} reruns only the cells containing a changed edge
+ * (and the cells above them), sharing the untouched levels with the old
+ * metric, which stays valid for searches already running on it.
+ */
+public final class OverlayMetric {
+
+    // Parent step through a clique of the level below, in local searches
+    static final int SHORTCUT = -1;
+    private static final int NONE = -1;
+
+    private final MultiLevelPartition partition;
+    private final CompactGraph graph;
+    // Per level (index 0 unused): row-major clique of every cell
+    private final double[][] cliques;
+    private final double heuristicScale;
+
+    private OverlayMetric(MultiLevelPartition partition, CompactGraph graph, double[][] cliques) {
+        this.partition = partition;
+        this.graph = graph;
+        this.cliques = cliques;
+        this.heuristicScale = graph.heuristicScale();
+    }
+
+    /**
+     * Computes the overlay weights of every cell.
+     *
+     * @param partition partition of the graph
+     * @param graph graph with the same vertices & edges as the partitioned
+     *     one, and the weights to use
+     * @return the metric
+     */
+    public static OverlayMetric customize(MultiLevelPartition partition, CompactGraph graph) {
+        checkTopology(partition, graph);
+        int levels = partition.levels();
+        double[][] cliques = new double[levels + 1][];
+        OverlayMetric metric = new OverlayMetric(partition, graph, cliques);
+        for (int level = 1; level <= levels; ++level) {
+            int l = level;
+            cliques[level] = new double[partition.cliqueSize(level)];
+            IntStream.range(0, partition.cellCount(level)).parallel()
+                .forEach(cell -> metric.customizeCell(l, cell));
+        }
+        return metric;
+    }
+
+    /**
+     * Returns a metric for new weights, recomputing only the cells whose
+     * weights changed. This metric is left as it is.
+     *
+     * @param newGraph graph with the same vertices & edges, and new weights
+     * @param changedEdges edges whose weight changed since this metric's graph
+     * @return the new metric
+     */
+    public OverlayMetric update(CompactGraph newGraph, int[] changedEdges) {
+        checkTopology(partition, newGraph);
+        int levels = partition.levels();
+        boolean[][] dirty = new boolean[levels + 1][];
+        for (int level = 1; level <= levels; ++level) {
+            dirty[level] = new boolean[partition.cellCount(level)];
+        }
+        for (int edge : changedEdges) {
+            int u = graph.edgeFrom(edge);
+            int v = graph.edgeTo(edge);
+            // The edge is inside the cells from the lowest level where both
+            // ends share a cell up to the top; edges between top level cells
+            // are only used by queries
+            for (int level = 1; level <= levels; ++level) {
+                int cell = partition.cell(level, u);
+                if (cell == partition.cell(level, v)) {
+                    for (int above = level; above <= levels; ++above) {
+                        dirty[above][partition.cell(above, u)] = true;
+                    }
+                    break;
+                }
+            }
+        }
+
+        double[][] newCliques = new double[levels + 1][];
+        OverlayMetric metric = new OverlayMetric(partition, newGraph, newCliques);
+        for (int level = 1; level <= levels; ++level) {
+            boolean[] cells = dirty[level];
+            int[] changedCells = IntStream.range(0, cells.length).filter(c -> cells[c]).toArray();
+            if (changedCells.length == 0) {
+                newCliques[level] = cliques[level];
+                continue;
+            }
+            int l = level;
+            newCliques[level] = cliques[level].clone();
+            Arrays.stream(changedCells).parallel().forEach(cell -> metric.customizeCell(l, cell));
+        }
+        return metric;
+    }
+
+    public MultiLevelPartition partition() {
+        return partition;
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    double heuristicScale() {
+        return heuristicScale;
+    }
+
+    /**
+     * Returns the distance between two boundary vertices of a cell.
+     *
+     * @param level level of the cell
+     * @param cell cell
+     * @param from index of the first vertex among the cell's boundary vertices
+     * @param to index of the second vertex among the cell's boundary vertices
+     * @return distance within the cell, infinite if there is no path inside it
+     */
+    double clique(int level, int cell, int from, int to) {
+        int size = partition.boundaryEnd(level, cell) - partition.boundaryStart(level, cell);
+        return cliques[level][partition.cliqueStart(level, cell) + from * size + to];
+    }
+
+    double[] cliques(int level) {
+        return cliques[level];
+    }
+
+    private void customizeCell(int level, int cell) {
+        int start = partition.boundaryStart(level, cell);
+        int size = partition.boundaryEnd(level, cell) - start;
+        if (size == 0) {
+            return;
+        }
+        double[] clique = cliques[level];
+        int offset = partition.cliqueStart(level, cell);
+        CellSearch search = new CellSearch(this, level, cell);
+        int[] targets = new int[size];
+        for (int i = 0; i < size; ++i) {
+            targets[i] = search.local(partition.boundaryVertex(level, start + i));
+        }
+        // Edges are undirected, so the clique is symmetric: each search only
+        // needs the boundary vertices after its source
+        for (int i = 0; i < size; ++i) {
+            search.run(targets[i], Arrays.copyOfRange(targets, i + 1, size), NONE);
+            clique[offset + i * size + i] = 0.0;
+            for (int j = i + 1; j < size; ++j) {
+                double dist = search.dist[targets[j]];
+                clique[offset + i * size + j] = dist;
+                clique[offset + j * size + i] = dist;
+            }
+        }
+    }
+
+    /**
+     * Appends the vertices of the shortest path between two boundary
+     * vertices of a cell, after {@code from} up to and including {@code to},
+     * unpacking the cliques of the levels below down to original edges.
+     *
+     * @param level level of the cell
+     * @param from first vertex
+     * @param to last vertex
+     * @param path list to append to
+     */
+    void unpack(int level, int from, int to, IntList path) {
+        CellSearch search = new CellSearch(this, level, partition.cell(level, from));
+        int source = search.local(from);
+        int target = search.local(to);
+        search.run(source, new int[] {target}, to);
+        int steps = 0;
+        for (int v = target; v != source; v = search.parent[v]) {
+            ++steps;
+        }
+        int[] vertices = new int[steps];
+        boolean[] shortcuts = new boolean[steps];
+        for (int v = target, i = steps - 1; v != source; v = search.parent[v], --i) {
+            vertices[i] = search.vertex(v);
+            shortcuts[i] = search.via[v] == SHORTCUT;
+        }
+        int previous = from;
+        for (int i = 0; i < steps; ++i) {
+            if (shortcuts[i]) {
+                unpack(level - 1, previous, vertices[i], path);
+            } else {
+                path.add(vertices[i]);
+            }
+            previous = vertices[i];
+        }
+    }
+
+    private static void checkTopology(MultiLevelPartition partition, CompactGraph graph) {
+        CompactGraph partitioned = partition.graph();
+        if (graph.vertexCount() != partitioned.vertexCount()
+            || graph.edgeCount() != partitioned.edgeCount()) {
+            throw new IllegalArgumentException("Graph does not match the partition");
+        }
+    }
+
+    /**
+     * Dijkstra inside one cell, over the level below it: original edges for
+     * level 1 cells, otherwise the cliques of the subcells plus the original
+     * edges between them. Vertices are numbered locally from 0.
+     */
+    private static final class CellSearch {
+
+        private final OverlayMetric metric;
+        private final MultiLevelPartition partition;
+        private final CompactGraph graph;
+        private final int level;
+        private final int cell;
+        private final int base;
+        final double[] dist;
+        final int[] parent;
+        final int[] via;
+        private final boolean[] isTarget;
+        private final IndexedMinHeap queue;
+        private int goal;
+
+        CellSearch(OverlayMetric metric, int level, int cell) {
+            this.metric = metric;
+            this.partition = metric.partition;
+            this.graph = metric.graph;
+            this.level = level;
+            this.cell = cell;
+            int size;
+            if (level == 1) {
+                base = partition.firstVertex(cell);
+                size = partition.endVertex(cell) - base;
+            } else {
+                int bits = partition.subcellBits(level);
+                base = partition.boundaryStart(level - 1, cell << bits);
+                size = partition.boundaryStart(level - 1, (cell + 1) << bits) - base;
+            }
+            dist = new double[size];
+            parent = new int[size];
+            via = new int[size];
+            isTarget = new boolean[size];
+            queue = new IndexedMinHeap(size);
+        }
+
+        private double heuristic(int local) {
+            return goal == NONE ? 0.0 : metric.heuristicScale * graph.distance(vertex(local), goal);
+        }
+
+        int local(int v) {
+            return level == 1
+                ? partition.rank(v) - base
+                : partition.boundaryIndex(level - 1, v) - base;
+        }
+
+        int vertex(int local) {
+            return level == 1
+                ? partition.vertexAt(base + local)
+                : partition.boundaryVertex(level - 1, base + local);
+        }
+
+        /**
+         * Runs until every target is settled or the cell is exhausted.
+         *
+         * @param source local source
+         * @param targets local targets
+         * @param goal vertex to direct the search to like A*, or -1
+         */
+        void run(int source, int[] targets, int goal) {
+            this.goal = goal;
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            queue.clear();
+            int remaining = 0;
+            for (int target : targets) {
+                if (!isTarget[target]) {
+                    isTarget[target] = true;
+                    ++remaining;
+                }
+            }
+            dist[source] = 0.0;
+            parent[source] = NONE;
+            queue.insertOrDecrease(source, heuristic(source));
+            while (!queue.isEmpty() && remaining > 0) {
+                int current = queue.poll();
+                if (isTarget[current]) {
+                    isTarget[current] = false;
+                    --remaining;
+                }
+                relax(current);
+            }
+            for (int target : targets) {
+                isTarget[target] = false;
+            }
+        }
+
+        private void relax(int current) {
+            int v = vertex(current);
+            double currentDist = dist[current];
+            if (level == 1) {
+                for (int a = graph.arcStart(v), end = graph.arcEnd(v); a < end; ++a) {
+                    int head = graph.arcHead(a);
+                    if (partition.cell(1, head) == cell) {
+                        update(current, local(head), currentDist + graph.arcWeight(a), a);
+                    }
+                }
+                return;
+            }
+            int lower = level - 1;
+            int subcell = partition.cell(lower, v);
+            int start = partition.boundaryStart(lower, subcell);
+            int size = partition.boundaryEnd(lower, subcell) - start;
+            double[] clique = metric.cliques[lower];
+            int row = partition.cliqueStart(lower, subcell)
+                + (partition.boundaryIndex(lower, v) - start) * size;
+            for (int to = 0; to < size; ++to) {
+                update(current, start + to - base, currentDist + clique[row + to], SHORTCUT);
+            }
+            for (int a = graph.arcStart(v), end = graph.arcEnd(v); a < end; ++a) {
+                int head = graph.arcHead(a);
+                if (partition.cell(lower, head) != subcell && partition.cell(level, head) == cell) {
+                    update(current, local(head), currentDist + graph.arcWeight(a), a);
+                }
+            }
+        }
+
+        private void update(int from, int to, double newDist, int step) {
+            // Settled vertices never improve, weights are non-negative
+            if (newDist < dist[to]) {
+                dist[to] = newDist;
+                parent[to] = from;
+                via[to] = step;
+                queue.insertOrDecrease(to, newDist + heuristic(to));
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Shortest path queries on a customized overlay.
+ *
+ * <p>A bidirectional Dijkstra that uses original edges only inside the
+ * level 1 cells of the source & goal. Further away it moves through the
+ * cliques of the highest level whose cell contains neither endpoint, plus
+ * the edges between cells of that level, so it settles a few hundred
+ * boundary vertices instead of the whole graph. Both sides are also goal
+ * directed like A*, with straight line distances scaled down far enough to
+ * never overestimate. The cliques on the path are unpacked into original
+ * vertices at the end.
+ */
+public final class OverlaySearch {
+
+    private static final int NONE = -1;
+
+    private OverlaySearch() { }
+
+    /**
+     * Searches for a shortest path between two vertices.
+     *
+     * @param metric customized overlay
+     * @param source start vertex
+     * @param goal goal vertex
+     * @return cost & vertices of the path, infinite cost if unreachable
+     */
+    public static PathResult search(OverlayMetric metric, int source, int goal) {
+        CompactGraph graph = metric.graph();
+        int n = graph.vertexCount();
+        if (source < 0 || source >= n || goal < 0 || goal >= n) {
+            throw new IllegalArgumentException(
+                "Invalid arguments for search. Source: " + source + " | Goal: " + goal);
+        }
+        long startNanos = System.nanoTime();
+        if (!graph.connected(source, goal)) {
+            return PathResult.unreachable(new SearchStats(0, 0, 0, 0, 0, 0,
+                System.nanoTime() - startNanos, 0));
+        }
+        long startBytes = SearchStats.allocatedBytes();
+        Query query = new Query(metric, source, goal);
+        query.run();
+        int[] path = query.meeting == NONE ? null : query.path();
+        long endBytes = SearchStats.allocatedBytes();
+        SearchStats stats = new SearchStats(query.settled, query.relaxed, query.pushes,
+            query.settled, query.decreaseKeys, query.peakFrontier,
+            System.nanoTime() - startNanos, startBytes < 0 ? -1 : endBytes - startBytes);
+        return path == null
+            ? PathResult.unreachable(stats)
+            : new PathResult(query.best, path, stats);
+    }
+
+    /**
+     * State of one bidirectional query. Index 0 is the forward search from
+     * the source, index 1 the backward search from the goal.
+     */
+    private static final class Query {
+
+        private final OverlayMetric metric;
+        private final MultiLevelPartition partition;
+        private final CompactGraph graph;
+        private final int source;
+        private final int goal;
+        private final double scale;
+        private final double[][] dist = new double[2][];
+        private final int[][] parent = new int[2][];
+        private final int[][] via = new int[2][];
+        private final IndexedMinHeap[] queues = new IndexedMinHeap[2];
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = NONE;
+        long settled;
+        long relaxed;
+        long pushes;
+        long decreaseKeys;
+        int peakFrontier;
+
+        Query(OverlayMetric metric, int source, int goal) {
+            this.metric = metric;
+            this.partition = metric.partition();
+            this.graph = metric.graph();
+            this.source = source;
+            this.goal = goal;
+            this.scale = metric.heuristicScale();
+            int n = graph.vertexCount();
+            for (int side = 0; side < 2; ++side) {
+                dist[side] = new double[n];
+                Arrays.fill(dist[side], Double.POSITIVE_INFINITY);
+                parent[side] = new int[n];
+                via[side] = new int[n];
+                queues[side] = new IndexedMinHeap(n);
+            }
+        }
+
+        void run() {
+            start(0, source);
+            start(1, goal);
+            if (source == goal) {
+                best = 0.0;
+                meeting = source;
+                return;
+            }
+            while (true) {
+                double forward = queues[0].isEmpty() ? Double.POSITIVE_INFINITY : queues[0].minKey();
+                double backward = queues[1].isEmpty() ? Double.POSITIVE_INFINITY : queues[1].minKey();
+                // No unsettled vertex can be on a shorter path anymore. The
+                // potentials of the two sides cancel out, so the keys can be
+                // compared to the cost directly
+                if (forward + backward >= best) {
+                    return;
+                }
+                int side = forward <= backward ? 0 : 1;
+                int current = queues[side].poll();
+                ++settled;
+                expand(side, current);
+            }
+        }
+
+        private void start(int side, int v) {
+            dist[side][v] = 0.0;
+            parent[side][v] = NONE;
+            queues[side].insertOrDecrease(v, potential(side, v));
+            ++pushes;
+            peakFrontier = Math.max(peakFrontier, queues[side].size());
+        }
+
+        /**
+         * Average of the A* heuristics towards the goal & back to the
+         * source, negated for the backward side, which keeps both sides
+         * consistent (Ikeda et al.).
+         */
+        private double potential(int side, int v) {
+            double p = 0.5 * scale * (graph.distance(v, goal) - graph.distance(v, source));
+            return side == 0 ? p : -p;
+        }
+
+        /**
+         * Returns the highest level on which the vertex's cell holds neither
+         * the source nor the goal, or 0 if it shares a level 1 cell with one.
+         */
+        private int queryLevel(int v) {
+            for (int level = partition.levels(); level >= 1; --level) {
+                int cell = partition.cell(level, v);
+                if (cell != partition.cell(level, source) && cell != partition.cell(level, goal)) {
+                    return level;
+                }
+            }
+            return 0;
+        }
+
+        private void expand(int side, int v) {
+            double currentDist = dist[side][v];
+            int level = queryLevel(v);
+            if (level == 0) {
+                for (int a = graph.arcStart(v), end = graph.arcEnd(v); a < end; ++a) {
+                    relax(side, v, graph.arcHead(a), currentDist + graph.arcWeight(a), a);
+                }
+                return;
+            }
+            // Through the cell, then out of it over edges between cells
+            int cell = partition.cell(level, v);
+            int start = partition.boundaryStart(level, cell);
+            int size = partition.boundaryEnd(level, cell) - start;
+            double[] clique = metric.cliques(level);
+            int row = partition.cliqueStart(level, cell)
+                + (partition.boundaryIndex(level, v) - start) * size;
+            int step = OverlayMetric.SHORTCUT - level;
+            for (int to = 0; to < size; ++to) {
+                relax(side, v, partition.boundaryVertex(level, start + to),
+                    currentDist + clique[row + to], step);
+            }
+            for (int a = graph.arcStart(v), end = graph.arcEnd(v); a < end; ++a) {
+                int head = graph.arcHead(a);
+                if (partition.cell(level, head) != cell) {
+                    relax(side, v, head, currentDist + graph.arcWeight(a), a);
+                }
+            }
+        }
+
+        private void relax(int side, int from, int to, double newDist, int step) {
+            // Also skips settled vertices, weights are non-negative
+            if (newDist >= dist[side][to]) {
+                return;
+            }
+            ++relaxed;
+            dist[side][to] = newDist;
+            parent[side][to] = from;
+            via[side][to] = step;
+            int queued = queues[side].insertOrDecrease(to, newDist + potential(side, to));
+            if (queued == IndexedMinHeap.INSERTED) {
+                ++pushes;
+                peakFrontier = Math.max(peakFrontier, queues[0].size() + queues[1].size());
+            } else if (queued == IndexedMinHeap.DECREASED) {
+                ++decreaseKeys;
+            }
+            double other = dist[1 - side][to];
+            if (newDist + other < best) {
+                best = newDist + other;
+                meeting = to;
+            }
+        }
+
+        int[] path() {
+            IntList path = new IntList(64);
+            // Source to meeting vertex, unpacking the cliques
+            int steps = 0;
+            for (int v = meeting; v != source; v = parent[0][v]) {
+                ++steps;
+            }
+            int[] forward = new int[steps + 1];
+            for (int v = meeting, i = steps; i >= 0; v = parent[0][v], --i) {
+                forward[i] = v;
+            }
+            path.add(source);
+            for (int i = 1; i <= steps; ++i) {
+                appendStep(forward[i - 1], forward[i], via[0][forward[i]], path);
+            }
+            // Meeting vertex to goal
+            for (int v = meeting; v != goal; v = parent[1][v]) {
+                appendStep(v, parent[1][v], via[1][v], path);
+            }
+            return path.toArray();
+        }
+
+        private void appendStep(int from, int to, int step, IntList path) {
+            if (step >= 0) {
+                path.add(to);
+            } else {
+                metric.unpack(OverlayMetric.SHORTCUT - step, from, to, path);
+            }
+        }
+    }
+}
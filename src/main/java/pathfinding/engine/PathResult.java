@@ -0,0 +1,31 @@
+package pathfinding.engine;
+
+/**
+ * Result of a search over a {@link CompactGraph}.
+ */
+public final class PathResult {
+
+    private static final int[] NO_PATH = new int[0];
+
+    public final double cost;
+    public final int[] path;
+    public final SearchStats stats;
+
+    public PathResult(double cost, int[] path) {
+        this(cost, path, SearchStats.EMPTY);
+    }
+
+    public PathResult(double cost, int[] path, SearchStats stats) {
+        this.cost = cost;
+        this.path = path;
+        this.stats = stats;
+    }
+
+    static PathResult unreachable(SearchStats stats) {
+        return new PathResult(Double.POSITIVE_INFINITY, NO_PATH, stats);
+    }
+
+    public boolean isFound() {
+        return path.length > 0;
+    }
+}
@@ -0,0 +1,244 @@
+package pathfinding.engine;
+
+import pathfinding.jfr.SearchEvent;
+
+import java.util.HashSet;
+
+/**
+ * Headless counterpart of {@code Graph.search}: the same three search methods
+ * over a {@link CompactGraph}, without animations.
+ */
+public final class PathSearch {
+
+    private static final int NONE = SearchWorkspace.NONE;
+
+    private PathSearch() { }
+
+    /**
+     * Searches for a path between two vertices.
+     *
+     * @param graph graph to search
+     * @param source start vertex
+     * @param goal goal vertex
+     * @param method one of the {@link SearchMethods}
+     * @return cost & vertices of the path, infinite cost if unreachable
+     */
+    public static PathResult search(CompactGraph graph, int source, int goal, String method) {
+        int n = graph.vertexCount();
+        if (source < 0 || source >= n || goal < 0 || goal >= n) {
+            throw new IllegalArgumentException(
+                "Invalid arguments for search. Source: " + source + " | Goal: " + goal);
+        }
+        boolean useCost;
+        boolean useHeuristic;
+        switch (method) {
+            case SearchMethods.UCS:
+                // Only use g(x) - path cost
+                useCost = true;
+                useHeuristic = false;
+                break;
+            case SearchMethods.GREEDY:
+                // Only use h(x) - heuristic
+                useCost = false;
+                useHeuristic = true;
+                break;
+            case SearchMethods.A_STAR:
+                // Use both g(x) & h(x)
+                useCost = true;
+                useHeuristic = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid search method " + method);
+        }
+
+        // A* needs a heuristic that never overestimates; greedy search only
+        // compares heuristics, so any scale gives the same order
+        double scale = useCost && useHeuristic ? graph.heuristicScale() : 1.0;
+
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        long startBytes = SearchStats.allocatedBytes();
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 0;
+        long pops = 0;
+        long decreaseKeys = 0;
+        int peakFrontier = 0;
+
+        double cost = Double.POSITIVE_INFINITY;
+        int[] path = null;
+        // Vertices in different components are unreachable without searching
+        if (graph.connected(source, goal)) {
+            try (SearchWorkspace workspace = SearchWorkspace.acquire(n)) {
+                workspace.reach(source, 0.0, NONE, NONE);
+                workspace.insertOrDecrease(source,
+                    useHeuristic ? scale * graph.distance(source, goal) : 0.0);
+                pushes = 1;
+                peakFrontier = 1;
+
+                while (!workspace.isQueueEmpty()) {
+                    int current = workspace.poll();
+                    ++pops;
+                    // The goal has been reached! (Lowest priority in the queue)
+                    if (current == goal) {
+                        path = workspace.path(goal);
+                        cost = workspace.dist(goal);
+                        break;
+                    }
+                    workspace.settle(current);
+                    ++settled;
+                    double currentDist = workspace.dist(current);
+                    for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                        int neighbor = graph.arcHead(a);
+                        // Only expand unexplored nodes
+                        if (workspace.isSettled(neighbor)) {
+                            continue;
+                        }
+                        ++relaxed;
+                        double newDist = currentDist + graph.arcWeight(a);
+                        if (newDist < workspace.dist(neighbor)) {
+                            workspace.reach(neighbor, newDist, current, graph.arcEdge(a));
+                            double priority = 0.0;
+                            if (useCost) {
+                                priority += newDist;
+                            }
+                            if (useHeuristic) {
+                                // Computed once per vertex, however often
+                                // its cost drops
+                                if (!workspace.hasHeuristic(neighbor)) {
+                                    workspace.setHeuristic(neighbor,
+                                        scale * graph.distance(neighbor, goal));
+                                }
+                                priority += workspace.heuristic(neighbor);
+                            }
+                            int queued = workspace.insertOrDecrease(neighbor, priority);
+                            if (queued == SearchWorkspace.INSERTED) {
+                                ++pushes;
+                                peakFrontier = Math.max(peakFrontier, workspace.queueSize());
+                            } else if (queued == SearchWorkspace.DECREASED) {
+                                ++decreaseKeys;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        long endBytes = SearchStats.allocatedBytes();
+        SearchStats stats = new SearchStats(settled, relaxed, pushes, pops, decreaseKeys,
+            peakFrontier, System.nanoTime() - startNanos,
+            startBytes < 0 ? -1 : endBytes - startBytes);
+        PathResult result = path == null
+            ? PathResult.unreachable(stats)
+            : new PathResult(cost, path, stats);
+        SearchMetrics.record(method, stats, result.isFound());
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.source = graph.name(source);
+            event.goal = graph.name(goal);
+            event.settled = settled;
+            event.relaxed = relaxed;
+            event.found = result.isFound();
+            event.cost = result.cost;
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Searches for the cheapest path from any of the sources to any of the
+     * goals in a single Dijkstra: all sources start at cost 0 and the search
+     * stops at the first goal settled.
+     *
+     * @param graph graph to search
+     * @param sources start vertices, at least one
+     * @param goals goal vertices, at least one
+     * @return cost & vertices of the path, from the source it starts at to
+     *     the nearest goal, infinite cost if no goal is reachable
+     */
+    public static PathResult searchNearest(CompactGraph graph, int[] sources, int[] goals) {
+        if (sources.length == 0 || goals.length == 0) {
+            throw new IllegalArgumentException("At least one source & one goal are required");
+        }
+        int n = graph.vertexCount();
+        for (int v : sources) {
+            ShortestPaths.checkVertex(graph, v);
+        }
+        long startNanos = System.nanoTime();
+        long startBytes = SearchStats.allocatedBytes();
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 0;
+        long pops = 0;
+        long decreaseKeys = 0;
+        int peakFrontier = 0;
+
+        // Only goals sharing a component with some source can be reached
+        HashSet<Integer> sourceComponents = new HashSet<>();
+        for (int v : sources) {
+            sourceComponents.add(graph.component(v));
+        }
+        boolean reachable = false;
+        for (int v : goals) {
+            ShortestPaths.checkVertex(graph, v);
+            reachable |= sourceComponents.contains(graph.component(v));
+        }
+
+        double cost = Double.POSITIVE_INFINITY;
+        int[] path = null;
+        if (reachable) {
+            try (SearchWorkspace workspace = SearchWorkspace.acquire(n)) {
+                // Marks tell the goals apart
+                for (int v : goals) {
+                    workspace.mark(v);
+                }
+                for (int v : sources) {
+                    if (workspace.insertOrDecrease(v, 0.0) == SearchWorkspace.INSERTED) {
+                        workspace.reach(v, 0.0, NONE, NONE);
+                        ++pushes;
+                    }
+                }
+                peakFrontier = workspace.queueSize();
+                while (!workspace.isQueueEmpty()) {
+                    int current = workspace.poll();
+                    ++pops;
+                    if (workspace.isMarked(current)) {
+                        path = workspace.path(current);
+                        cost = workspace.dist(current);
+                        break;
+                    }
+                    workspace.settle(current);
+                    ++settled;
+                    double currentDist = workspace.dist(current);
+                    for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                        int neighbor = graph.arcHead(a);
+                        if (workspace.isSettled(neighbor)) {
+                            continue;
+                        }
+                        ++relaxed;
+                        double newDist = currentDist + graph.arcWeight(a);
+                        if (newDist < workspace.dist(neighbor)) {
+                            workspace.reach(neighbor, newDist, current, graph.arcEdge(a));
+                            int queued = workspace.insertOrDecrease(neighbor, newDist);
+                            if (queued == SearchWorkspace.INSERTED) {
+                                ++pushes;
+                                peakFrontier = Math.max(peakFrontier, workspace.queueSize());
+                            } else if (queued == SearchWorkspace.DECREASED) {
+                                ++decreaseKeys;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        long endBytes = SearchStats.allocatedBytes();
+        SearchStats stats = new SearchStats(settled, relaxed, pushes, pops, decreaseKeys,
+            peakFrontier, System.nanoTime() - startNanos,
+            startBytes < 0 ? -1 : endBytes - startBytes);
+        return path == null
+            ? PathResult.unreachable(stats)
+            : new PathResult(cost, path, stats);
+    }
+}
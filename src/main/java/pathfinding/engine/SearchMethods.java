@@ -0,0 +1,57 @@
+package pathfinding.engine;
+
+/**
+ * Names of the supported search methods, shared by the editor and the
+ * headless engine.
+ */
+public final class SearchMethods {
+
+    public static final String UCS = "Uniform Cost Search";
+    public static final String GREEDY = "Greedy Search";
+    public static final String A_STAR = "A* Search";
+
+    private SearchMethods() { }
+
+    /**
+     * Maps a short name ({@code ucs}, {@code greedy}, {@code astar}) or a full
+     * method name, in any case, to the method name.
+     *
+     * @param name name to parse
+     * @return one of the method names
+     */
+    public static String parse(String name) {
+        switch (name.toLowerCase()) {
+            case "ucs":
+            case "uniform cost search":
+                return UCS;
+            case "greedy":
+            case "greedy search":
+                return GREEDY;
+            case "astar":
+            case "a*":
+            case "a* search":
+                return A_STAR;
+            default:
+                throw new IllegalArgumentException("Invalid search method " + name);
+        }
+    }
+
+    /**
+     * Returns the short name of a method, suitable for metric labels & URLs.
+     *
+     * @param method one of the method names
+     * @return the short name
+     */
+    public static String shortName(String method) {
+        switch (method) {
+            case UCS:
+                return "ucs";
+            case GREEDY:
+                return "greedy";
+            case A_STAR:
+                return "astar";
+            default:
+                throw new IllegalArgumentException("Invalid search method " + method);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package pathfinding.engine;
+
+import pathfinding.metrics.LatencyHistogram;
+import pathfinding.metrics.MetricsRegistry;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates per-query {@link SearchStats} into the global
+ * {@link MetricsRegistry}, one set of metrics per search method.
+ */
+public final class SearchMetrics {
+
+    private static final SearchMetrics UCS = new SearchMetrics(SearchMethods.UCS);
+    private static final SearchMetrics GREEDY = new SearchMetrics(SearchMethods.GREEDY);
+    private static final SearchMetrics A_STAR = new SearchMetrics(SearchMethods.A_STAR);
+
+    private final LongAdder queries;
+    private final LongAdder unreachable;
+    private final LongAdder settled;
+    private final LongAdder relaxed;
+    private final LatencyHistogram latency;
+
+    private SearchMetrics(String method) {
+        MetricsRegistry registry = MetricsRegistry.global();
+        String labels = "{method=\"" + SearchMethods.shortName(method) + "\"}";
+        queries = registry.counter("search_queries_total" + labels);
+        unreachable = registry.counter("search_unreachable_total" + labels);
+        settled = registry.counter("search_settled_total" + labels);
+        relaxed = registry.counter("search_relaxed_total" + labels);
+        latency = registry.histogram("search_latency_nanos" + labels);
+    }
+
+    /**
+     * Records a finished query.
+     *
+     * @param method search method that was used
+     * @param stats statistics of the query
+     * @param found whether a path was found
+     */
+    public static void record(String method, SearchStats stats, boolean found) {
+        SearchMetrics metrics = of(method);
+        metrics.queries.increment();
+        if (!found) {
+            metrics.unreachable.increment();
+        }
+        metrics.settled.add(stats.settled);
+        metrics.relaxed.add(stats.relaxed);
+        metrics.latency.record(stats.wallNanos);
+    }
+
+    private static SearchMetrics of(String method) {
+        switch (method) {
+            case SearchMethods.UCS:
+                return UCS;
+            case SearchMethods.GREEDY:
+                return GREEDY;
+            case SearchMethods.A_STAR:
+                return A_STAR;
+            default:
+                throw new IllegalArgumentException("Invalid search method " + method);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package pathfinding.engine;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Work done by a single search.
+ */
+public final class SearchStats {
+
+    public static final SearchStats EMPTY = new SearchStats(0, 0, 0, 0, 0, 0, 0, -1);
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    /** Vertices taken off the frontier & expanded. */
+    public final long settled;
+    /** Edges examined while expanding settled vertices. */
+    public final long relaxed;
+    public final long pushes;
+    public final long pops;
+    public final long decreaseKeys;
+    /** Largest number of vertices waiting on the frontier at once. */
+    public final int peakFrontier;
+    public final long wallNanos;
+    /** Bytes allocated by the searching thread, or -1 if unsupported. */
+    public final long allocatedBytes;
+
+    public SearchStats(long settled, long relaxed, long pushes, long pops,
+                       long decreaseKeys, int peakFrontier, long wallNanos,
+                       long allocatedBytes) {
+        this.settled = settled;
+        this.relaxed = relaxed;
+        this.pushes = pushes;
+        this.pops = pops;
+        this.decreaseKeys = decreaseKeys;
+        this.peakFrontier = peakFrontier;
+        this.wallNanos = wallNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so far,
+     * or -1 if the JVM does not track it.
+     *
+     * @return allocated bytes
+     */
+    public static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                if (threads.isThreadAllocatedMemorySupported()
+                    && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            }
+        } catch (UnsupportedOperationException | LinkageError e) {
+            // Allocation tracking is optional
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "settled=" + settled + ", relaxed=" + relaxed
+            + ", pushes=" + pushes + ", pops=" + pops + ", decreaseKeys=" + decreaseKeys
+            + ", peakFrontier=" + peakFrontier + ", wallNanos=" + wallNanos
+            + ", allocatedBytes=" + allocatedBytes;
+    }
+}
@@ -0,0 +1,229 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Scratch memory for one search at a time: tentative costs, parents, cached
+ * heuristics and the frontier, indexed by vertex.
+ *
+ * <p>Every entry carries the generation of the query that wrote it, and
+ * entries from older generations read as unset. Starting a query therefore
+ * only bumps a counter & empties the frontier, so consecutive queries reuse
+ * the same arrays without allocating or clearing them, whatever the graph
+ * size. Workspaces are pooled: acquire one per query and close it
+ * afterwards. The pool is shared rather than thread local because the
+ * routing server runs every request on a new virtual thread; it hands out
+ * the most recently returned workspace first, so a fixed set of threads
+ * keeps reusing the same warm ones.
+ */
+public final class SearchWorkspace implements AutoCloseable {
+
+    public static final int NONE = -1;
+    /** {@link #insertOrDecrease} queued a vertex that was not queued. */
+    public static final int INSERTED = IndexedMinHeap.INSERTED;
+    /** {@link #insertOrDecrease} lowered the key of a queued vertex. */
+    public static final int DECREASED = IndexedMinHeap.DECREASED;
+    /** {@link #insertOrDecrease} found a queued vertex's key no higher. */
+    public static final int UNCHANGED = IndexedMinHeap.UNCHANGED;
+
+    private static final ConcurrentLinkedDeque<SearchWorkspace> POOL = new ConcurrentLinkedDeque<>();
+
+    // Entries are valid where their stamp equals the generation
+    private int generation;
+    private int[] reached = new int[0];
+    private int[] settled = new int[0];
+    private int[] estimated = new int[0];
+    private int[] marked = new int[0];
+    private double[] dist = new double[0];
+    private double[] heuristic = new double[0];
+    private int[] parent = new int[0];
+    private int[] parentEdge = new int[0];
+    private final IndexedMinHeap queue = new IndexedMinHeap(1);
+
+    private SearchWorkspace() { }
+
+    /**
+     * Takes a workspace from the pool, or makes one, ready for a query.
+     *
+     * @param vertexCount number of vertices of the graph to search
+     * @return a workspace with nothing reached, to be closed after use
+     */
+    public static SearchWorkspace acquire(int vertexCount) {
+        SearchWorkspace workspace = POOL.pollFirst();
+        if (workspace == null) {
+            workspace = new SearchWorkspace();
+        }
+        workspace.begin(vertexCount);
+        return workspace;
+    }
+
+    /**
+     * Returns the workspace to the pool. It must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        queue.clear();
+        POOL.offerFirst(this);
+    }
+
+    private void begin(int vertexCount) {
+        if (vertexCount > reached.length) {
+            // Fresh stamps are 0, older than any generation
+            reached = new int[vertexCount];
+            settled = new int[vertexCount];
+            estimated = new int[vertexCount];
+            marked = new int[vertexCount];
+            dist = new double[vertexCount];
+            heuristic = new double[vertexCount];
+            parent = new int[vertexCount];
+            parentEdge = new int[vertexCount];
+            queue.ensureCapacity(vertexCount);
+        }
+        queue.clear();
+        if (++generation == Integer.MAX_VALUE) {
+            // Once every 2^31 queries, so a full reset is affordable
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(estimated, 0);
+            Arrays.fill(marked, 0);
+            generation = 1;
+        }
+    }
+
+    public boolean isReached(int v) {
+        return reached[v] == generation;
+    }
+
+    /**
+     * Returns the tentative cost of a vertex.
+     *
+     * @param v vertex
+     * @return the cost, infinite if not reached in this query
+     */
+    public double dist(int v) {
+        return reached[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the vertex a reached vertex was reached from.
+     *
+     * @param v vertex
+     * @return the parent, {@link #NONE} for a start or an unreached vertex
+     */
+    public int parent(int v) {
+        return reached[v] == generation ? parent[v] : NONE;
+    }
+
+    /**
+     * Returns the edge a reached vertex was reached over.
+     *
+     * @param v vertex
+     * @return the edge id, {@link #NONE} for a start or an unreached vertex
+     */
+    public int parentEdge(int v) {
+        return reached[v] == generation ? parentEdge[v] : NONE;
+    }
+
+    /**
+     * Records a new tentative cost for a vertex.
+     *
+     * @param v vertex
+     * @param cost cost of the path found
+     * @param from vertex it was reached from, {@link #NONE} for a start
+     * @param edge edge it was reached over, {@link #NONE} for a start
+     */
+    public void reach(int v, double cost, int from, int edge) {
+        reached[v] = generation;
+        dist[v] = cost;
+        parent[v] = from;
+        parentEdge[v] = edge;
+    }
+
+    public boolean isSettled(int v) {
+        return settled[v] == generation;
+    }
+
+    public void settle(int v) {
+        settled[v] = generation;
+    }
+
+    public boolean hasHeuristic(int v) {
+        return estimated[v] == generation;
+    }
+
+    /**
+     * Returns the heuristic cached for a vertex; only valid if
+     * {@link #hasHeuristic} says so.
+     */
+    public double heuristic(int v) {
+        return heuristic[v];
+    }
+
+    public void setHeuristic(int v, double estimate) {
+        estimated[v] = generation;
+        heuristic[v] = estimate;
+    }
+
+    /**
+     * Returns whether a vertex was marked in this query, a flag the caller
+     * may use for anything, e.g. to tell goals apart.
+     */
+    public boolean isMarked(int v) {
+        return marked[v] == generation;
+    }
+
+    public void mark(int v) {
+        marked[v] = generation;
+    }
+
+    /**
+     * Queues a vertex, or lowers its key if it is queued already.
+     *
+     * @return {@link #INSERTED}, {@link #DECREASED}, or {@link #UNCHANGED}
+     *     if it was queued with a key no higher
+     */
+    public int insertOrDecrease(int v, double key) {
+        return queue.insertOrDecrease(v, key);
+    }
+
+    public boolean isQueueEmpty() {
+        return queue.isEmpty();
+    }
+
+    public int queueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the lowest key queued; the queue must not be empty.
+     */
+    public double minKey() {
+        return queue.minKey();
+    }
+
+    /**
+     * Removes & returns the queued vertex with the lowest key.
+     */
+    public int poll() {
+        return queue.poll();
+    }
+
+    /**
+     * Returns the vertices from the start to a reached vertex.
+     *
+     * @param goal last vertex of the path
+     * @return the path, the only allocation of a query
+     */
+    public int[] path(int goal) {
+        int length = 0;
+        for (int v = goal; v != NONE; v = parent(v)) {
+            ++length;
+        }
+        int[] path = new int[length];
+        for (int v = goal; v != NONE; v = parent(v)) {
+            path[--length] = v;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,143 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * One-to-many shortest path costs (Dijkstra) over a {@link CompactGraph}.
+ */
+public final class ShortestPaths {
+
+    private static final int NONE = SearchWorkspace.NONE;
+
+    private ShortestPaths() { }
+
+    /**
+     * Computes the cost from a source to every vertex.
+     *
+     * @param graph graph to search
+     * @param source start vertex
+     * @return cost per vertex, infinite for unreachable vertices
+     */
+    public static double[] fromSource(CompactGraph graph, int source) {
+        checkVertex(graph, source);
+        int n = graph.vertexCount();
+        double[] costs = new double[n];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(n)) {
+            workspace.reach(source, 0.0, NONE, NONE);
+            workspace.insertOrDecrease(source, 0.0);
+            while (!workspace.isQueueEmpty()) {
+                int current = workspace.poll();
+                costs[current] = workspace.dist(current);
+                relax(graph, current, workspace);
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Assigns every vertex to its nearest source in a single Dijkstra, with
+     * all sources starting at cost 0. Ties go to the source listed first.
+     *
+     * @param graph graph to search
+     * @param sources facility vertices, at least one, duplicates allowed
+     * @return nearest source & its cost per vertex
+     */
+    public static NearestFacilities fromSources(CompactGraph graph, int... sources) {
+        if (sources.length == 0) {
+            throw new IllegalArgumentException("At least one source is required");
+        }
+        int n = graph.vertexCount();
+        double[] costs = new double[n];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        int[] facility = new int[n];
+        Arrays.fill(facility, NONE);
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(n)) {
+            for (int i = 0; i < sources.length; ++i) {
+                checkVertex(graph, sources[i]);
+                if (facility[sources[i]] == NONE) {
+                    facility[sources[i]] = i;
+                    workspace.reach(sources[i], 0.0, NONE, NONE);
+                    workspace.insertOrDecrease(sources[i], 0.0);
+                }
+            }
+            while (!workspace.isQueueEmpty()) {
+                int current = workspace.poll();
+                costs[current] = workspace.dist(current);
+                // Every vertex belongs to the facility of the vertex it was
+                // reached from, settled before it
+                int parent = workspace.parent(current);
+                if (parent != NONE) {
+                    facility[current] = facility[parent];
+                }
+                relax(graph, current, workspace);
+            }
+        }
+        return new NearestFacilities(sources.clone(), costs, facility);
+    }
+
+    /**
+     * Computes the cost from a source to a set of targets, stopping as soon
+     * as all of them are settled.
+     *
+     * @param graph graph to search
+     * @param source start vertex
+     * @param targets goal vertices, duplicates allowed
+     * @return cost per target, in the order given, infinite if unreachable
+     */
+    public static double[] toTargets(CompactGraph graph, int source, int[] targets) {
+        checkVertex(graph, source);
+        int n = graph.vertexCount();
+        double[] costs = new double[targets.length];
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(n)) {
+            int remaining = 0;
+            for (int target : targets) {
+                checkVertex(graph, target);
+                // Targets in other components can't be reached, so don't wait
+                // for them
+                if (!workspace.isMarked(target) && graph.connected(source, target)) {
+                    workspace.mark(target);
+                    ++remaining;
+                }
+            }
+            workspace.reach(source, 0.0, NONE, NONE);
+            workspace.insertOrDecrease(source, 0.0);
+            while (remaining > 0 && !workspace.isQueueEmpty()) {
+                int current = workspace.poll();
+                if (workspace.isMarked(current)) {
+                    --remaining;
+                }
+                relax(graph, current, workspace);
+            }
+            for (int i = 0; i < targets.length; ++i) {
+                costs[i] = workspace.dist(targets[i]);
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Settles a vertex just polled & relaxes its arcs.
+     */
+    private static void relax(CompactGraph graph, int current, SearchWorkspace workspace) {
+        workspace.settle(current);
+        double currentDist = workspace.dist(current);
+        for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+            int neighbor = graph.arcHead(a);
+            if (workspace.isSettled(neighbor)) {
+                continue;
+            }
+            double newDist = currentDist + graph.arcWeight(a);
+            if (newDist < workspace.dist(neighbor)) {
+                workspace.reach(neighbor, newDist, current, graph.arcEdge(a));
+                workspace.insertOrDecrease(neighbor, newDist);
+            }
+        }
+    }
+
+    static void checkVertex(CompactGraph graph, int v) {
+        if (v < 0 || v >= graph.vertexCount()) {
+            throw new IllegalArgumentException("Invalid vertex " + v);
+        }
+    }
+}
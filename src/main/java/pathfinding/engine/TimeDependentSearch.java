@@ -0,0 +1,183 @@
+package pathfinding.engine;
+
+/**
+ * Searches over {@link TravelTimeProfiles}: the cost of a path is the time
+ * it takes when departing at a given time, every edge being crossed at the
+ * time it is reached.
+ *
+ * <p>{@link #search} answers one departure time, with Dijkstra or A* on
+ * arrival times, exactly as long as the profiles are FIFO. {@link #profile}
+ * answers a whole window of departure times in one pass, carrying an
+ * {@link ArrivalProfile} per vertex instead of a single time, instead of
+ * searching again for every departure.
+ */
+public final class TimeDependentSearch {
+
+    private static final int NONE = SearchWorkspace.NONE;
+
+    private TimeDependentSearch() { }
+
+    /**
+     * Searches for the fastest path between two vertices for a departure
+     * time.
+     *
+     * @param profiles travel times of the graph's edges
+     * @param source start vertex
+     * @param goal goal vertex
+     * @param departure time of leaving the source
+     * @param method {@link SearchMethods#UCS} for Dijkstra or
+     *     {@link SearchMethods#A_STAR}, with straight line distances scaled
+     *     by {@link TravelTimeProfiles#heuristicScale()}
+     * @return travel time & vertices of the path, infinite if unreachable
+     */
+    public static PathResult search(TravelTimeProfiles profiles, int source, int goal,
+                                    double departure, String method) {
+        CompactGraph graph = profiles.graph();
+        int n = graph.vertexCount();
+        if (source < 0 || source >= n || goal < 0 || goal >= n) {
+            throw new IllegalArgumentException(
+                "Invalid arguments for search. Source: " + source + " | Goal: " + goal);
+        }
+        boolean useHeuristic;
+        switch (method) {
+            case SearchMethods.UCS:
+                useHeuristic = false;
+                break;
+            case SearchMethods.A_STAR:
+                useHeuristic = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid time-dependent search method " + method);
+        }
+        double scale = useHeuristic ? profiles.heuristicScale() : 0.0;
+
+        long startNanos = System.nanoTime();
+        long startBytes = SearchStats.allocatedBytes();
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 0;
+        long pops = 0;
+        long decreaseKeys = 0;
+        int peakFrontier = 0;
+
+        double cost = Double.POSITIVE_INFINITY;
+        int[] path = null;
+        if (graph.connected(source, goal)) {
+            try (SearchWorkspace workspace = SearchWorkspace.acquire(n)) {
+                // Costs are arrival times
+                workspace.reach(source, departure, NONE, NONE);
+                workspace.insertOrDecrease(source, departure + scale * graph.distance(source, goal));
+                pushes = 1;
+                peakFrontier = 1;
+
+                while (!workspace.isQueueEmpty()) {
+                    int current = workspace.poll();
+                    ++pops;
+                    if (current == goal) {
+                        path = workspace.path(goal);
+                        cost = workspace.dist(goal) - departure;
+                        break;
+                    }
+                    workspace.settle(current);
+                    ++settled;
+                    double arrival = workspace.dist(current);
+                    for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                        int neighbor = graph.arcHead(a);
+                        if (workspace.isSettled(neighbor)) {
+                            continue;
+                        }
+                        ++relaxed;
+                        int edge = graph.arcEdge(a);
+                        double newArrival = arrival + profiles.travelTime(edge, arrival);
+                        if (newArrival < workspace.dist(neighbor)) {
+                            workspace.reach(neighbor, newArrival, current, edge);
+                            if (!workspace.hasHeuristic(neighbor)) {
+                                workspace.setHeuristic(neighbor, scale * graph.distance(neighbor, goal));
+                            }
+                            int queued = workspace.insertOrDecrease(neighbor, newArrival + workspace.heuristic(neighbor));
+                            if (queued == SearchWorkspace.INSERTED) {
+                                ++pushes;
+                                peakFrontier = Math.max(peakFrontier, workspace.queueSize());
+                            } else if (queued == SearchWorkspace.DECREASED) {
+                                ++decreaseKeys;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        long endBytes = SearchStats.allocatedBytes();
+        SearchStats stats = new SearchStats(settled, relaxed, pushes, pops, decreaseKeys,
+            peakFrontier, System.nanoTime() - startNanos,
+            startBytes < 0 ? -1 : endBytes - startBytes);
+        return path == null ? PathResult.unreachable(stats) : new PathResult(cost, path, stats);
+    }
+
+    /**
+     * Finds the earliest arrival at the goal for every departure time in a
+     * window, in one search. Each vertex carries the earliest arrival as a
+     * function of the departure; a vertex is expanded again whenever its
+     * function improves for some departure, and the search stops once no
+     * queued vertex can be reached, even at best, before the goal is
+     * reached at worst.
+     *
+     * @param profiles travel times of the graph's edges
+     * @param source start vertex
+     * @param goal goal vertex
+     * @param windowStart earliest departure time
+     * @param windowEnd latest departure time, no earlier than the start
+     * @return the arrival times at the goal, or null if unreachable
+     */
+    public static ArrivalProfile profile(TravelTimeProfiles profiles, int source, int goal,
+                                         double windowStart, double windowEnd) {
+        CompactGraph graph = profiles.graph();
+        int n = graph.vertexCount();
+        if (source < 0 || source >= n || goal < 0 || goal >= n) {
+            throw new IllegalArgumentException(
+                "Invalid arguments for profile search. Source: " + source + " | Goal: " + goal);
+        }
+        if (!(windowEnd >= windowStart) || Double.isInfinite(windowEnd - windowStart)) {
+            throw new IllegalArgumentException(
+                "Invalid departure window [" + windowStart + ", " + windowEnd + "]");
+        }
+        if (!graph.connected(source, goal)) {
+            return null;
+        }
+        double scale = profiles.heuristicScale();
+        ArrivalProfile[] arrivals = new ArrivalProfile[n];
+        arrivals[source] = ArrivalProfile.identity(windowStart, windowEnd);
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(n)) {
+            // Keys are the earliest arrival at a vertex over the window, plus
+            // the lowest travel time left
+            workspace.insertOrDecrease(source, windowStart + scale * graph.distance(source, goal));
+            while (!workspace.isQueueEmpty()) {
+                // Even the latest departure arrives no later than this
+                double bound = arrivals[goal] == null
+                    ? Double.POSITIVE_INFINITY : arrivals[goal].latestArrival();
+                if (workspace.minKey() >= bound) {
+                    break;
+                }
+                int current = workspace.poll();
+                if (current == goal) {
+                    continue;
+                }
+                ArrivalProfile reached = arrivals[current];
+                for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                    int neighbor = graph.arcHead(a);
+                    ArrivalProfile improved = reached.link(profiles, graph.arcEdge(a)).improve(arrivals[neighbor]);
+                    if (improved == null) {
+                        continue;
+                    }
+                    arrivals[neighbor] = improved;
+                    if (!workspace.hasHeuristic(neighbor)) {
+                        workspace.setHeuristic(neighbor, scale * graph.distance(neighbor, goal));
+                    }
+                    workspace.insertOrDecrease(neighbor,
+                        improved.earliestArrival() + workspace.heuristic(neighbor));
+                }
+            }
+        }
+        return arrivals[goal];
+    }
+}
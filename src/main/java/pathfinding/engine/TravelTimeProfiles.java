@@ -0,0 +1,239 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Travel times that depend on the time an edge is entered, for every edge of
+ * a {@link CompactGraph}, such as a day's traffic repeating every day.
+ *
+ * <p>Each profile is periodic & piecewise linear: breakpoints {@code (time,
+ * travel time)} within one period, interpolated in between and across the
+ * end of the period. All breakpoints share two flat arrays, the profile of
+ * edge {@code e} taking {@code first[e]} to {@code first[e + 1]}; edges
+ * without one keep their static weight at all times. Profiles must be FIFO:
+ * entering an edge later never means leaving it earlier, so no slope is
+ * below -1. That keeps time-dependent Dijkstra exact.
+ */
+public final class TravelTimeProfiles {
+
+    private final CompactGraph graph;
+    private final double period;
+    private final int[] first;
+    private final double[] times;
+    private final double[] travelTimes;
+    // Lowest travel time of every edge, at any time
+    private final double[] minTravelTimes;
+    private double heuristicScale = Double.NaN;
+
+    private TravelTimeProfiles(CompactGraph graph, double period, int[] first,
+                               double[] times, double[] travelTimes) {
+        this.graph = graph;
+        this.period = period;
+        this.first = first;
+        this.times = times;
+        this.travelTimes = travelTimes;
+        minTravelTimes = new double[graph.edgeCount()];
+        for (int e = 0; e < minTravelTimes.length; ++e) {
+            double min = first[e] == first[e + 1] ? graph.edgeWeight(e) : Double.POSITIVE_INFINITY;
+            for (int i = first[e]; i < first[e + 1]; ++i) {
+                min = Math.min(min, travelTimes[i]);
+            }
+            minTravelTimes[e] = min;
+        }
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public double period() {
+        return period;
+    }
+
+    /**
+     * Returns whether an edge's travel time depends on the time.
+     *
+     * @param edge edge id
+     * @return false if the edge keeps its static weight
+     */
+    public boolean hasProfile(int edge) {
+        return first[edge] != first[edge + 1];
+    }
+
+    /**
+     * Returns the time it takes to cross an edge entered at a given time.
+     *
+     * @param edge edge id
+     * @param time time the edge is entered, any multiple of the period
+     *     later or earlier gives the same result
+     * @return the travel time
+     */
+    public double travelTime(int edge, double time) {
+        int start = first[edge];
+        int end = first[edge + 1];
+        if (end - start <= 1) {
+            return start == end ? graph.edgeWeight(edge) : travelTimes[start];
+        }
+        double t = time - period * Math.floor(time / period);
+        // Last breakpoint at or before t
+        int at = Arrays.binarySearch(times, start, end, t);
+        at = at >= 0 ? at : -at - 2;
+        double t0;
+        double t1;
+        double w0;
+        double w1;
+        if (at < start) {
+            // Before the first breakpoint: from the last one of the
+            // previous period
+            t0 = times[end - 1] - period;
+            w0 = travelTimes[end - 1];
+            t1 = times[start];
+            w1 = travelTimes[start];
+        } else if (at == end - 1) {
+            t0 = times[at];
+            w0 = travelTimes[at];
+            t1 = times[start] + period;
+            w1 = travelTimes[start];
+        } else {
+            t0 = times[at];
+            w0 = travelTimes[at];
+            t1 = times[at + 1];
+            w1 = travelTimes[at + 1];
+        }
+        return w0 + (w1 - w0) * (t - t0) / (t1 - t0);
+    }
+
+    /**
+     * Returns the lowest time it takes to cross an edge, at any time.
+     *
+     * @param edge edge id
+     * @return the lowest travel time
+     */
+    public double minTravelTime(int edge) {
+        return minTravelTimes[edge];
+    }
+
+    /**
+     * Returns the largest factor by which straight line distances can be
+     * multiplied without exceeding any path's travel time, whenever it
+     * starts: the lowest ratio of lowest travel time to length over all
+     * edges. Computed on the first call.
+     *
+     * @return the scale, 0 if no edge has a length
+     */
+    public double heuristicScale() {
+        double scale = heuristicScale;
+        if (Double.isNaN(scale)) {
+            scale = Double.POSITIVE_INFINITY;
+            for (int e = 0; e < minTravelTimes.length; ++e) {
+                double length = graph.distance(graph.edgeFrom(e), graph.edgeTo(e));
+                if (length > 0.0) {
+                    scale = Math.min(scale, minTravelTimes[e] / length);
+                }
+            }
+            scale = scale == Double.POSITIVE_INFINITY ? 0.0 : Math.max(scale, 0.0);
+            heuristicScale = scale;
+        }
+        return scale;
+    }
+
+    // Breakpoints of an edge, for the profile search
+
+    int firstBreakpoint(int edge) {
+        return first[edge];
+    }
+
+    int endBreakpoint(int edge) {
+        return first[edge + 1];
+    }
+
+    double breakpointTime(int i) {
+        return times[i];
+    }
+
+    /**
+     * Collects the profiles of a graph's edges.
+     */
+    public static final class Builder {
+
+        private final CompactGraph graph;
+        private final double period;
+        private final double[][] profileTimes;
+        private final double[][] profileTravelTimes;
+
+        /**
+         * @param graph graph whose edges the profiles are for
+         * @param period length of the cycle the profiles repeat over,
+         *     positive
+         */
+        public Builder(CompactGraph graph, double period) {
+            if (!(period > 0.0) || Double.isInfinite(period)) {
+                throw new IllegalArgumentException("Invalid period " + period);
+            }
+            this.graph = graph;
+            this.period = period;
+            profileTimes = new double[graph.edgeCount()][];
+            profileTravelTimes = new double[graph.edgeCount()][];
+        }
+
+        /**
+         * Sets the profile of an edge, replacing any earlier one.
+         *
+         * @param edge edge id
+         * @param times increasing times of the breakpoints, within
+         *     {@code [0, period)}
+         * @param travelTimes non-negative travel time at each breakpoint
+         * @return this builder
+         * @throws IllegalArgumentException malformed breakpoints, or a
+         *     profile where entering later can mean leaving earlier
+         */
+        public Builder setProfile(int edge, double[] times, double[] travelTimes) {
+            if (edge < 0 || edge >= profileTimes.length) {
+                throw new IllegalArgumentException("Edge " + edge + " out of range");
+            }
+            if (times.length == 0 || times.length != travelTimes.length) {
+                throw new IllegalArgumentException(
+                    "Profile of edge " + edge + " needs as many travel times as times, at least one");
+            }
+            for (int i = 0; i < times.length; ++i) {
+                if (!(times[i] >= 0.0 && times[i] < period) || (i > 0 && !(times[i] > times[i - 1]))) {
+                    throw new IllegalArgumentException(
+                        "Times of edge " + edge + " must increase within [0, " + period + ")");
+                }
+                if (!(travelTimes[i] >= 0.0) || Double.isInfinite(travelTimes[i])) {
+                    throw new IllegalArgumentException(
+                        "Invalid travel time " + travelTimes[i] + " on edge " + edge);
+                }
+            }
+            for (int i = 0; i < times.length; ++i) {
+                int j = (i + 1) % times.length;
+                double elapsed = j > i ? times[j] - times[i] : times[j] + period - times[i];
+                if (times.length > 1 && travelTimes[j] - travelTimes[i] < -elapsed) {
+                    throw new IllegalArgumentException("Profile of edge " + edge
+                        + " lets a later departure arrive earlier after time " + times[i]);
+                }
+            }
+            profileTimes[edge] = times.clone();
+            profileTravelTimes[edge] = travelTimes.clone();
+            return this;
+        }
+
+        public TravelTimeProfiles build() {
+            int m = profileTimes.length;
+            int[] first = new int[m + 1];
+            for (int e = 0; e < m; ++e) {
+                first[e + 1] = first[e] + (profileTimes[e] == null ? 0 : profileTimes[e].length);
+            }
+            double[] times = new double[first[m]];
+            double[] travelTimes = new double[first[m]];
+            for (int e = 0; e < m; ++e) {
+                if (profileTimes[e] != null) {
+                    System.arraycopy(profileTimes[e], 0, times, first[e], profileTimes[e].length);
+                    System.arraycopy(profileTravelTimes[e], 0, travelTimes, first[e],
+                        profileTravelTimes[e].length);
+                }
+            }
+            return new TravelTimeProfiles(graph, period, first, times, travelTimes);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pathfinding.engine;
+
+import java.util.Arrays;
+
+/**
+ * Disjoint sets over {@code 0..n-1} with path halving & union by size. More
+ * elements can be added later, each in a set of its own.
+ */
+public final class UnionFind {
+
+    private int[] parent;
+    private int[] size;
+    private int count;
+
+    public UnionFind(int n) {
+        parent = new int[Math.max(n, 1)];
+        size = new int[Math.max(n, 1)];
+        for (int i = 0; i < n; ++i) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        count = n;
+    }
+
+    /**
+     * Adds an element in a set of its own.
+     *
+     * @return the new element
+     */
+    public int add() {
+        if (count == parent.length) {
+            parent = Arrays.copyOf(parent, 2 * count);
+            size = Arrays.copyOf(size, 2 * count);
+        }
+        parent[count] = count;
+        size[count] = 1;
+        return count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Merges the sets of two elements.
+     *
+     * @return true if they were in different sets
+     */
+    public boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) {
+            return false;
+        }
+        if (size[ra] < size[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        return true;
+    }
+
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+}
@@ -0,0 +1,105 @@
+package pathfinding.generator;
+
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphFiles;
+import pathfinding.engine.VertexOrder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line entry point that writes a generated graph to a
+ * {@code .graph} file.
+ *
+ * <pre>
+ * GenerateGraph &lt;grid|geometric|road|scalefree&gt; &lt;vertices&gt; &lt;output&gt; [--key=value ...]
+ *
+ *   --seed=N         random seed (all types, default 1)
+ *   --order=O        renumber vertices: none, hilbert, bfs or rcm (all types,
+ *                    default none)
+ *   --obstacles=R    fraction of blocked cells (grid, default 0.2)
+ *   --diagonals=B    8-connected cells (grid, default false)
+ *   --degree=D       average degree (geometric, default 6)
+ *   --extra=R        fraction of non-tree edges kept (road, default 0.35)
+ *   --edges=M        edges per new vertex (scalefree, default 3)
+ * </pre>
+ */
+public class GenerateGraph {
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println(
+                "Usage: GenerateGraph <grid|geometric|road|scalefree> <vertices> <output> [--key=value ...]");
+            System.exit(2);
+            return;
+        }
+        try {
+            Map<String, String> options = options(args);
+            GraphGenerator generator = create(args[0], Integer.parseInt(args[1]), options);
+            long start = System.nanoTime();
+            CompactGraph graph = generator.generate();
+            String order = options.getOrDefault("order", VertexOrder.NONE);
+            if (!order.equals(VertexOrder.NONE)) {
+                graph = VertexOrder.of(order, graph).apply(graph);
+            }
+            long generated = System.nanoTime();
+            GraphFiles.write(graph, new File(args[2]));
+            long written = System.nanoTime();
+            System.out.printf("%d vertices, %d edges: generated in %d ms, written in %d ms%n",
+                graph.vertexCount(), graph.edgeCount(),
+                (generated - start) / 1_000_000, (written - generated) / 1_000_000);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Could not generate graph: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a generator by type name.
+     *
+     * @param type one of grid, geometric, road or scalefree
+     * @param vertices approximate number of vertices
+     * @param options type specific options, see the class documentation
+     * @return the generator
+     */
+    public static GraphGenerator create(String type, int vertices, Map<String, String> options) {
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        switch (type) {
+            case "grid": {
+                int side = Math.max(1, (int) Math.round(Math.sqrt(vertices)));
+                return new GridGenerator(side, side,
+                    Double.parseDouble(options.getOrDefault("obstacles", "0.2")),
+                    Boolean.parseBoolean(options.getOrDefault("diagonals", "false")),
+                    seed);
+            }
+            case "geometric":
+                return new GeometricGenerator(vertices,
+                    Double.parseDouble(options.getOrDefault("degree", "6")), seed);
+            case "road":
+                return new RoadNetworkGenerator(vertices,
+                    Double.parseDouble(options.getOrDefault("extra",
+                        String.valueOf(RoadNetworkGenerator.DEFAULT_EXTRA_EDGES))),
+                    RoadNetworkGenerator.DEFAULT_SPACING, seed);
+            case "scalefree":
+                return new ScaleFreeGenerator(vertices,
+                    Integer.parseInt(options.getOrDefault("edges", "3")), seed);
+            default:
+                throw new IllegalArgumentException("Unknown graph type " + type);
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 3; i < args.length; ++i) {
+            String arg = args[i];
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Invalid option " + arg);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+}
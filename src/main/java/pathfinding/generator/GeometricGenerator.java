@@ -0,0 +1,116 @@
+package pathfinding.generator;
+
+import pathfinding.engine.GraphBuilder;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random geometric graph: points scattered uniformly over a square, with an
+ * edge between every pair closer than a radius chosen to hit the requested
+ * average degree.
+ */
+public class GeometricGenerator implements GraphGenerator {
+
+    public static final double DEFAULT_DENSITY = 1.0 / 2500.0;
+    public static final double DEFAULT_DETOUR = 0.3;
+
+    private final int vertices;
+    private final double averageDegree;
+    private final double maxDetour;
+    private final long seed;
+
+    /**
+     * @param vertices number of vertices
+     * @param averageDegree expected number of neighbors per vertex
+     * @param seed random seed
+     */
+    public GeometricGenerator(int vertices, double averageDegree, long seed) {
+        this(vertices, averageDegree, DEFAULT_DETOUR, seed);
+    }
+
+    /**
+     * @param vertices number of vertices
+     * @param averageDegree expected number of neighbors per vertex
+     * @param maxDetour largest fraction by which a weight exceeds its length
+     * @param seed random seed
+     */
+    public GeometricGenerator(int vertices, double averageDegree, double maxDetour, long seed) {
+        if (vertices <= 0 || averageDegree <= 0 || maxDetour < 0) {
+            throw new IllegalArgumentException("Invalid geometric graph parameters");
+        }
+        this.vertices = vertices;
+        this.averageDegree = averageDegree;
+        this.maxDetour = maxDetour;
+        this.seed = seed;
+    }
+
+    @Override
+    public int expectedVertices() {
+        return vertices;
+    }
+
+    @Override
+    public int expectedEdges() {
+        return (int) Math.min(Integer.MAX_VALUE - 8, (long) (vertices * averageDegree / 2 * 1.05));
+    }
+
+    @Override
+    public void generate(GraphBuilder builder) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double side = Math.sqrt(vertices / DEFAULT_DENSITY);
+        // Expected degree = density * pi * r^2
+        double radius = Math.sqrt(averageDegree / (Math.PI * DEFAULT_DENSITY));
+
+        double[] xs = new double[vertices];
+        double[] ys = new double[vertices];
+        int first = builder.vertexCount();
+        for (int i = 0; i < vertices; ++i) {
+            xs[i] = random.nextDouble() * side;
+            ys[i] = random.nextDouble() * side;
+            builder.addVertex(xs[i], ys[i], "v" + i);
+        }
+
+        // Bucket points into cells of the radius, then only compare neighboring cells
+        int cellsPerSide = Math.max(1, (int) (side / radius));
+        double cellSize = side / cellsPerSide;
+        int[] cellStart = new int[cellsPerSide * cellsPerSide + 1];
+        int[] cellOf = new int[vertices];
+        for (int i = 0; i < vertices; ++i) {
+            int cx = Math.min(cellsPerSide - 1, (int) (xs[i] / cellSize));
+            int cy = Math.min(cellsPerSide - 1, (int) (ys[i] / cellSize));
+            cellOf[i] = cy * cellsPerSide + cx;
+            ++cellStart[cellOf[i] + 1];
+        }
+        for (int c = 0; c < cellsPerSide * cellsPerSide; ++c) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = cellStart.clone();
+        int[] bucketed = new int[vertices];
+        for (int i = 0; i < vertices; ++i) {
+            bucketed[fill[cellOf[i]]++] = i;
+        }
+
+        double radiusSquared = radius * radius;
+        for (int i = 0; i < vertices; ++i) {
+            int cx = cellOf[i] % cellsPerSide;
+            int cy = cellOf[i] / cellsPerSide;
+            for (int ny = Math.max(0, cy - 1); ny <= Math.min(cellsPerSide - 1, cy + 1); ++ny) {
+                for (int nx = Math.max(0, cx - 1); nx <= Math.min(cellsPerSide - 1, cx + 1); ++nx) {
+                    int cell = ny * cellsPerSide + nx;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; ++k) {
+                        int j = bucketed[k];
+                        if (j <= i) {
+                            continue;
+                        }
+                        double dx = xs[i] - xs[j];
+                        double dy = ys[i] - ys[j];
+                        if (dx * dx + dy * dy <= radiusSquared) {
+                            builder.connect(first + i, first + j, Weights.stretched(
+                                random, Weights.distance(xs[i], ys[i], xs[j], ys[j]), maxDetour));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package pathfinding.generator;
+
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphBuilder;
+
+/**
+ * Produces a synthetic graph. Generators are deterministic for a given seed,
+ * and every edge weight is at least the straight line distance between its
+ * endpoints, so the distance heuristic used by A* stays admissible.
+ */
+public interface GraphGenerator {
+
+    /**
+     * Adds the generated vertices & edges to a builder.
+     *
+     * @param builder builder to feed
+     */
+    void generate(GraphBuilder builder);
+
+    /**
+     * Generates a standalone graph.
+     *
+     * @return the graph
+     */
+    default CompactGraph generate() {
+        GraphBuilder builder = new GraphBuilder(expectedVertices(), expectedEdges());
+        generate(builder);
+        return builder.build();
+    }
+
+    /**
+     * Number of vertices the generator is expected to produce, used to size
+     * the builder up front.
+     *
+     * @return expected vertex count
+     */
+    int expectedVertices();
+
+    /**
+     * Number of edges the generator is expected to produce, used to size the
+     * builder up front.
+     *
+     * @return expected edge count
+     */
+    int expectedEdges();
+}
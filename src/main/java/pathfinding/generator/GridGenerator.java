@@ -0,0 +1,110 @@
+package pathfinding.generator;
+
+import pathfinding.engine.GraphBuilder;
+
+import java.util.SplittableRandom;
+
+/**
+ * Rectangular grid of cells, some of which are blocked by obstacles. Every
+ * free cell becomes a vertex connected to its free 4 or 8 neighbors; diagonal
+ * moves cost their true length.
+ */
+public class GridGenerator implements GraphGenerator {
+
+    public static final double DEFAULT_SPACING = 40.0;
+
+    private final int columns;
+    private final int rows;
+    private final double obstacleRatio;
+    private final boolean diagonals;
+    private final double spacing;
+    private final long seed;
+
+    /**
+     * @param columns number of columns
+     * @param rows number of rows
+     * @param obstacleRatio fraction of blocked cells, in [0, 1)
+     * @param diagonals whether cells are 8-connected instead of 4-connected
+     * @param seed random seed
+     */
+    public GridGenerator(int columns, int rows, double obstacleRatio,
+                         boolean diagonals, long seed) {
+        this(columns, rows, obstacleRatio, diagonals, DEFAULT_SPACING, seed);
+    }
+
+    public GridGenerator(int columns, int rows, double obstacleRatio,
+                         boolean diagonals, double spacing, long seed) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Invalid grid size " + columns + "x" + rows);
+        }
+        if (obstacleRatio < 0 || obstacleRatio >= 1) {
+            throw new IllegalArgumentException("Invalid obstacle ratio " + obstacleRatio);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.obstacleRatio = obstacleRatio;
+        this.diagonals = diagonals;
+        this.spacing = spacing;
+        this.seed = seed;
+    }
+
+    @Override
+    public int expectedVertices() {
+        return (int) Math.min(Integer.MAX_VALUE - 8, (long) columns * rows);
+    }
+
+    @Override
+    public int expectedEdges() {
+        long cells = (long) columns * rows;
+        return (int) Math.min(Integer.MAX_VALUE - 8, cells * (diagonals ? 4 : 2));
+    }
+
+    @Override
+    public void generate(GraphBuilder builder) {
+        SplittableRandom random = new SplittableRandom(seed);
+        // Index of the vertex in each cell, -1 for obstacles
+        int[] cells = new int[Math.multiplyExact(columns, rows)];
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < columns; ++col) {
+                int cell = row * columns + col;
+                if (random.nextDouble() < obstacleRatio) {
+                    cells[cell] = -1;
+                } else {
+                    cells[cell] = builder.addVertex(col * spacing, row * spacing,
+                        "r" + row + "c" + col);
+                }
+            }
+        }
+        double diagonal = Weights.distance(0, 0, spacing, spacing);
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < columns; ++col) {
+                int v = cells[row * columns + col];
+                if (v < 0) {
+                    continue;
+                }
+                boolean right = col + 1 < columns;
+                boolean down = row + 1 < rows;
+                if (right) {
+                    connect(builder, v, cells[row * columns + col + 1], spacing);
+                }
+                if (down) {
+                    connect(builder, v, cells[(row + 1) * columns + col], spacing);
+                }
+                if (diagonals && down) {
+                    if (right) {
+                        connect(builder, v, cells[(row + 1) * columns + col + 1], diagonal);
+                    }
+                    if (col > 0) {
+                        connect(builder, v, cells[(row + 1) * columns + col - 1], diagonal);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void connect(GraphBuilder builder, int v, int neighbor, double weight) {
+        if (neighbor >= 0) {
+            builder.connect(v, neighbor, weight);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package pathfinding.generator;
+
+import pathfinding.engine.GraphBuilder;
+import pathfinding.engine.UnionFind;
+
+import java.util.SplittableRandom;
+
+/**
+ * Planar, road-like network. Points on a jittered grid are triangulated by
+ * splitting every grid cell along a random diagonal, which gives a
+ * Delaunay-like triangulation without crossing edges. A random spanning tree
+ * keeps it connected, and the remaining candidate edges are thinned out to a
+ * road-like average degree. Every few rows & columns form arterial roads
+ * whose weights stay close to their lengths, while local streets take
+ * longer detours.
+ */
+public class RoadNetworkGenerator implements GraphGenerator {
+
+    public static final double DEFAULT_SPACING = 50.0;
+    public static final double DEFAULT_EXTRA_EDGES = 0.35;
+    public static final int ARTERIAL_INTERVAL = 8;
+
+    private static final double JITTER = 0.3;
+    private static final double ARTERIAL_DETOUR = 0.05;
+    private static final double LOCAL_DETOUR = 0.8;
+
+    private final int vertices;
+    private final double extraEdges;
+    private final double spacing;
+    private final long seed;
+
+    /**
+     * @param vertices approximate number of vertices (rounded to a square)
+     * @param seed random seed
+     */
+    public RoadNetworkGenerator(int vertices, long seed) {
+        this(vertices, DEFAULT_EXTRA_EDGES, DEFAULT_SPACING, seed);
+    }
+
+    /**
+     * @param vertices approximate number of vertices (rounded to a square)
+     * @param extraEdges fraction of non-tree candidate edges to keep, in [0, 1]
+     * @param spacing distance between neighboring grid points
+     * @param seed random seed
+     */
+    public RoadNetworkGenerator(int vertices, double extraEdges, double spacing, long seed) {
+        if (vertices <= 0 || extraEdges < 0 || extraEdges > 1) {
+            throw new IllegalArgumentException("Invalid road network parameters");
+        }
+        this.vertices = vertices;
+        this.extraEdges = extraEdges;
+        this.spacing = spacing;
+        this.seed = seed;
+    }
+
+    private int side() {
+        return Math.max(2, (int) Math.round(Math.sqrt(vertices)));
+    }
+
+    @Override
+    public int expectedVertices() {
+        return side() * side();
+    }
+
+    @Override
+    public int expectedEdges() {
+        long n = (long) side() * side();
+        return (int) Math.min(Integer.MAX_VALUE - 8, n + (long) (2 * n * extraEdges));
+    }
+
+    @Override
+    public void generate(GraphBuilder builder) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int side = side();
+        int n = side * side;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int first = builder.vertexCount();
+        for (int row = 0; row < side; ++row) {
+            for (int col = 0; col < side; ++col) {
+                int v = row * side + col;
+                xs[v] = (col + random.nextDouble(-JITTER, JITTER)) * spacing;
+                ys[v] = (row + random.nextDouble(-JITTER, JITTER)) * spacing;
+                builder.addVertex(xs[v], ys[v], "v" + v);
+            }
+        }
+
+        // Candidate edges: right, down & one diagonal per cell
+        int cells = (side - 1) * (side - 1);
+        int candidates = 2 * side * (side - 1) + cells;
+        int[] from = new int[candidates];
+        int[] to = new int[candidates];
+        int count = 0;
+        for (int row = 0; row < side; ++row) {
+            for (int col = 0; col < side; ++col) {
+                int v = row * side + col;
+                if (col + 1 < side) {
+                    from[count] = v;
+                    to[count++] = v + 1;
+                }
+                if (row + 1 < side) {
+                    from[count] = v;
+                    to[count++] = v + side;
+                }
+                if (col + 1 < side && row + 1 < side) {
+                    if (random.nextBoolean()) {
+                        from[count] = v;
+                        to[count++] = v + side + 1;
+                    } else {
+                        from[count] = v + 1;
+                        to[count++] = v + side;
+                    }
+                }
+            }
+        }
+
+        // Visit candidates in random order: tree edges are always kept, the
+        // rest only with the configured probability
+        int[] order = new int[count];
+        for (int i = 0; i < count; ++i) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        UnionFind components = new UnionFind(n);
+        for (int i = 0; i < count; ++i) {
+            int e = order[i];
+            int u = from[e];
+            int v = to[e];
+            boolean tree = components.union(u, v);
+            if (tree || random.nextDouble() < extraEdges) {
+                builder.connect(first + u, first + v, weight(random, side, xs, ys, u, v));
+            }
+        }
+    }
+
+    private static double weight(SplittableRandom random, int side, double[] xs, double[] ys,
+                                 int u, int v) {
+        boolean arterial = (u / side == v / side && (u / side) % ARTERIAL_INTERVAL == 0)
+            || (u % side == v % side && (u % side) % ARTERIAL_INTERVAL == 0);
+        double distance = Weights.distance(xs[u], ys[u], xs[v], ys[v]);
+        return Weights.stretched(random, distance, arterial ? ARTERIAL_DETOUR : LOCAL_DETOUR);
+    }
+}
@@ -0,0 +1,111 @@
+package pathfinding.generator;
+
+import pathfinding.engine.GraphBuilder;
+
+import java.util.SplittableRandom;
+
+/**
+ * Scale-free graph grown by preferential attachment (Barabási–Albert): each
+ * new vertex links to a few existing ones picked with probability
+ * proportional to their degree, producing a handful of high-degree hubs.
+ * Vertices are scattered over a square and weights are stretched lengths.
+ */
+public class ScaleFreeGenerator implements GraphGenerator {
+
+    public static final double DEFAULT_DENSITY = 1.0 / 2500.0;
+    public static final double DEFAULT_DETOUR = 0.5;
+
+    private final int vertices;
+    private final int edgesPerVertex;
+    private final double maxDetour;
+    private final long seed;
+
+    /**
+     * @param vertices number of vertices
+     * @param edgesPerVertex edges added with each new vertex
+     * @param seed random seed
+     */
+    public ScaleFreeGenerator(int vertices, int edgesPerVertex, long seed) {
+        this(vertices, edgesPerVertex, DEFAULT_DETOUR, seed);
+    }
+
+    public ScaleFreeGenerator(int vertices, int edgesPerVertex, double maxDetour, long seed) {
+        if (edgesPerVertex <= 0 || vertices <= edgesPerVertex || maxDetour < 0) {
+            throw new IllegalArgumentException("Invalid scale-free graph parameters");
+        }
+        this.vertices = vertices;
+        this.edgesPerVertex = edgesPerVertex;
+        this.maxDetour = maxDetour;
+        this.seed = seed;
+    }
+
+    @Override
+    public int expectedVertices() {
+        return vertices;
+    }
+
+    @Override
+    public int expectedEdges() {
+        long core = edgesPerVertex + 1;
+        return Math.toIntExact((vertices - core) * edgesPerVertex + core * (core - 1) / 2);
+    }
+
+    @Override
+    public void generate(GraphBuilder builder) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double side = Math.sqrt(vertices / DEFAULT_DENSITY);
+        double[] xs = new double[vertices];
+        double[] ys = new double[vertices];
+        int first = builder.vertexCount();
+        for (int i = 0; i < vertices; ++i) {
+            xs[i] = random.nextDouble() * side;
+            ys[i] = random.nextDouble() * side;
+            builder.addVertex(xs[i], ys[i], "v" + i);
+        }
+
+        // Every edge endpoint is recorded once, so a uniform pick from this
+        // array is a pick proportional to degree
+        int[] endpoints = new int[2 * expectedEdges()];
+        int endpointCount = 0;
+
+        // Seed with a small clique
+        int core = edgesPerVertex + 1;
+        for (int i = 0; i < core; ++i) {
+            for (int j = i + 1; j < core; ++j) {
+                connect(builder, random, xs, ys, first, i, j);
+                endpoints[endpointCount++] = i;
+                endpoints[endpointCount++] = j;
+            }
+        }
+        int[] targets = new int[edgesPerVertex];
+        for (int v = core; v < vertices; ++v) {
+            int picked = 0;
+            while (picked < edgesPerVertex) {
+                int target = endpoints[random.nextInt(endpointCount)];
+                if (!contains(targets, picked, target)) {
+                    targets[picked++] = target;
+                }
+            }
+            for (int k = 0; k < picked; ++k) {
+                connect(builder, random, xs, ys, first, v, targets[k]);
+                endpoints[endpointCount++] = v;
+                endpoints[endpointCount++] = targets[k];
+            }
+        }
+    }
+
+    private void connect(GraphBuilder builder, SplittableRandom random,
+                         double[] xs, double[] ys, int first, int u, int v) {
+        double distance = Weights.distance(xs[u], ys[u], xs[v], ys[v]);
+        builder.connect(first + u, first + v, Weights.stretched(random, distance, maxDetour));
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; ++i) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
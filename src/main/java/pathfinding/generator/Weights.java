@@ -0,0 +1,34 @@
+package pathfinding.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Edge weights derived from the layout, so they never undercut the
+ * straight line distance.
+ */
+final class Weights {
+
+    private static final double PRECISION = 10.0;
+
+    private Weights() { }
+
+    /**
+     * Stretches a distance by a random detour factor in {@code [1, 1 + maxDetour]}
+     * and rounds it up to one decimal.
+     *
+     * @param random source of randomness
+     * @param distance straight line distance between the endpoints
+     * @param maxDetour largest extra fraction added on top of the distance
+     * @return the weight, never below {@code distance}
+     */
+    static double stretched(SplittableRandom random, double distance, double maxDetour) {
+        double factor = maxDetour > 0 ? 1.0 + random.nextDouble(maxDetour) : 1.0;
+        return Math.max(Math.ceil(distance * factor * PRECISION) / PRECISION, distance);
+    }
+
+    static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,40 @@
+package pathfinding.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Loading a {@code .graph} file.
+ */
+@Name("pathfinding.GraphLoad")
+@Label("Graph Load")
+@Category({"Pathfinding", "File"})
+@Description("Parsing a graph file and building the adjacency arrays")
+public class GraphLoadEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Vertices")
+    public int vertices;
+
+    @Label("Edges")
+    public int edges;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseDuration;
+
+    @Label("Build Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long buildDuration;
+}
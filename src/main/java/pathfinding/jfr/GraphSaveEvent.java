@@ -0,0 +1,40 @@
+package pathfinding.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Saving a {@code .graph} file.
+ */
+@Name("pathfinding.GraphSave")
+@Label("Graph Save")
+@Category({"Pathfinding", "File"})
+@Description("Formatting a graph and writing it to a file")
+public class GraphSaveEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Vertices")
+    public int vertices;
+
+    @Label("Edges")
+    public int edges;
+
+    @Label("Format Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long formatDuration;
+
+    @Label("Flush Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long flushDuration;
+}
@@ -0,0 +1,42 @@
+package pathfinding.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One JavaFX pulse of the editor: the animation phase & the CSS & layout
+ * passes, timed separately, and the interval since the previous pulse. The
+ * event lasts from the animation phase to the end of layout. Rendering runs
+ * after layout on the render thread and is not timed on its own; the frame
+ * interval is what a whole frame, rendering included, costs. Disabled by
+ * default since pulses run up to 60 times per second during animations.
+ */
+@Name("pathfinding.Pulse")
+@Label("Editor Pulse")
+@Category({"Pathfinding", "Rendering"})
+@Description("Animation, CSS and layout work of one JavaFX pulse, and the interval since the previous one")
+@Enabled(false)
+@StackTrace(false)
+public class PulseEvent extends Event {
+
+    @Label("Animation")
+    @Description("From the start of the pulse to the CSS pass: animation timers & timelines")
+    @Timespan
+    public long animation;
+
+    @Label("CSS & Layout")
+    @Timespan
+    public long layout;
+
+    @Label("Frame Interval")
+    @Description("Time since the previous pulse started, rendering of the previous frame included; "
+        + "0 for the first pulse recorded")
+    @Timespan
+    public long frameInterval;
+}
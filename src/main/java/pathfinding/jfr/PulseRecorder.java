@@ -0,0 +1,103 @@
+package pathfinding.jfr;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+/**
+ * Emits a {@link PulseEvent} for every pulse of a scene while the event is
+ * enabled in a running recording.
+ *
+ * <p>An {@link AnimationTimer} opens the event during the animation phase of
+ * each pulse, with the pulse's start time, and the layout pulse listeners
+ * time the CSS & layout passes and commit it. A running timer makes JavaFX
+ * pulse every frame, so it only runs while a recording asks for the event;
+ * otherwise each pulse only pays for a null check.
+ */
+public final class PulseRecorder {
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            startPulse(now);
+        }
+    };
+    private boolean running;
+    private PulseEvent current;
+    private long pulseStart;
+    private long layoutStart;
+    // Start of the previous pulse recorded, 0 before the first one
+    private long previousPulseStart;
+
+    private PulseRecorder() { }
+
+    /**
+     * Starts recording the pulses of a scene whenever a recording enables
+     * the event.
+     *
+     * @param scene scene to record
+     */
+    public static void install(Scene scene) {
+        PulseRecorder recorder = new PulseRecorder();
+        scene.addPreLayoutPulseListener(recorder::preLayout);
+        scene.addPostLayoutPulseListener(recorder::postLayout);
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                Platform.runLater(recorder::update);
+            }
+        });
+        // Recordings started from the command line came first
+        recorder.update();
+    }
+
+    /**
+     * Runs the timer exactly while the event is enabled.
+     */
+    private void update() {
+        boolean enabled = new PulseEvent().isEnabled();
+        if (enabled == running) {
+            return;
+        }
+        running = enabled;
+        current = null;
+        previousPulseStart = 0;
+        if (enabled) {
+            timer.start();
+        } else {
+            timer.stop();
+        }
+    }
+
+    private void startPulse(long now) {
+        PulseEvent event = new PulseEvent();
+        event.begin();
+        event.frameInterval = previousPulseStart == 0 ? 0 : now - previousPulseStart;
+        previousPulseStart = now;
+        pulseStart = now;
+        current = event;
+    }
+
+    private void preLayout() {
+        if (current != null) {
+            layoutStart = System.nanoTime();
+        }
+    }
+
+    private void postLayout() {
+        PulseEvent event = current;
+        if (event == null) {
+            return;
+        }
+        current = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.animation = Math.max(0, layoutStart - pulseStart);
+            event.layout = System.nanoTime() - layoutStart;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package pathfinding.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Starts flight recordings with the pathfinding events switched on, for
+ * tools that want a recording without JVM flags.
+ */
+public final class Recordings {
+
+    private Recordings() { }
+
+    /**
+     * Starts a recording with the JDK's {@code default} settings plus every
+     * pathfinding event. The recording is dumped to the destination when it
+     * is stopped or closed.
+     *
+     * @param destination file to write the recording to
+     * @return the running recording
+     * @throws IOException error setting up the destination
+     */
+    public static Recording start(Path destination) throws IOException {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            throw new IOException("Invalid JFR configuration", e);
+        }
+        recording.enable(SearchEvent.class);
+        recording.enable(GraphLoadEvent.class);
+        recording.enable(GraphSaveEvent.class);
+        recording.enable(PulseEvent.class);
+        recording.setDestination(destination);
+        recording.setName("pathfinding");
+        recording.start();
+        return recording;
+    }
+}
@@ -0,0 +1,40 @@
+package pathfinding.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One path query, from the editor or the headless engine.
+ */
+@Name("pathfinding.Search")
+@Label("Search Query")
+@Category({"Pathfinding", "Search"})
+@Description("A single source to goal path query")
+@StackTrace(false)
+public class SearchEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Source")
+    public String source;
+
+    @Label("Goal")
+    public String goal;
+
+    @Label("Settled Vertices")
+    public long settled;
+
+    @Label("Relaxed Edges")
+    public long relaxed;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Cost")
+    public double cost;
+}
@@ -0,0 +1,83 @@
+package pathfinding.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters & latency histograms shared across threads. Callers on hot
+ * paths should look their metrics up once and keep the references; updating
+ * them afterwards is lock-free.
+ *
+ * <p>Names follow the Prometheus convention and may carry labels, e.g.
+ * {@code search_queries_total{method="astar"}}.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the registry the engine reports to.
+     *
+     * @return the global registry
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Resets every metric to zero, keeping the registered instances.
+     */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text format. Histograms are
+     * exported as summaries with a few quantiles, count, sum & max.
+     *
+     * @param out destination
+     * @throws IOException error writing to the destination
+     */
+    public void export(Appendable out) throws IOException {
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            out.append(entry.getKey()).append(' ')
+                .append(Long.toString(entry.getValue().sum())).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            String name = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            int brace = name.indexOf('{');
+            String base = brace < 0 ? name : name.substring(0, brace);
+            String labels = brace < 0 ? "" : name.substring(brace + 1, name.length() - 1);
+            for (double quantile : QUANTILES) {
+                out.append(base).append('{').append(labels)
+                    .append(labels.isEmpty() ? "" : ",")
+                    .append("quantile=\"").append(Double.toString(quantile)).append("\"} ")
+                    .append(Long.toString(histogram.percentile(quantile * 100))).append('\n');
+            }
+            String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+            out.append(base).append("_count").append(suffix).append(' ')
+                .append(Long.toString(histogram.count())).append('\n');
+            out.append(base).append("_sum").append(suffix).append(' ')
+                .append(Long.toString(histogram.sum())).append('\n');
+            out.append(base).append("_max").append(suffix).append(' ')
+                .append(Long.toString(histogram.max())).append('\n');
+        }
+    }
+}
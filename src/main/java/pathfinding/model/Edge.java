@@ -6,22 +6,44 @@ import pathfinding.ui.GraphNode;
 
 public class Edge {
 
+    private final int id;
     private final GraphNode ending;
     private final DoubleProperty weight;
     private final GraphConnection connection;
+    private boolean removed;
+    // Same connection seen from the other end
+    Edge reverse;
+    // Next edge between the same two nodes, in the graph's edge index
+    Edge nextParallel;
 
     public Edge(GraphNode ending, DoubleProperty weight) {
+        this.id = -1;
         this.ending = ending;
         this.weight = weight;
         this.connection = null;
     }
 
     public Edge(GraphNode ending, GraphConnection connection) {
+        this(-1, ending, connection);
+    }
+
+    public Edge(int id, GraphNode ending, GraphConnection connection) {
+        this.id = id;
         this.ending = ending;
         this.weight = connection.getWeightProperty();
         this.connection = connection;
     }
 
+    /**
+     * Returns the id of the connection, shared by both of its directions
+     * and never reused once the connection is removed.
+     *
+     * @return the id, -1 if not part of a graph
+     */
+    public int getId() {
+        return id;
+    }
+
     public GraphNode getEnding() {
         return ending;
     }
@@ -38,6 +60,21 @@ public class Edge {
         return connection;
     }
 
+    /**
+     * Returns whether the connection was removed from its graph. Removed
+     * edges linger in adjacency lists until the next compaction, but are
+     * never returned by the graph.
+     *
+     * @return true if removed
+     */
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    void markRemoved() {
+        removed = true;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
@@ -2,26 +2,45 @@ package pathfinding.model;
 
 import javafx.animation.SequentialTransition;
 
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.util.Duration;
 import pathfinding.animation.AnimationUtil;
+import pathfinding.engine.AllPairsIndex;
+import pathfinding.engine.AnytimeSearch;
+import pathfinding.engine.GraphBuilder;
+import pathfinding.engine.GraphSnapshot;
+import pathfinding.engine.GraphStore;
+import pathfinding.engine.HeuristicCalibration;
+import pathfinding.engine.Isochrone;
+import pathfinding.engine.KShortestPaths;
+import pathfinding.engine.PathResult;
+import pathfinding.engine.UnionFind;
+import pathfinding.engine.SearchMetrics;
+import pathfinding.engine.SearchWorkspace;
+import pathfinding.engine.SearchStats;
+import pathfinding.jfr.SearchEvent;
 import pathfinding.ui.GraphConnection;
 import pathfinding.ui.GraphNode;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class Graph {
 
     public static final class SearchMethods {
 
-        public static final String UCS = "Uniform Cost Search";
-        public static final String GREEDY = "Greedy Search";
-        public static final String A_STAR = "A* Search";
+        public static final String UCS = pathfinding.engine.SearchMethods.UCS;
+        public static final String GREEDY = pathfinding.engine.SearchMethods.GREEDY;
+        public static final String A_STAR = pathfinding.engine.SearchMethods.A_STAR;
 
         private SearchMethods() { }
     }
@@ -29,39 +48,457 @@ public class Graph {
     public static final class SearchResult {
         public final double cost;
         public final List<GraphNode> path;
+        public final SearchStats stats;
+        /**
+         * Proven upper bound on the cost divided by the optimal cost: 1 for
+         * an optimal path, infinite if the method proves nothing.
+         */
+        public final double bound;
 
         public SearchResult(double cost, List<GraphNode> path) {
+            this(cost, path, SearchStats.EMPTY);
+        }
+
+        public SearchResult(double cost, List<GraphNode> path, SearchStats stats) {
+            this(cost, path, stats, Double.POSITIVE_INFINITY);
+        }
+
+        public SearchResult(double cost, List<GraphNode> path, SearchStats stats, double bound) {
             this.cost = cost;
             this.path = path;
+            this.stats = stats;
+            this.bound = bound;
+        }
+    }
+
+    // Vertex or edge id in the builder, which changes as others are
+    // removed, a key that never does, plus the listener that mirrors edits
+    private static final class Mirror {
+        int id;
+        final int key;
+        final InvalidationListener listener;
+
+        Mirror(int id, int key, InvalidationListener listener) {
+            this.id = id;
+            this.key = key;
+            this.listener = listener;
+        }
+    }
+
+    // A batch of weight changes waiting for the JavaFX thread
+    private static final class WeightUpdate {
+        final long version;
+        final int[] edges;
+        final double[] weights;
+        final CompletableFuture<GraphSnapshot> applied = new CompletableFuture<>();
+
+        WeightUpdate(long version, int[] edges, double[] weights) {
+            this.version = version;
+            this.edges = edges;
+            this.weights = weights;
         }
     }
 
     private static final Duration PAUSE_DURATION = Duration.millis(800);
+    // Inflation dropped after every anytime search iteration
+    private static final double ANYTIME_STEP = 0.5;
 
-    // Implement graph using an adjacency list
+    // Implement graph using an adjacency list. Removed edges stay in their
+    // neighbors' lists as tombstones until those are compacted
     private final HashMap<GraphNode, ArrayList<Edge>> adjList;
+    // Edge from one node to another by their keys, for constant time lookup
+    private final HashMap<Long, Edge> edgeIndex = new HashMap<>();
+    private final HashSet<GraphNode> withTombstones = new HashSet<>();
+    private boolean compactionScheduled;
+    private int nextVertexKey;
+    private int nextEdgeKey;
+
+    // Every edit is mirrored into the builder, and the result published as
+    // an immutable snapshot at most once per pulse
+    private final GraphBuilder builder = new GraphBuilder();
+    private final GraphStore store = new GraphStore();
+    private final HashMap<GraphNode, Mirror> vertexMirrors = new HashMap<>();
+    private final ArrayList<GraphNode> vertexById = new ArrayList<>();
+    private final HashMap<GraphConnection, Mirror> edgeMirrors = new HashMap<>();
+    private final ArrayList<GraphConnection> edgeById = new ArrayList<>();
+    private boolean publishScheduled;
+    // Latest published version whose edge ids differ from the one before
+    private long topologyVersion;
+    // All-pairs table of the published snapshots, built on first use
+    private AllPairsIndex allPairs;
+    // Scale that keeps the pixel distance heuristic admissible, over the
+    // builder's edge ids
+    private final HeuristicCalibration calibration = new HeuristicCalibration();
+    // Vertices being dragged, whose edges are calibrated when dropped
+    private final HashSet<GraphNode> deferredCalibration = new HashSet<>();
+    // Connected components over the builder's vertex ids, null once a
+    // removal may have split one, until next needed
+    private UnionFind components = new UnionFind(0);
+    private boolean applyingUpdates;
+    private final ConcurrentLinkedQueue<WeightUpdate> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean updatesScheduled = new AtomicBoolean();
 
     public Graph() {
         adjList = new HashMap<>();
     }
 
     public GraphNode addVertex(GraphNode v) {
-        adjList.putIfAbsent(v, new ArrayList<>());
+        if (adjList.putIfAbsent(v, new ArrayList<>()) == null) {
+            InvalidationListener listener = observable -> {
+                int id = vertexMirrors.get(v).id;
+                builder.moveVertex(id, v.getLayoutX(), v.getLayoutY());
+                builder.renameVertex(id, v.getData());
+                if (!deferredCalibration.contains(v)) {
+                    calibrateEdges(v);
+                }
+                schedulePublish();
+            };
+            vertexMirrors.put(v, new Mirror(
+                builder.addVertex(v.getLayoutX(), v.getLayoutY(), v.getData()), nextVertexKey++,
+                listener));
+            vertexById.add(v);
+            if (components != null) {
+                components.add();
+            }
+            v.layoutXProperty().addListener(listener);
+            v.layoutYProperty().addListener(listener);
+            v.getDataProperty().addListener(listener);
+            schedulePublish();
+        }
         return v;
     }
 
     public void removeVertex(GraphNode v) {
         List<Edge> edges = adjList.remove(v);
+        withTombstones.remove(v);
+        deferredCalibration.remove(v);
+        Mirror mirror = vertexMirrors.get(v);
         for (Edge e : edges) {
-            adjList.get(e.getEnding()).remove(new Edge(v, e.getWeightProperty()));
+            if (e.isRemoved()) {
+                continue;
+            }
+            // Left in the neighbor's list, which is compacted later
+            GraphNode neighbor = e.getEnding();
+            e.markRemoved();
+            e.reverse.markRemoved();
+            int neighborKey = vertexMirrors.get(neighbor).key;
+            unindex(pairKey(mirror.key, neighborKey), e);
+            unindex(pairKey(neighborKey, mirror.key), e.reverse);
+            if (neighbor != v) {
+                withTombstones.add(neighbor);
+            }
+            removeMirroredEdge(e.getConnection());
+        }
+        scheduleCompaction();
+        vertexMirrors.remove(v);
+        v.layoutXProperty().removeListener(mirror.listener);
+        v.layoutYProperty().removeListener(mirror.listener);
+        v.getDataProperty().removeListener(mirror.listener);
+        // The builder moves its last vertex into the freed id
+        int moved = builder.removeVertex(mirror.id);
+        GraphNode last = vertexById.remove(vertexById.size() - 1);
+        if (moved >= 0) {
+            vertexById.set(mirror.id, last);
+            vertexMirrors.get(last).id = mirror.id;
         }
+        // Removing a vertex can split its component, which union-find
+        // can't undo; the components are found again when next asked for,
+        // once for any number of removals
+        components = null;
+        schedulePublish();
     }
 
     public void connectVertices(GraphNode v1, GraphNode v2, GraphConnection connection) {
         addVertex(v1);
         addVertex(v2);
-        adjList.get(v1).add(new Edge(v2, connection));
-        adjList.get(v2).add(new Edge(v1, connection));
+        int key = nextEdgeKey++;
+        Edge forward = new Edge(key, v2, connection);
+        Edge backward = new Edge(key, v1, connection);
+        forward.reverse = backward;
+        backward.reverse = forward;
+        adjList.get(v1).add(forward);
+        adjList.get(v2).add(backward);
+        int key1 = vertexMirrors.get(v1).key;
+        int key2 = vertexMirrors.get(v2).key;
+        index(pairKey(key1, key2), forward);
+        index(pairKey(key2, key1), backward);
+
+        InvalidationListener listener = observable -> {
+            if (!applyingUpdates) {
+                int id = edgeMirrors.get(connection).id;
+                try {
+                    builder.setWeight(id, connection.getWeight());
+                } catch (IllegalArgumentException e) {
+                    // Negative, infinite or NaN: back to the last valid
+                    // weight, which notifies this listener again
+                    connection.getWeightProperty().set(builder.weight(id));
+                    return;
+                }
+                schedulePublish();
+            }
+            calibrate(connection);
+        };
+        edgeMirrors.put(connection, new Mirror(
+            builder.connect(vertexMirrors.get(v1).id, vertexMirrors.get(v2).id,
+                connection.getWeight()),
+            key, listener));
+        edgeById.add(connection);
+        calibrate(connection);
+        if (components != null) {
+            components.union(vertexMirrors.get(v1).id, vertexMirrors.get(v2).id);
+        }
+        connection.getWeightProperty().addListener(listener);
+        schedulePublish();
+    }
+
+    private static long pairKey(int from, int to) {
+        return (long) from << 32 | (to & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds an edge to the index. Parallel edges are chained behind the
+     * first one, so lookups still find an edge after one of them goes.
+     */
+    private void index(long key, Edge edge) {
+        Edge first = edgeIndex.putIfAbsent(key, edge);
+        if (first != null) {
+            edge.nextParallel = first.nextParallel;
+            first.nextParallel = edge;
+        }
+    }
+
+    private void unindex(long key, Edge edge) {
+        Edge first = edgeIndex.get(key);
+        if (first == edge) {
+            if (edge.nextParallel == null) {
+                edgeIndex.remove(key);
+            } else {
+                edgeIndex.put(key, edge.nextParallel);
+            }
+            return;
+        }
+        for (Edge e = first; e != null; e = e.nextParallel) {
+            if (e.nextParallel == edge) {
+                e.nextParallel = edge.nextParallel;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the tombstones of removed edges from the adjacency lists on
+     * the next pulse, rather than searching a list on every removal.
+     */
+    private void scheduleCompaction() {
+        if (!compactionScheduled && !withTombstones.isEmpty()) {
+            compactionScheduled = true;
+            Platform.runLater(() -> {
+                compactionScheduled = false;
+                for (GraphNode v : withTombstones) {
+                    adjList.get(v).removeIf(Edge::isRemoved);
+                }
+                withTombstones.clear();
+            });
+        }
+    }
+
+    /**
+     * Returns whether there is a path between two vertices, in constant
+     * time, apart from the first call after a vertex is removed.
+     *
+     * @param from first vertex
+     * @param to second vertex
+     * @return true if both are in the graph & connected
+     */
+    public boolean isReachable(GraphNode from, GraphNode to) {
+        Mirror a = vertexMirrors.get(from);
+        Mirror b = vertexMirrors.get(to);
+        if (a == null || b == null) {
+            return false;
+        }
+        if (components == null) {
+            components = new UnionFind(vertexById.size());
+            for (GraphConnection connection : edgeById) {
+                components.union(vertexMirrors.get(connection.getNode1()).id,
+                    vertexMirrors.get(connection.getNode2()).id);
+            }
+        }
+        return components.connected(a.id, b.id);
+    }
+
+    /**
+     * Returns the store the graph publishes its snapshots to. Any thread can
+     * read the latest snapshot from it without locking.
+     *
+     * @return the snapshot store
+     */
+    public GraphStore getStore() {
+        return store;
+    }
+
+    /**
+     * Publishes any pending edits and returns the latest snapshot. Must be
+     * called on the JavaFX application thread.
+     *
+     * @return the latest snapshot
+     */
+    public GraphSnapshot snapshot() {
+        if (publishScheduled) {
+            publish();
+        }
+        return store.current();
+    }
+
+    /**
+     * Changes the weights of many edges in one step, e.g. from a traffic
+     * feed. Can be called from any thread: the batch is applied on the
+     * JavaFX thread together with every other batch that arrived since the
+     * last pulse, so labels & listeners see one round of changes, and each
+     * batch is published as a single snapshot whose
+     * {@link GraphSnapshot#changedEdges} lists its edges. A batch with an
+     * invalid edge id, or a weight that is negative, infinite or NaN, is
+     * rejected as a whole. So is a batch whose ids no longer mean the same
+     * edges: removing a vertex or an edge renumbers them, so if vertices or
+     * edges were added or removed since {@code version}, the future fails
+     * with an {@link IllegalStateException} and the batch must be rebuilt
+     * against a newer snapshot.
+     *
+     * @param version version of the snapshot the edge ids come from
+     * @param edges edge ids, as numbered in that snapshot
+     * @param weights new weight of each edge
+     * @return completes with the snapshot containing the new weights
+     */
+    public CompletableFuture<GraphSnapshot> updateWeights(long version, int[] edges, double[] weights) {
+        if (edges.length != weights.length) {
+            throw new IllegalArgumentException(
+                edges.length + " edges but " + weights.length + " weights");
+        }
+        if (version > store.version()) {
+            throw new IllegalArgumentException(
+                "Version " + version + " has not been published, latest is " + store.version());
+        }
+        WeightUpdate update = new WeightUpdate(version, edges.clone(), weights.clone());
+        pendingUpdates.add(update);
+        if (updatesScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::applyWeightUpdates);
+        }
+        return update.applied;
+    }
+
+    private void applyWeightUpdates() {
+        updatesScheduled.set(false);
+        WeightUpdate update;
+        while ((update = pendingUpdates.poll()) != null) {
+            if (builder.isTopologyChanged() || topologyVersion > update.version) {
+                update.applied.completeExceptionally(new IllegalStateException(
+                    "Edge ids of version " + update.version + " are stale, vertices or edges were "
+                    + "added or removed since"));
+                continue;
+            }
+            try {
+                builder.setWeights(update.edges, update.weights);
+            } catch (IllegalArgumentException e) {
+                update.applied.completeExceptionally(e);
+                continue;
+            }
+            // The builder already has the weights, so the mirror listeners
+            // can skip them
+            applyingUpdates = true;
+            try {
+                for (int i = 0; i < update.edges.length; ++i) {
+                    edgeById.get(update.edges[i]).getWeightProperty().set(update.weights[i]);
+                }
+            } finally {
+                applyingUpdates = false;
+            }
+            update.applied.complete(publish());
+        }
+    }
+
+    private void removeMirroredEdge(GraphConnection connection) {
+        Mirror mirror = edgeMirrors.remove(connection);
+        if (mirror == null) {
+            return;
+        }
+        connection.getWeightProperty().removeListener(mirror.listener);
+        // The builder moves its last edge into the freed id
+        int moved = builder.removeEdge(mirror.id);
+        GraphConnection last = edgeById.remove(edgeById.size() - 1);
+        calibration.remove(mirror.id);
+        if (moved >= 0) {
+            edgeById.set(mirror.id, last);
+            edgeMirrors.get(last).id = mirror.id;
+            calibration.remove(moved);
+            calibrate(last);
+        }
+    }
+
+    private void calibrateEdges(GraphNode v) {
+        for (Edge edge : getEdges(v)) {
+            calibrate(edge.getConnection());
+        }
+    }
+
+    /**
+     * Stops or resumes recalibrating the heuristic as a vertex moves. While
+     * a vertex with many edges is dragged, this saves updating the ratio of
+     * every one of them on every move; they are updated once it resumes, or
+     * when the scale is next needed.
+     *
+     * @param v vertex
+     * @param deferred whether to wait until the vertex stops moving
+     */
+    public void setCalibrationDeferred(GraphNode v, boolean deferred) {
+        if (deferred) {
+            if (adjList.containsKey(v)) {
+                deferredCalibration.add(v);
+            }
+        } else if (deferredCalibration.remove(v)) {
+            calibrateEdges(v);
+        }
+    }
+
+    private void calibrateDeferred() {
+        for (GraphNode v : deferredCalibration) {
+            calibrateEdges(v);
+        }
+    }
+
+    private void calibrate(GraphConnection connection) {
+        calibration.set(edgeMirrors.get(connection).id, connection.getWeight(),
+            connection.getNode1().distance(connection.getNode2()));
+    }
+
+    /**
+     * Returns the factor that keeps the distance heuristic of A* admissible:
+     * the lowest weight to length ratio over all connections, kept up to
+     * date as nodes move & weights change.
+     *
+     * @return the scale, 0 if no connection has a length
+     */
+    public double getHeuristicScale() {
+        calibrateDeferred();
+        return calibration.scale();
+    }
+
+    private void schedulePublish() {
+        if (!publishScheduled) {
+            publishScheduled = true;
+            Platform.runLater(() -> {
+                if (publishScheduled) {
+                    publish();
+                }
+            });
+        }
+    }
+
+    private GraphSnapshot publish() {
+        publishScheduled = false;
+        GraphSnapshot snapshot = store.publish(builder);
+        if (!snapshot.isSameTopology()) {
+            topologyVersion = snapshot.version;
+        }
+        return snapshot;
     }
 
     public Set<GraphNode> getVertices() {
@@ -69,20 +506,169 @@ public class Graph {
     }
 
     public ArrayList<Edge> getEdges(GraphNode v) {
-        return adjList.getOrDefault(v, new ArrayList<>());
+        ArrayList<Edge> edges = adjList.get(v);
+        if (edges == null) {
+            return new ArrayList<>();
+        }
+        // Compacted early if asked for before the scheduled compaction
+        if (withTombstones.remove(v)) {
+            edges.removeIf(Edge::isRemoved);
+        }
+        return edges;
     }
 
+    /**
+     * Returns an edge between two nodes in constant time.
+     *
+     * @param from first node
+     * @param to second node
+     * @return the edge from {@code from} whose ending is {@code to}, or null
+     *     if they aren't connected
+     */
     public Edge getEdge(GraphNode from, GraphNode to) {
         if (from == null || to == null) {
             return null;
         }
-        var edges = getEdges(from);
-        for (Edge edge : edges) {
-            if (edge.getEnding().equals(to)) {
-                return edge;
+        Mirror a = vertexMirrors.get(from);
+        Mirror b = vertexMirrors.get(to);
+        return a == null || b == null ? null : edgeIndex.get(pairKey(a.key, b.key));
+    }
+
+    /**
+     * Finds up to {@code k} shortest loopless paths between two nodes,
+     * cheapest first, on the latest snapshot. Nothing is animated.
+     *
+     * @param source start node
+     * @param goalNode goal node
+     * @param k maximum number of paths, at least 1
+     * @return the paths, empty if the goal is unreachable
+     */
+    public List<SearchResult> kShortestPaths(GraphNode source, GraphNode goalNode, int k) {
+        Mirror from = source == null ? null : vertexMirrors.get(source);
+        Mirror to = goalNode == null ? null : vertexMirrors.get(goalNode);
+        if (from == null || to == null) {
+            throw new IllegalArgumentException(
+                "Invalid arguments for k shortest paths. Source: " + source + " | Goal: " + goalNode);
+        }
+        // Publishing first makes the snapshot's ids match the mirrors
+        GraphSnapshot snapshot = snapshot();
+        List<SearchResult> results = new ArrayList<>();
+        for (PathResult result : KShortestPaths.find(snapshot.graph, from.id, to.id, k)) {
+            List<GraphNode> path = new ArrayList<>(result.path.length);
+            for (int v : result.path) {
+                path.add(vertexById.get(v));
+            }
+            results.add(new SearchResult(result.cost, path, result.stats));
+        }
+        return results;
+    }
+
+    /**
+     * Finds the cheapest path between two nodes from an all-pairs table of
+     * the latest snapshot, rebuilt in the background after every edit. Until
+     * the table catches up, the snapshot is searched instead. Nothing is
+     * animated.
+     *
+     * @param source start node
+     * @param goalNode goal node
+     * @return the path, empty if the goal is unreachable
+     */
+    public SearchResult tablePath(GraphNode source, GraphNode goalNode) {
+        Mirror from = source == null ? null : vertexMirrors.get(source);
+        Mirror to = goalNode == null ? null : vertexMirrors.get(goalNode);
+        if (from == null || to == null) {
+            throw new IllegalArgumentException(
+                "Invalid arguments for table search. Source: " + source + " | Goal: " + goalNode);
+        }
+        // Publishing first makes the snapshot's ids match the mirrors
+        snapshot();
+        if (allPairs == null) {
+            allPairs = new AllPairsIndex(store);
+        }
+        PathResult result = allPairs.search(from.id, to.id);
+        List<GraphNode> path = new ArrayList<>(result.path.length);
+        for (int v : result.path) {
+            path.add(vertexById.get(v));
+        }
+        return new SearchResult(result.cost, path, result.stats);
+    }
+
+    /**
+     * Runs an anytime A* search (ARA*) on the latest snapshot in the
+     * background. The first path costs at most {@code epsilon} times the
+     * optimal one; better paths follow as the inflation shrinks, each with
+     * its proven {@link SearchResult#bound}, until one is optimal.
+     * Cancelling the returned future stops the search.
+     *
+     * @param source start node
+     * @param goalNode goal node
+     * @param epsilon initial inflation, at least 1
+     * @param onSolution called on the JavaFX thread with every improved path
+     * @return completes with the optimal path
+     */
+    public CompletableFuture<SearchResult> searchAnytime(GraphNode source, GraphNode goalNode,
+                                                         double epsilon,
+                                                         Consumer<SearchResult> onSolution) {
+        Mirror from = source == null ? null : vertexMirrors.get(source);
+        Mirror to = goalNode == null ? null : vertexMirrors.get(goalNode);
+        if (from == null || to == null || !(epsilon >= 1.0)) {
+            throw new IllegalArgumentException(
+                "Invalid arguments for anytime search. Source: " + source + " | Goal: " + goalNode
+                    + " | Epsilon: " + epsilon);
+        }
+        GraphSnapshot snapshot = snapshot();
+        GraphNode[] nodes = vertexById.toArray(new GraphNode[0]);
+        CompletableFuture<SearchResult> done = new CompletableFuture<>();
+        Thread worker = new Thread(() -> {
+            AnytimeSearch.Solution last = AnytimeSearch.search(snapshot.graph, from.id, to.id,
+                epsilon, ANYTIME_STEP, solution -> {
+                    SearchResult result = toSearchResult(solution, nodes);
+                    Platform.runLater(() -> {
+                        if (!done.isCancelled()) {
+                            onSolution.accept(result);
+                        }
+                    });
+                });
+            done.complete(toSearchResult(last, nodes));
+        }, "anytime-search");
+        worker.setDaemon(true);
+        done.whenComplete((result, error) -> worker.interrupt());
+        worker.start();
+        return done;
+    }
+
+    private static SearchResult toSearchResult(AnytimeSearch.Solution solution, GraphNode[] nodes) {
+        List<GraphNode> path = new ArrayList<>(solution.result.path.length);
+        for (int v : solution.result.path) {
+            path.add(nodes[v]);
+        }
+        return new SearchResult(solution.result.cost, path, solution.result.stats, solution.bound);
+    }
+
+    /**
+     * Finds every node within a cost budget of a source on the latest
+     * snapshot, split into bands by the thresholds.
+     *
+     * @param source start node
+     * @param thresholds band limits, non-negative & increasing; the last one
+     *     is the budget
+     * @return the nodes of every band, cheapest first
+     */
+    public List<List<GraphNode>> reachableBands(GraphNode source, double... thresholds) {
+        Mirror from = source == null ? null : vertexMirrors.get(source);
+        if (from == null) {
+            throw new IllegalArgumentException("Invalid source for reachability: " + source);
+        }
+        Isochrone isochrone = Isochrone.compute(snapshot().graph, from.id, thresholds);
+        List<List<GraphNode>> bands = new ArrayList<>(isochrone.bandCount());
+        for (int band = 0; band < isochrone.bandCount(); ++band) {
+            List<GraphNode> nodes = new ArrayList<>(isochrone.bandEnd(band) - isochrone.bandStart(band));
+            for (int i = isochrone.bandStart(band); i < isochrone.bandEnd(band); ++i) {
+                nodes.add(vertexById.get(isochrone.vertices[i]));
             }
+            bands.add(nodes);
         }
-        return null;
+        return bands;
     }
 
     public SearchResult search(GraphNode source, GraphNode goalNode,
@@ -91,125 +677,195 @@ public class Graph {
             throw new IllegalArgumentException(
                 "Invalid arguments for UCS. Source: " + source + " | Goal: " + goalNode);
         }
-        SequentialTransition animation = new SequentialTransition();
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        if (!isReachable(source, goalNode)) {
+            // Different components, no need to explore the source's one
+            SearchStats stats = new SearchStats(0, 0, 0, 0, 0, 0,
+                System.nanoTime() - startNanos, 0);
+            SearchMetrics.record(method, stats, false);
+            if (event.shouldCommit()) {
+                event.method = method;
+                event.source = source.getData();
+                event.goal = goalNode.getData();
+                event.found = false;
+                event.cost = Double.POSITIVE_INFINITY;
+                event.commit();
+            }
+            return new SearchResult(Double.POSITIVE_INFINITY, new ArrayList<>(), stats);
+        }
+        long startBytes = SearchStats.allocatedBytes();
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 0;
+        long pops = 0;
+        long decreaseKeys = 0;
+        int peakFrontier = 0;
 
-        HashMap<GraphNode, Double> currentPathDist = new HashMap<>();
-        HashMap<GraphNode, Double> heuristic = new HashMap<>();
-        HashMap<GraphNode, GraphNode> parent = new HashMap<>();
+        SequentialTransition animation = new SequentialTransition();
 
-        // Change comparator depending on search method
-        Comparator<GraphNode> comparator;
+        boolean useCost;
+        boolean useHeuristic;
         switch (method) {
             case SearchMethods.UCS:
                 // Only use g(x) - path cost
-                comparator = Comparator.comparingDouble(
-                    currentPathDist::get
-                );
+                useCost = true;
+                useHeuristic = false;
                 break;
             case SearchMethods.GREEDY:
                 // Only use h(x) - heuristic
-                comparator = Comparator.comparingDouble(
-                    heuristic::get
-                );
+                useCost = false;
+                useHeuristic = true;
                 break;
             case SearchMethods.A_STAR:
                 // Use both g(x) & h(x)
-                comparator = Comparator.comparingDouble(
-                    (o) -> currentPathDist.get(o) + heuristic.get(o)
-                );
+                useCost = true;
+                useHeuristic = true;
                 break;
             default:
                 throw new IllegalArgumentException("Invalid search method " + method);
         }
-        PriorityQueue<GraphNode> queue = new PriorityQueue<>(comparator);
-
-        // Add initial node to the queue
-        currentPathDist.put(source, 0.0);
-        queue.add(source);
-
-        Set<GraphNode> explored = new HashSet<>();
-        GraphNode goal = null;
-        while (!queue.isEmpty()) {
-            GraphNode current = queue.poll();
-            animation.getChildren().addAll(
-                current.makeCurrentTransition(),
-                AnimationUtil.pause(PAUSE_DURATION)
-            );
-            // The goal has been reached! (Lowest priority in the queue)
-            if (current.equals(goalNode)) {
-                // If the goal does not have a proper cost, the goal is
-                // unreachable
-                if (currentPathDist.getOrDefault(current, Double.POSITIVE_INFINITY)
-                    != Double.POSITIVE_INFINITY) {
-                    goal = current;
+        // A* needs a heuristic that never overestimates; greedy search only
+        // compares heuristics, so any scale gives the same order
+        double heuristicScale = method.equals(SearchMethods.A_STAR) ? getHeuristicScale() : 1.0;
+
+        List<GraphNode> pathNodes = new ArrayList<>();
+        List<Edge> pathEdges = new ArrayList<>();
+        double cost = Double.POSITIVE_INFINITY;
+        // Costs, parents & the frontier over the builder's vertex ids, in
+        // pooled arrays rather than maps
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(vertexById.size())) {
+            // Add initial node to the queue
+            int sourceId = vertexMirrors.get(source).id;
+            int goalId = vertexMirrors.get(goalNode).id;
+            workspace.reach(sourceId, 0.0, SearchWorkspace.NONE, SearchWorkspace.NONE);
+            workspace.insertOrDecrease(sourceId, 0.0);
+            ++pushes;
+            peakFrontier = 1;
+
+            int goal = SearchWorkspace.NONE;
+            while (!workspace.isQueueEmpty()) {
+                int currentId = workspace.poll();
+                GraphNode current = vertexById.get(currentId);
+                ++pops;
+                animation.getChildren().addAll(
+                    current.makeCurrentTransition(),
+                    AnimationUtil.pause(PAUSE_DURATION)
+                );
+                // The goal has been reached! (Lowest priority in the queue)
+                if (currentId == goalId) {
+                    goal = currentId;
                     animation.getChildren().addAll(
                         current.makeGoalTransition(),
                         AnimationUtil.pause(PAUSE_DURATION)
                     );
+                    break;
                 }
-                break;
-            }
-            // Add the current node to the explored list
-            explored.add(current);
-            // Loop through all the edges
-            for (Edge edge : getEdges(current)) {
-                animation.getChildren().addAll(
-                    edge.getConnection().makeHighlightTransition(),
-                    AnimationUtil.pause(PAUSE_DURATION)
-                );
-                GraphNode neighbor = edge.getEnding();
-                // Only expand unexplored nodes
-                if (!explored.contains(neighbor)) {
+                // Add the current node to the explored list
+                workspace.settle(currentId);
+                ++settled;
+                double currentDist = workspace.dist(currentId);
+                // Loop through all the edges
+                for (Edge edge : getEdges(current)) {
+                    animation.getChildren().addAll(
+                        edge.getConnection().makeHighlightTransition(),
+                        AnimationUtil.pause(PAUSE_DURATION)
+                    );
+                    GraphNode neighbor = edge.getEnding();
+                    int neighborId = vertexMirrors.get(neighbor).id;
+                    // Only expand unexplored nodes
+                    if (workspace.isSettled(neighborId)) {
+                        continue;
+                    }
+                    ++relaxed;
                     animation.getChildren().addAll(
                         neighbor.makeFringeTransition(),
                         AnimationUtil.pause(PAUSE_DURATION)
                     );
                     // Current cost + edge cost
-                    double newDist = currentPathDist.getOrDefault(current,
-                        Double.POSITIVE_INFINITY) + edge.getWeight();
-                    // Previous lowest cost through the node
-                    double currentDist = currentPathDist.getOrDefault(neighbor,
-                        Double.POSITIVE_INFINITY);
+                    double newDist = currentDist + edge.getWeight();
                     // If a shorter distance is found...
-                    if (newDist < currentDist) {
+                    if (newDist < workspace.dist(neighborId)) {
                         // Update the new shorter distance
-                        currentPathDist.put(neighbor, newDist);
-                        heuristic.put(neighbor, neighbor.distance(goalNode));
-                        parent.put(neighbor, current);
-                        queue.add(neighbor);
+                        workspace.reach(neighborId, newDist, currentId,
+                            edgeMirrors.get(edge.getConnection()).id);
+                        double priority = useCost ? newDist : 0.0;
+                        if (useHeuristic) {
+                            if (!workspace.hasHeuristic(neighborId)) {
+                                workspace.setHeuristic(neighborId,
+                                    heuristicScale * neighbor.distance(goalNode));
+                            }
+                            priority += workspace.heuristic(neighborId);
+                        }
+                        int queued = workspace.insertOrDecrease(neighborId, priority);
+                        if (queued == SearchWorkspace.INSERTED) {
+                            ++pushes;
+                            peakFrontier = Math.max(peakFrontier, workspace.queueSize());
+                        } else if (queued == SearchWorkspace.DECREASED) {
+                            // Already queued, moved up with the lower cost
+                            ++decreaseKeys;
+                        }
                     }
                 }
             }
-        }
-        // Reconstruct path
-        List<GraphNode> pathNodes = new ArrayList<>();
-        List<Edge> pathEdges = new ArrayList<>();
-        double cost = currentPathDist.get(goalNode);
-        GraphNode prev = null;
-        while (goal != null) {
-            pathNodes.add(0, goal);
-            Edge edge = getEdge(goal, prev);
-            if (edge != null) {
-                pathEdges.add(edge);
+            // Reconstruct path, walking the parents back from the goal
+            if (goal != SearchWorkspace.NONE) {
+                cost = workspace.dist(goal);
+            }
+            for (int v = goal; v != SearchWorkspace.NONE; v = workspace.parent(v)) {
+                GraphNode node = vertexById.get(v);
+                pathNodes.add(node);
+                if (workspace.parent(v) != SearchWorkspace.NONE) {
+                    pathEdges.add(edgeTo(vertexById.get(workspace.parent(v)), node,
+                        edgeById.get(workspace.parentEdge(v))));
+                }
             }
-            prev = goal;
-            goal = parent.get(goal);
         }
+        Collections.reverse(pathNodes);
+        Collections.reverse(pathEdges);
         animation.getChildren().add(
             AnimationUtil.path(pathNodes, pathEdges)
         );
         // Finally play the animations that were queued up
         animation.play();
 
-        System.out.println("Cost: " + cost);
-        System.out.println("Path: " + pathNodes);
-        return new SearchResult(cost, pathNodes);
+        long endBytes = SearchStats.allocatedBytes();
+        SearchStats stats = new SearchStats(settled, relaxed, pushes, pops, decreaseKeys,
+            peakFrontier, System.nanoTime() - startNanos,
+            startBytes < 0 ? -1 : endBytes - startBytes);
+        SearchMetrics.record(method, stats, !pathNodes.isEmpty());
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.source = source.getData();
+            event.goal = goalNode.getData();
+            event.settled = settled;
+            event.relaxed = relaxed;
+            event.found = !pathNodes.isEmpty();
+            event.cost = cost;
+            event.commit();
+        }
+        // Greedy search is the only method that may miss the optimal path
+        return new SearchResult(cost, pathNodes, stats,
+            method.equals(SearchMethods.GREEDY) ? Double.POSITIVE_INFINITY : 1.0);
+    }
+
+    /**
+     * Returns the edge of a connection leaving one node for another, among
+     * the edges between them.
+     */
+    private Edge edgeTo(GraphNode from, GraphNode to, GraphConnection connection) {
+        Edge edge = getEdge(from, to);
+        while (edge.getConnection() != connection) {
+            edge = edge.nextParallel;
+        }
+        return edge;
     }
 
     public void print() {
         for (var entry : adjList.entrySet()) {
             System.out.print(entry.getKey() + ": ");
-            System.out.println(entry.getValue());
+            System.out.println(getEdges(entry.getKey()));
         }
     }
 }
@@ -4,12 +4,15 @@ import javafx.beans.property.DoubleProperty;
 import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphBuilder;
+import pathfinding.engine.GraphFiles;
+import pathfinding.engine.VertexOrder;
 import pathfinding.ui.GraphConnection;
 import pathfinding.ui.GraphNode;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
@@ -80,13 +83,7 @@ public class GraphCanvas {
      * @return connected or not
      */
     public boolean areConnected(GraphNode node1, GraphNode node2) {
-        List<Edge> edges = graph.getEdges(node1);
-        for (Edge edge : edges) {
-            if (edge.getEnding().equals(node2)) {
-                return true;
-            }
-        }
-        return false;
+        return graph.getEdge(node1, node2) != null;
     }
 
     /**
@@ -111,54 +108,90 @@ public class GraphCanvas {
     }
 
     /**
-     * Saves the graph to a file
+     * Colors the nodes & connections along a path
+     *
+     * @param path nodes of the path, in order
+     * @param color color to use
+     */
+    public void highlightPath(List<GraphNode> path, Color color) {
+        for (int i = 0; i < path.size(); ++i) {
+            path.get(i).setColor(color, Color.BLACK);
+            if (i > 0) {
+                Edge edge = graph.getEdge(path.get(i - 1), path.get(i));
+                if (edge != null) {
+                    edge.getConnection().setLineColor(color);
+                }
+            }
+        }
+    }
+
+    /**
+     * Colors reachable nodes by band, from red for the nearest to blue for
+     * the farthest. A connection takes the color of its farther end, and is
+     * left alone if either end is out of reach.
+     *
+     * @param bands nodes of every band, nearest first
+     */
+    public void showHeatOverlay(List<List<GraphNode>> bands) {
+        Color[] colors = new Color[bands.size()];
+        HashMap<GraphNode, Integer> bandOf = new HashMap<>();
+        for (int band = 0; band < bands.size(); ++band) {
+            colors[band] = Color.RED.interpolate(Color.DEEPSKYBLUE,
+                bands.size() == 1 ? 0.0 : (double) band / (bands.size() - 1));
+            for (GraphNode node : bands.get(band)) {
+                node.setColor(colors[band], Color.BLACK);
+                bandOf.put(node, band);
+            }
+        }
+        for (var entry : bandOf.entrySet()) {
+            for (Edge edge : graph.getEdges(entry.getKey())) {
+                Integer other = bandOf.get(edge.getEnding());
+                // Seen from both ends, so only color it from the nearer one
+                if (other != null && other >= entry.getValue()) {
+                    edge.getConnection().setLineColor(colors[other]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the graph to a file, with the vertices ordered along a Hilbert
+     * curve so that nearby nodes get nearby ids when it is loaded again
      * @param file file to save to
      * @throws IOException error saving the file
      */
     public void saveToFile(File file) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+        CompactGraph graph = toCompactGraph();
+        GraphFiles.write(VertexOrder.hilbert(graph).apply(graph), file);
+    }
+
+    /**
+     * Copies the nodes & connections on the canvas into a headless graph.
+     * Vertices are numbered in the order the nodes appear on the canvas.
+     *
+     * @return the headless graph
+     */
+    public CompactGraph toCompactGraph() {
+        GraphBuilder builder = new GraphBuilder();
         HashMap<GraphNode, Integer> indexMapping = new HashMap<>();
-        HashMap<Integer, StringBuilder> lineMapping = new HashMap<>();
-        int vertexCount = 0;
         ObservableList<Node> nodes = canvas.getChildrenUnmodifiable();
         for (Node child : nodes) {
             if (child.getClass() == GraphNode.class) {
                 GraphNode node = (GraphNode) child;
-                indexMapping.put(node, vertexCount);
-                ++vertexCount;
-                writer.write(String.valueOf(node.getLayoutX()));
-                writer.write(',');
-                writer.write(String.valueOf(node.getLayoutY()));
-                writer.write(',');
-                writer.write(String.valueOf(node.getData()));
-                writer.write('|');
+                indexMapping.put(node,
+                    builder.addVertex(node.getLayoutX(), node.getLayoutY(), node.getData()));
             }
         }
-        writer.newLine();
         for (Node child : nodes) {
             if (child.getClass() == GraphConnection.class) {
                 GraphConnection connection = (GraphConnection) child;
-                int node1 = indexMapping.get(connection.getNode1());
-                int node2 = indexMapping.get(connection.getNode2());
-                lineMapping.putIfAbsent(node1, new StringBuilder());
-                StringBuilder b1 = lineMapping.get(node1);
-                b1.append(connection.getWeight());
-                b1.append(',');
-                b1.append(node2);
-                b1.append('|');
-                lineMapping.putIfAbsent(node2, new StringBuilder());
-                StringBuilder b2 = lineMapping.get(node2);
-                b2.append(connection.getWeight());
-                b2.append(',');
-                b2.append(node1);
-                b2.append('|');
+                builder.connect(
+                    indexMapping.get(connection.getNode1()),
+                    indexMapping.get(connection.getNode2()),
+                    connection.getWeight()
+                );
             }
         }
-        for (int i = 0; i < vertexCount; ++i) {
-            writer.append(lineMapping.get(i).toString());
-            writer.newLine();
-        }
-        writer.flush();
-        writer.close();
+        return builder.build();
     }
 }
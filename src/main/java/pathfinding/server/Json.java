@@ -0,0 +1,50 @@
+package pathfinding.server;
+
+/**
+ * Minimal JSON writing helpers, enough for the routing responses.
+ */
+final class Json {
+
+    private Json() { }
+
+    static StringBuilder string(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Appends a number, writing unreachable (infinite) costs as null.
+     */
+    static StringBuilder number(StringBuilder out, double value) {
+        if (Double.isInfinite(value) || Double.isNaN(value)) {
+            return out.append("null");
+        }
+        return out.append(value);
+    }
+}
@@ -0,0 +1,122 @@
+package pathfinding.server;
+
+import pathfinding.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator for {@link RoutingServer}: a fixed number of
+ * connections each send random route queries back to back, then throughput
+ * & latency percentiles are printed.
+ *
+ * <pre>
+ * LoadTestClient &lt;base url&gt; [--requests=N] [--concurrency=C]
+ *                [--method=ucs|greedy|astar] [--format=json|binary] [--seed=S]
+ * </pre>
+ */
+public class LoadTestClient {
+
+    private static final Pattern VERTICES = Pattern.compile("\"vertices\":(\\d+)");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: LoadTestClient <base url> [--requests=N] [--concurrency=C] "
+                + "[--method=ucs|greedy|astar] [--format=json|binary] [--seed=S]");
+            System.exit(2);
+            return;
+        }
+        String base = args[0].endsWith("/") ? args[0] : args[0] + "/";
+        long requests = 10_000;
+        int concurrency = 16;
+        String method = "astar";
+        String format = "json";
+        long seed = 1;
+        for (int i = 1; i < args.length; ++i) {
+            String arg = args[i];
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--requests=")) {
+                requests = Long.parseLong(value);
+            } else if (arg.startsWith("--concurrency=")) {
+                concurrency = Integer.parseInt(value);
+            } else if (arg.startsWith("--method=")) {
+                method = value;
+            } else if (arg.startsWith("--format=")) {
+                format = value;
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            }
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(workers)
+            .build();
+        HttpResponse<String> info = client.send(
+            HttpRequest.newBuilder(URI.create(base + "info")).build(),
+            HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = VERTICES.matcher(info.body());
+        if (info.statusCode() != 200 || !matcher.find()) {
+            System.err.println("Unexpected /info response: " + info.body());
+            System.exit(1);
+            return;
+        }
+        int vertices = Integer.parseInt(matcher.group(1));
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong remaining = new AtomicLong(requests);
+        AtomicLong failures = new AtomicLong();
+        String suffix = "&method=" + method + "&format=" + format;
+        SplittableRandom seeds = new SplittableRandom(seed);
+        Thread[] threads = new Thread[concurrency];
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; ++t) {
+            SplittableRandom random = seeds.split();
+            threads[t] = new Thread(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    URI uri = URI.create(base + "route?from=" + random.nextInt(vertices)
+                        + "&to=" + random.nextInt(vertices) + suffix);
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(
+                            HttpRequest.newBuilder(uri).build(),
+                            HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencies.record(System.nanoTime() - begin);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.SECONDS);
+
+        System.out.printf("Requests: %d (%d failed) in %.3f s, %.1f requests/s%n",
+            latencies.count(), failures.get(), seconds, latencies.count() / seconds);
+        System.out.printf("Latency: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+            latencies.percentile(50) / 1e3, latencies.percentile(99) / 1e3,
+            latencies.max() / 1e3);
+    }
+}
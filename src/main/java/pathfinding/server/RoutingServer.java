@@ -0,0 +1,424 @@
+package pathfinding.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphFiles;
+import pathfinding.engine.Isochrone;
+import pathfinding.engine.PathResult;
+import pathfinding.engine.PathSearch;
+import pathfinding.engine.SearchMethods;
+import pathfinding.engine.ShortestPaths;
+import pathfinding.metrics.LatencyHistogram;
+import pathfinding.metrics.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP routing service over an immutable graph loaded from a
+ * {@code .graph} file.
+ *
+ * <pre>
+ * GET /info
+ * GET /route?from=A&amp;to=B[&amp;method=ucs|greedy|astar]
+ * GET /nearest?from=A,B&amp;to=C,D
+ * GET /one-to-all?from=A
+ * GET /isochrone?from=A&amp;thresholds=100,200,400
+ * GET /matrix?sources=A,B&amp;targets=C,D
+ * GET /metrics
+ * </pre>
+ *
+ * Vertices are given by name or index. Responses are JSON, or a compact
+ * big-endian binary encoding with {@code format=binary}:
+ * route & nearest are {@code double cost, int length, int[length] vertices},
+ * one-to-all is {@code int n, double[n] costs}, isochrone is
+ * {@code int bands, int[bands] sizes} followed by {@code int vertex, double cost}
+ * for every reachable vertex, cheapest first, and matrix is
+ * {@code int rows, int columns, double[rows * columns] costs}, with
+ * unreachable costs as infinity.
+ */
+public class RoutingServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    static {
+        // Without TCP_NODELAY, small responses whose headers & body go out in
+        // separate segments wait ~40 ms on delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final CompactGraph graph;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public RoutingServer(CompactGraph graph, InetSocketAddress address) throws IOException {
+        this.graph = graph;
+        server = HttpServer.create(address, 0);
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/info", new Endpoint("info", this::info));
+        server.createContext("/route", new Endpoint("route", this::route));
+        server.createContext("/nearest", new Endpoint("nearest", this::nearest));
+        server.createContext("/one-to-all", new Endpoint("one_to_all", this::oneToAll));
+        server.createContext("/isochrone", new Endpoint("isochrone", this::isochrone));
+        server.createContext("/matrix", new Endpoint("matrix", this::matrix));
+        server.createContext("/metrics", new Endpoint("metrics", this::metrics));
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: RoutingServer <graph file> [--port=N] [--host=address]");
+            System.exit(2);
+            return;
+        }
+        int port = DEFAULT_PORT;
+        String host = "127.0.0.1";
+        for (int i = 1; i < args.length; ++i) {
+            if (args[i].startsWith("--port=")) {
+                port = Integer.parseInt(args[i].substring("--port=".length()));
+            } else if (args[i].startsWith("--host=")) {
+                host = args[i].substring("--host=".length());
+            }
+        }
+        try {
+            CompactGraph graph = GraphFiles.read(new File(args[0]));
+            RoutingServer server = new RoutingServer(graph, new InetSocketAddress(host, port));
+            server.start();
+            System.err.printf("Serving %d vertices, %d edges on http://%s:%d/%n",
+                graph.vertexCount(), graph.edgeCount(), host, server.getPort());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Uses one virtual thread per request when the JVM supports them (Java
+     * 21+), and a pool of platform threads otherwise.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(
+                Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+        }
+    }
+
+    private Response info(Map<String, String> query) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"vertices\":").append(graph.vertexCount())
+            .append(",\"edges\":").append(graph.edgeCount()).append('}');
+        return Response.json(json);
+    }
+
+    private Response route(Map<String, String> query) throws IOException {
+        int source = graph.resolve(required(query, "from"));
+        int goal = graph.resolve(required(query, "to"));
+        String method = SearchMethods.parse(query.getOrDefault("method", "astar"));
+        PathResult result = PathSearch.search(graph, source, goal, method);
+        return path(query, result, method);
+    }
+
+    private Response nearest(Map<String, String> query) throws IOException {
+        int[] sources = vertices(required(query, "from"));
+        int[] goals = vertices(required(query, "to"));
+        return path(query, PathSearch.searchNearest(graph, sources, goals), null);
+    }
+
+    /**
+     * Encodes a path, with the method's short name unless it is null.
+     */
+    private Response path(Map<String, String> query, PathResult result, String method)
+        throws IOException {
+        if (isBinary(query)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + 4 * result.path.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeDouble(result.cost);
+            out.writeInt(result.path.length);
+            for (int v : result.path) {
+                out.writeInt(v);
+            }
+            return Response.binary(bytes.toByteArray());
+        }
+        StringBuilder json = new StringBuilder(64 + 16 * result.path.length);
+        json.append('{');
+        if (method != null) {
+            json.append("\"method\":");
+            Json.string(json, SearchMethods.shortName(method));
+            json.append(',');
+        }
+        json.append("\"cost\":");
+        Json.number(json, result.cost);
+        json.append(",\"path\":[");
+        for (int i = 0; i < result.path.length; ++i) {
+            if (i > 0) {
+                json.append(',');
+            }
+            Json.string(json, graph.name(result.path[i]));
+        }
+        json.append("],\"settled\":").append(result.stats.settled)
+            .append(",\"micros\":").append(result.stats.wallNanos / 1000).append('}');
+        return Response.json(json);
+    }
+
+    private Response oneToAll(Map<String, String> query) throws IOException {
+        int source = graph.resolve(required(query, "from"));
+        double[] costs = ShortestPaths.fromSource(graph, source);
+        if (isBinary(query)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + 8 * costs.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(costs.length);
+            for (double cost : costs) {
+                out.writeDouble(cost);
+            }
+            return Response.binary(bytes.toByteArray());
+        }
+        StringBuilder json = new StringBuilder(32 + 10 * costs.length);
+        json.append("{\"source\":");
+        Json.string(json, graph.name(source));
+        json.append(",\"costs\":[");
+        for (int v = 0; v < costs.length; ++v) {
+            if (v > 0) {
+                json.append(',');
+            }
+            Json.number(json, costs[v]);
+        }
+        json.append("]}");
+        return Response.json(json);
+    }
+
+    private Response isochrone(Map<String, String> query) throws IOException {
+        int source = graph.resolve(required(query, "from"));
+        String[] tokens = required(query, "thresholds").split(",");
+        double[] thresholds = new double[tokens.length];
+        for (int i = 0; i < tokens.length; ++i) {
+            thresholds[i] = Double.parseDouble(tokens[i].trim());
+        }
+        Isochrone result = Isochrone.compute(graph, source, thresholds);
+        if (isBinary(query)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                4 + 4 * result.bandCount() + 12 * result.size());
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(result.bandCount());
+            for (int band = 0; band < result.bandCount(); ++band) {
+                out.writeInt(result.bandEnd(band) - result.bandStart(band));
+            }
+            for (int i = 0; i < result.size(); ++i) {
+                out.writeInt(result.vertices[i]);
+                out.writeDouble(result.costs[i]);
+            }
+            return Response.binary(bytes.toByteArray());
+        }
+        StringBuilder json = new StringBuilder(32 + 24 * result.size());
+        json.append("{\"source\":");
+        Json.string(json, graph.name(source));
+        json.append(",\"bands\":[");
+        for (int band = 0; band < result.bandCount(); ++band) {
+            json.append(band > 0 ? ",{\"threshold\":" : "{\"threshold\":");
+            Json.number(json, result.thresholds[band]);
+            json.append(",\"vertices\":[");
+            for (int i = result.bandStart(band); i < result.bandEnd(band); ++i) {
+                json.append(i > result.bandStart(band) ? ",{\"name\":" : "{\"name\":");
+                Json.string(json, graph.name(result.vertices[i]));
+                json.append(",\"cost\":");
+                Json.number(json, result.costs[i]);
+                json.append('}');
+            }
+            json.append("]}");
+        }
+        json.append("]}");
+        return Response.json(json);
+    }
+
+    private Response matrix(Map<String, String> query) throws IOException {
+        int[] sources = vertices(required(query, "sources"));
+        int[] targets = vertices(required(query, "targets"));
+        double[][] costs = new double[sources.length][];
+        for (int i = 0; i < sources.length; ++i) {
+            costs[i] = ShortestPaths.toTargets(graph, sources[i], targets);
+        }
+        if (isBinary(query)) {
+            ByteArrayOutputStream bytes =
+                new ByteArrayOutputStream(8 + 8 * sources.length * targets.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(sources.length);
+            out.writeInt(targets.length);
+            for (double[] row : costs) {
+                for (double cost : row) {
+                    out.writeDouble(cost);
+                }
+            }
+            return Response.binary(bytes.toByteArray());
+        }
+        StringBuilder json = new StringBuilder();
+        json.append("{\"costs\":[");
+        for (int i = 0; i < costs.length; ++i) {
+            json.append(i > 0 ? ",[" : "[");
+            for (int j = 0; j < costs[i].length; ++j) {
+                if (j > 0) {
+                    json.append(',');
+                }
+                Json.number(json, costs[i][j]);
+            }
+            json.append(']');
+        }
+        json.append("]}");
+        return Response.json(json);
+    }
+
+    private Response metrics(Map<String, String> query) throws IOException {
+        StringBuilder text = new StringBuilder();
+        MetricsRegistry.global().export(text);
+        return new Response("text/plain; version=0.0.4",
+            text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int[] vertices(String list) {
+        String[] tokens = list.split(",");
+        int[] vertices = new int[tokens.length];
+        for (int i = 0; i < tokens.length; ++i) {
+            vertices[i] = graph.resolve(tokens[i].trim());
+        }
+        return vertices;
+    }
+
+    private static boolean isBinary(Map<String, String> query) {
+        return "binary".equals(query.get("format"));
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) {
+                query.put(URLDecoder.decode(pair, StandardCharsets.UTF_8), "");
+            } else {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private interface Handler {
+        Response handle(Map<String, String> query) throws IOException;
+    }
+
+    private static final class Response {
+        final String contentType;
+        final byte[] body;
+
+        Response(String contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response json(CharSequence json) {
+            return new Response("application/json",
+                json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Response binary(byte[] body) {
+            return new Response("application/octet-stream", body);
+        }
+    }
+
+    /**
+     * Wraps a handler with parameter parsing, error responses & request
+     * metrics.
+     */
+    private static final class Endpoint implements HttpHandler {
+
+        private final Handler handler;
+        private final LongAdder requests;
+        private final LongAdder errors;
+        private final LatencyHistogram latency;
+
+        Endpoint(String name, Handler handler) {
+            this.handler = handler;
+            MetricsRegistry registry = MetricsRegistry.global();
+            String labels = "{endpoint=\"" + name + "\"}";
+            requests = registry.counter("http_requests_total" + labels);
+            errors = registry.counter("http_errors_total" + labels);
+            latency = registry.histogram("http_request_latency_nanos" + labels);
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long start = System.nanoTime();
+            requests.increment();
+            int status = 200;
+            Response response;
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    status = 405;
+                    response = error("Only GET is supported");
+                } else {
+                    response = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                response = error(e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                response = error(e.toString());
+            }
+            if (status != 200) {
+                errors.increment();
+            }
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            exchange.sendResponseHeaders(status, response.body.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response.body);
+            }
+            latency.record(System.nanoTime() - start);
+        }
+
+        private static Response error(String message) {
+            StringBuilder json = new StringBuilder("{\"error\":");
+            Json.string(json, String.valueOf(message));
+            return Response.json(json.append('}'));
+        }
+    }
+}
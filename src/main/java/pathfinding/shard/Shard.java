@@ -0,0 +1,256 @@
+package pathfinding.shard;
+
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * One region of a graph split by {@link ShardPartitioner}, small enough to
+ * be loaded on its own.
+ *
+ * <p>Vertices have global ids over the whole graph, and every shard owns a
+ * contiguous range of them, so the owner of any vertex is found from the
+ * range bounds alone. The shard's local graph holds its owned vertices, local
+ * ids {@code 0..ownedCount()-1} in global order, followed by ghosts: copies
+ * of the vertices of other shards at the far end of an edge leaving the
+ * region. Every edge between two shards is therefore stored in both.
+ * Global ids follow the partitioner's Hilbert order, not the order of the
+ * {@code .graph} file; every shard also keeps the file index of each owned
+ * vertex, so that ids from other tools can be translated.
+ *
+ * <p>The file format is big-endian binary: a header with the shard's index,
+ * the range bounds of every shard & the global ids of the ghosts, then
+ * {@code double x, double y, UTF name} for every local vertex, the file
+ * index of every owned vertex, and
+ * {@code int from, int to, double weight} for every local edge.
+ */
+public final class Shard {
+
+    static final int MAGIC = 0x53485244;
+    static final int VERSION = 2;
+
+    private final int index;
+    private final int[] bounds;
+    private final CompactGraph graph;
+    private final int[] ghosts;
+    private final HashMap<Integer, Integer> ghostIndex;
+    // Index in the original graph file of every owned vertex
+    private final int[] fileIndices;
+    private final HashMap<Integer, Integer> fileIndexLocal;
+
+    Shard(int index, int[] bounds, CompactGraph graph, int[] ghosts, int[] fileIndices) {
+        this.index = index;
+        this.bounds = bounds;
+        this.graph = graph;
+        this.ghosts = ghosts;
+        this.fileIndices = fileIndices;
+        ghostIndex = new HashMap<>(2 * ghosts.length);
+        for (int i = 0; i < ghosts.length; ++i) {
+            ghostIndex.put(ghosts[i], ownedCount() + i);
+        }
+        fileIndexLocal = new HashMap<>(2 * fileIndices.length);
+        for (int local = 0; local < fileIndices.length; ++local) {
+            fileIndexLocal.put(fileIndices[local], local);
+        }
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public int shardCount() {
+        return bounds.length - 1;
+    }
+
+    /**
+     * Returns the vertex count of the whole graph.
+     */
+    public int globalVertexCount() {
+        return bounds[bounds.length - 1];
+    }
+
+    public int firstOwned() {
+        return bounds[index];
+    }
+
+    public int ownedCount() {
+        return bounds[index + 1] - bounds[index];
+    }
+
+    /**
+     * Returns the first global id owned by each shard, followed by the
+     * vertex count of the whole graph.
+     */
+    public int[] bounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * Returns the local graph: owned vertices first, then ghosts.
+     */
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public boolean isOwned(int local) {
+        return local < ownedCount();
+    }
+
+    public int globalId(int local) {
+        return local < ownedCount() ? bounds[index] + local : ghosts[local - ownedCount()];
+    }
+
+    /**
+     * Returns the local id of a vertex of the whole graph.
+     *
+     * @param global global id
+     * @return the local id, or -1 if it is neither owned nor a ghost here
+     */
+    public int localId(int global) {
+        if (global >= bounds[index] && global < bounds[index + 1]) {
+            return global - bounds[index];
+        }
+        return ghostIndex.getOrDefault(global, -1);
+    }
+
+    /**
+     * Returns the index of an owned vertex in the graph file the shard was
+     * split from.
+     *
+     * @param local local id of an owned vertex
+     * @return the file index
+     */
+    public int fileIndex(int local) {
+        return fileIndices[local];
+    }
+
+    /**
+     * Returns the local id of the owned vertex at an index of the graph
+     * file the shard was split from.
+     *
+     * @param fileIndex index in the graph file
+     * @return the local id, or -1 if that vertex is not owned here
+     */
+    public int localIdOfFileIndex(int fileIndex) {
+        return fileIndexLocal.getOrDefault(fileIndex, -1);
+    }
+
+    /**
+     * Returns the shard owning a vertex.
+     *
+     * @param bounds range bounds, as returned by {@link #bounds()}
+     * @param global global id
+     * @return the owner's index
+     */
+    public static int owner(int[] bounds, int global) {
+        int low = 0;
+        int high = bounds.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (bounds[middle] <= global) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Saves the shard to a file.
+     *
+     * @param file file to save to
+     * @throws IOException error saving the file
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(index);
+            out.writeInt(shardCount());
+            for (int bound : bounds) {
+                out.writeInt(bound);
+            }
+            out.writeInt(ghosts.length);
+            for (int ghost : ghosts) {
+                out.writeInt(ghost);
+            }
+            for (int v = 0; v < graph.vertexCount(); ++v) {
+                out.writeDouble(graph.x(v));
+                out.writeDouble(graph.y(v));
+                out.writeUTF(graph.name(v));
+            }
+            for (int fileIndex : fileIndices) {
+                out.writeInt(fileIndex);
+            }
+            out.writeInt(graph.edgeCount());
+            for (int e = 0; e < graph.edgeCount(); ++e) {
+                out.writeInt(graph.edgeFrom(e));
+                out.writeInt(graph.edgeTo(e));
+                out.writeDouble(graph.edgeWeight(e));
+            }
+        }
+    }
+
+    /**
+     * Loads a shard from a file.
+     *
+     * @param file file to load
+     * @return the shard
+     * @throws IOException error reading the file or malformed contents
+     */
+    public static Shard read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a shard file");
+            }
+            int index = in.readInt();
+            int count = in.readInt();
+            if (count <= 0 || index < 0 || index >= count) {
+                throw new IOException("Malformed shard header in " + file);
+            }
+            int[] bounds = new int[count + 1];
+            for (int i = 0; i <= count; ++i) {
+                bounds[i] = in.readInt();
+                if (i > 0 && bounds[i] < bounds[i - 1]) {
+                    throw new IOException("Malformed shard bounds in " + file);
+                }
+            }
+            int[] ghosts = new int[in.readInt()];
+            for (int i = 0; i < ghosts.length; ++i) {
+                ghosts[i] = in.readInt();
+            }
+            int owned = bounds[index + 1] - bounds[index];
+            int vertexCount = owned + ghosts.length;
+            GraphBuilder builder = new GraphBuilder(vertexCount, 0);
+            for (int v = 0; v < vertexCount; ++v) {
+                builder.addVertex(in.readDouble(), in.readDouble(), in.readUTF());
+            }
+            int[] fileIndices = new int[owned];
+            for (int v = 0; v < owned; ++v) {
+                fileIndices[v] = in.readInt();
+            }
+            int edgeCount = in.readInt();
+            for (int e = 0; e < edgeCount; ++e) {
+                int from = in.readInt();
+                int to = in.readInt();
+                if (from < 0 || from >= vertexCount || to < 0 || to >= vertexCount) {
+                    throw new IOException("Edge to unknown vertex in " + file);
+                }
+                builder.connect(from, to, in.readDouble());
+            }
+            return new Shard(index, bounds, builder.build(), ghosts, fileIndices);
+        }
+    }
+}
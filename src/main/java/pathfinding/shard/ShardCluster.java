@@ -0,0 +1,654 @@
+package pathfinding.shard;
+
+import pathfinding.engine.PathResult;
+import pathfinding.engine.SearchStats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches a graph split into shards, each served by its own
+ * {@link ShardWorker} process, so no process holds the whole graph.
+ *
+ * <pre>
+ * ShardCluster &lt;shard files...&gt; [--unix] [--jvm=option] [queries file | -]
+ * ShardCluster --connect=address,address,... [queries file | -]
+ * </pre>
+ *
+ * The first form starts one worker per shard file, over loopback TCP or, with
+ * {@code --unix}, Unix domain sockets; the second uses running workers. Query
+ * lines read {@code source,goal} for a shortest path, or just {@code source}
+ * for the costs to every vertex, with vertices given by name or by index in
+ * the {@code .graph} file, as for the other tools. Internally vertices have
+ * global ids in the partitioner's order, which {@link #resolve} maps to.
+ *
+ * <p>A search proceeds in rounds. The coordinator sends every shard with
+ * pending work the batch of costs other shards found for its vertices, all
+ * shards search their regions at the same time, and their answers, the
+ * costs found for vertices across their boundaries, make up the next
+ * round's batches. The search ends when no batch is left: every cost is
+ * then final, or cannot beat the cheapest path found to the goal. Only one
+ * search runs at a time.
+ */
+public final class ShardCluster implements AutoCloseable {
+
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+
+    private final Connection[] shards;
+    private final int[] bounds;
+    private final double heuristicScale;
+    private final List<Process> workers;
+    private final Path socketDirectory;
+
+    private final ShardProtocol.Batch[] outgoing;
+    private final ShardProtocol.Batch incoming = new ShardProtocol.Batch();
+    private long rounds;
+    private long messages;
+
+    private ShardCluster(Connection[] shards, List<Process> workers, Path socketDirectory)
+            throws IOException {
+        this.workers = workers;
+        this.socketDirectory = socketDirectory;
+        int count = shards.length;
+        this.shards = new Connection[count];
+        int[] firstBounds = null;
+        double scale = Double.POSITIVE_INFINITY;
+        for (Connection connection : shards) {
+            connection.out.writeInt(ShardProtocol.INFO);
+            connection.out.flush();
+            int index = connection.in.readInt();
+            if (connection.in.readInt() != count || index < 0 || index >= count
+                || this.shards[index] != null) {
+                throw new IOException("Shards do not belong to one graph of " + count + " shards");
+            }
+            int[] shardBounds = new int[count + 1];
+            for (int i = 0; i <= count; ++i) {
+                shardBounds[i] = connection.in.readInt();
+            }
+            if (firstBounds != null && !Arrays.equals(firstBounds, shardBounds)) {
+                throw new IOException("Shard " + index + " was split from another graph");
+            }
+            firstBounds = shardBounds;
+            // Every edge leaving a shard is in both, so the lowest scale
+            // holds for the whole graph
+            scale = Math.min(scale, connection.in.readDouble());
+            this.shards[index] = connection;
+        }
+        bounds = firstBounds;
+        heuristicScale = scale;
+        outgoing = new ShardProtocol.Batch[count];
+        for (int s = 0; s < count; ++s) {
+            outgoing[s] = new ShardProtocol.Batch();
+        }
+    }
+
+    /**
+     * Starts one worker process per shard file on this machine and connects
+     * to them. The workers stop when the cluster is closed, or when this
+     * process exits.
+     *
+     * @param shardFiles files written by {@link ShardPartitioner}, all from
+     *     the same graph
+     * @param unixSockets whether to talk over Unix domain sockets rather than
+     *     loopback TCP
+     * @param jvmOptions options for the workers' JVMs, e.g. {@code -Xmx4g}
+     * @return the cluster
+     * @throws IOException a worker could not be started or reached
+     */
+    public static ShardCluster launch(List<File> shardFiles, boolean unixSockets,
+                                      List<String> jvmOptions) throws IOException {
+        if (shardFiles.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        Path socketDirectory = unixSockets ? Files.createTempDirectory("shards") : null;
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<Process> workers = new ArrayList<>();
+        Connection[] connections = new Connection[shardFiles.size()];
+        try {
+            // Started together, so the shards load in parallel
+            for (int i = 0; i < shardFiles.size(); ++i) {
+                String listen = unixSockets
+                    ? "unix:" + socketDirectory.resolve("shard-" + i + ".sock")
+                    : "tcp:127.0.0.1:0";
+                List<String> command = new ArrayList<>();
+                command.add(java);
+                command.addAll(jvmOptions);
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(ShardWorker.class.getName());
+                command.add(shardFiles.get(i).getPath());
+                command.add("--listen=" + listen);
+                command.add("--stop-on-eof");
+                workers.add(new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+            }
+            for (int i = 0; i < connections.length; ++i) {
+                BufferedReader output = new BufferedReader(
+                    new InputStreamReader(workers.get(i).getInputStream()));
+                String line = output.readLine();
+                if (line == null || !line.startsWith("listening ")) {
+                    throw new IOException("Worker for " + shardFiles.get(i) + " did not start");
+                }
+                connections[i] = Connection.open(
+                    ShardProtocol.parseAddress(line.substring("listening ".length())));
+            }
+            return new ShardCluster(connections, workers, socketDirectory);
+        } catch (IOException | RuntimeException e) {
+            for (Connection connection : connections) {
+                if (connection != null) {
+                    connection.channel.close();
+                }
+            }
+            for (Process worker : workers) {
+                worker.destroyForcibly();
+            }
+            deleteSockets(socketDirectory);
+            throw e;
+        }
+    }
+
+    /**
+     * Connects to running workers, one per shard in any order. Closing the
+     * cluster leaves them running.
+     *
+     * @param addresses {@code tcp:host:port} or {@code unix:path} of every
+     *     worker
+     * @return the cluster
+     * @throws IOException a worker could not be reached
+     */
+    public static ShardCluster connect(List<String> addresses) throws IOException {
+        Connection[] connections = new Connection[addresses.size()];
+        try {
+            for (int i = 0; i < connections.length; ++i) {
+                connections[i] = Connection.open(ShardProtocol.parseAddress(addresses.get(i)));
+            }
+            return new ShardCluster(connections, List.of(), null);
+        } catch (IOException | RuntimeException e) {
+            for (Connection connection : connections) {
+                if (connection != null) {
+                    connection.channel.close();
+                }
+            }
+            throw e;
+        }
+    }
+
+    public int vertexCount() {
+        return bounds[bounds.length - 1];
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the number of rounds of all searches so far.
+     */
+    public long roundCount() {
+        return rounds;
+    }
+
+    /**
+     * Returns the number of costs sent to shards by all searches so far.
+     */
+    public long messageCount() {
+        return messages;
+    }
+
+    /**
+     * Looks up a vertex by its name in every shard.
+     *
+     * @param name name of the vertex
+     * @return global id of the vertex, or -1 if there is none
+     * @throws IOException error talking to a worker
+     */
+    public synchronized int indexOf(String name) throws IOException {
+        for (Connection connection : shards) {
+            connection.out.writeInt(ShardProtocol.FIND);
+            connection.out.writeUTF(name);
+            connection.out.flush();
+        }
+        int found = -1;
+        for (Connection connection : shards) {
+            int v = connection.in.readInt();
+            if (found < 0) {
+                found = v;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Looks up a vertex by its index in the graph file the shards were
+     * split from.
+     *
+     * @param fileIndex index of the vertex in the {@code .graph} file
+     * @return global id of the vertex, or -1 if there is none
+     * @throws IOException error talking to a worker
+     */
+    public synchronized int indexOfFileIndex(int fileIndex) throws IOException {
+        for (Connection connection : shards) {
+            connection.out.writeInt(ShardProtocol.FIND_INDEX);
+            connection.out.writeInt(fileIndex);
+            connection.out.flush();
+        }
+        int found = -1;
+        for (Connection connection : shards) {
+            int v = connection.in.readInt();
+            if (found < 0) {
+                found = v;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds a vertex by name, or by its index in the graph file when no
+     * vertex has that name, like {@code CompactGraph.resolve} on the whole
+     * graph.
+     *
+     * @param token name or file index of the vertex
+     * @return global id of the vertex
+     * @throws IllegalArgumentException no such vertex
+     * @throws IOException error talking to a worker
+     */
+    public int resolve(String token) throws IOException {
+        int v = indexOf(token);
+        if (v >= 0) {
+            return v;
+        }
+        int fileIndex;
+        try {
+            fileIndex = Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown vertex " + token);
+        }
+        v = fileIndex >= 0 ? indexOfFileIndex(fileIndex) : -1;
+        if (v < 0) {
+            throw new IllegalArgumentException("Unknown vertex " + token);
+        }
+        return v;
+    }
+
+    public String name(int v) throws IOException {
+        return names(new int[] {v})[0];
+    }
+
+    /**
+     * Looks up the names of many vertices, with one request per shard.
+     *
+     * @param vertices global ids
+     * @return the names, in the same order
+     * @throws IOException error talking to a worker
+     */
+    public synchronized String[] names(int[] vertices) throws IOException {
+        int[] perShard = new int[shards.length];
+        for (int v : vertices) {
+            checkVertex(v);
+            ++perShard[Shard.owner(bounds, v)];
+        }
+        for (int s = 0; s < shards.length; ++s) {
+            if (perShard[s] == 0) {
+                continue;
+            }
+            DataOutputStream out = shards[s].out;
+            out.writeInt(ShardProtocol.DESCRIBE);
+            out.writeInt(perShard[s]);
+            for (int v : vertices) {
+                if (Shard.owner(bounds, v) == s) {
+                    out.writeInt(v);
+                }
+            }
+            out.flush();
+        }
+        String[] names = new String[vertices.length];
+        for (int s = 0; s < shards.length; ++s) {
+            for (int i = 0; i < vertices.length; ++i) {
+                if (Shard.owner(bounds, vertices[i]) == s) {
+                    shards[s].in.readDouble();
+                    shards[s].in.readDouble();
+                    names[i] = shards[s].in.readUTF();
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Finds a shortest path with A* across all shards.
+     *
+     * @param source global id of the start
+     * @param goal global id of the goal
+     * @return the cost & global ids of the path, or an empty path if the
+     *     goal is unreachable; the stats add up the work of every shard
+     * @throws IOException error talking to a worker
+     */
+    public synchronized PathResult search(int source, int goal) throws IOException {
+        checkVertex(source);
+        checkVertex(goal);
+        long startNanos = System.nanoTime();
+        Connection goalOwner = shards[Shard.owner(bounds, goal)];
+        goalOwner.out.writeInt(ShardProtocol.DESCRIBE);
+        goalOwner.out.writeInt(1);
+        goalOwner.out.writeInt(goal);
+        goalOwner.out.flush();
+        double goalX = goalOwner.in.readDouble();
+        double goalY = goalOwner.in.readDouble();
+        goalOwner.in.readUTF();
+
+        long[] work = new long[5];
+        double cost = exchange(source, goal, goalX, goalY, heuristicScale, work);
+        int[] path = new int[0];
+        if (cost < Double.POSITIVE_INFINITY) {
+            path = path(goal);
+        }
+        end();
+        SearchStats stats = new SearchStats(work[0], work[1], work[2], work[0], work[3],
+            (int) Math.min(Integer.MAX_VALUE, work[4]), System.nanoTime() - startNanos, -1);
+        return new PathResult(cost, path, stats);
+    }
+
+    /**
+     * Computes the cost of the cheapest path from a vertex to every other,
+     * across all shards.
+     *
+     * @param source global id of the start
+     * @return cost of every vertex by global id, infinite where unreachable
+     * @throws IOException error talking to a worker
+     */
+    public synchronized double[] fromSource(int source) throws IOException {
+        checkVertex(source);
+        exchange(source, -1, 0.0, 0.0, 0.0, new long[5]);
+        for (Connection connection : shards) {
+            connection.out.writeInt(ShardProtocol.COSTS);
+            connection.out.flush();
+        }
+        double[] costs = new double[vertexCount()];
+        for (int s = 0; s < shards.length; ++s) {
+            for (int v = bounds[s]; v < bounds[s + 1]; ++v) {
+                costs[v] = shards[s].in.readDouble();
+            }
+        }
+        end();
+        return costs;
+    }
+
+    /**
+     * Runs the rounds of a search until no shard has work left.
+     *
+     * @param work settled, relaxed, pushes, decrease keys & peak frontier,
+     *     added up over all shards & rounds
+     * @return the cost of the goal, infinite for one-to-all
+     */
+    private double exchange(int source, int goal, double goalX, double goalY, double scale,
+                            long[] work) throws IOException {
+        for (Connection connection : shards) {
+            connection.out.writeInt(ShardProtocol.START);
+            connection.out.writeInt(goal);
+            connection.out.writeDouble(goalX);
+            connection.out.writeDouble(goalY);
+            connection.out.writeDouble(scale);
+        }
+        for (ShardProtocol.Batch batch : outgoing) {
+            batch.size = 0;
+        }
+        outgoing[Shard.owner(bounds, source)].add(source, 0.0, -1);
+        double bound = Double.POSITIVE_INFINITY;
+        boolean[] active = new boolean[shards.length];
+        boolean pending = true;
+        while (pending) {
+            ++rounds;
+            // Send every batch before reading any answer, so the shards
+            // search at the same time
+            for (int s = 0; s < shards.length; ++s) {
+                active[s] = outgoing[s].size > 0;
+                if (active[s]) {
+                    Connection connection = shards[s];
+                    connection.out.writeInt(ShardProtocol.ROUND);
+                    connection.out.writeDouble(bound);
+                    outgoing[s].write(connection.out);
+                    connection.out.flush();
+                    messages += outgoing[s].size;
+                    outgoing[s].size = 0;
+                }
+            }
+            pending = false;
+            long frontier = 0;
+            for (int s = 0; s < shards.length; ++s) {
+                if (!active[s]) {
+                    continue;
+                }
+                DataInputStream in = shards[s].in;
+                bound = Math.min(bound, in.readDouble());
+                work[0] += in.readLong();
+                work[1] += in.readLong();
+                work[2] += in.readLong();
+                work[3] += in.readLong();
+                frontier += in.readInt();
+                incoming.read(in);
+                for (int i = 0; i < incoming.size; ++i) {
+                    outgoing[Shard.owner(bounds, incoming.vertices[i])]
+                        .add(incoming.vertices[i], incoming.costs[i], incoming.parents[i]);
+                    pending = true;
+                }
+            }
+            work[4] = Math.max(work[4], frontier);
+        }
+        return bound;
+    }
+
+    /**
+     * Follows the parents back from the goal, one shard's stretch at a
+     * time.
+     */
+    private int[] path(int goal) throws IOException {
+        int[] path = new int[16];
+        int length = 0;
+        int v = goal;
+        boolean continues = true;
+        while (continues) {
+            Connection owner = shards[Shard.owner(bounds, v)];
+            owner.out.writeInt(ShardProtocol.PATH);
+            owner.out.writeInt(v);
+            owner.out.flush();
+            int count = owner.in.readInt();
+            for (int i = 0; i < count; ++i) {
+                int u = owner.in.readInt();
+                // Every stretch starts where the previous one left off
+                if (i == 0 && length > 0) {
+                    continue;
+                }
+                if (length == path.length) {
+                    path = Arrays.copyOf(path, 2 * length);
+                }
+                path[length++] = u;
+            }
+            continues = owner.in.readBoolean();
+            v = path[length - 1];
+        }
+        int[] result = new int[length];
+        for (int i = 0; i < length; ++i) {
+            result[i] = path[length - 1 - i];
+        }
+        return result;
+    }
+
+    private void end() throws IOException {
+        for (Connection connection : shards) {
+            connection.out.writeInt(ShardProtocol.END);
+            connection.out.flush();
+        }
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= vertexCount()) {
+            throw new IllegalArgumentException("Vertex " + v + " out of range");
+        }
+    }
+
+    /**
+     * Disconnects, and stops the workers this cluster started.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Connection connection : shards) {
+            try {
+                if (!workers.isEmpty()) {
+                    connection.out.writeInt(ShardProtocol.QUIT);
+                    connection.out.flush();
+                }
+            } catch (IOException e) {
+                // Already gone, stopped below
+            }
+            connection.channel.close();
+        }
+        for (Process worker : workers) {
+            try {
+                if (!worker.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    worker.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                worker.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        deleteSockets(socketDirectory);
+    }
+
+    private static void deleteSockets(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    public static void main(String[] args) {
+        List<File> shardFiles = new ArrayList<>();
+        List<String> addresses = new ArrayList<>();
+        List<String> jvmOptions = new ArrayList<>();
+        boolean unixSockets = false;
+        String queryFile = "-";
+        for (String arg : args) {
+            if (arg.equals("--unix")) {
+                unixSockets = true;
+            } else if (arg.startsWith("--jvm=")) {
+                jvmOptions.add(arg.substring("--jvm=".length()));
+            } else if (arg.startsWith("--connect=")) {
+                addresses.addAll(Arrays.asList(arg.substring("--connect=".length()).split(",")));
+            } else if (arg.endsWith(".shard")) {
+                shardFiles.add(new File(arg));
+            } else {
+                queryFile = arg;
+            }
+        }
+        if (shardFiles.isEmpty() == addresses.isEmpty()) {
+            System.err.println("Usage: ShardCluster <shard files...> [--unix] [--jvm=option] "
+                + "[queries file | -]");
+            System.err.println("       ShardCluster --connect=address,address,... [queries file | -]");
+            System.exit(2);
+            return;
+        }
+        try (ShardCluster cluster = addresses.isEmpty()
+                 ? launch(shardFiles, unixSockets, jvmOptions)
+                 : connect(addresses);
+             BufferedReader queries = queryFile.equals("-")
+                 ? new BufferedReader(new InputStreamReader(System.in))
+                 : new BufferedReader(new FileReader(queryFile))) {
+            System.err.printf("Connected to %d shards, %d vertices%n",
+                cluster.shardCount(), cluster.vertexCount());
+            long startNanos = System.nanoTime();
+            int count = 0;
+            String line;
+            while ((line = queries.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                ++count;
+                String[] fields = line.split(",");
+                try {
+                    int source = cluster.resolve(fields[0].trim());
+                    if (fields.length == 1) {
+                        double[] costs = cluster.fromSource(source);
+                        int reached = 0;
+                        for (double cost : costs) {
+                            reached += cost < Double.POSITIVE_INFINITY ? 1 : 0;
+                        }
+                        System.out.printf("%s\treached %d vertices%n", fields[0].trim(), reached);
+                        continue;
+                    }
+                    PathResult result = cluster.search(source, cluster.resolve(fields[1].trim()));
+                    System.out.printf("%s\t%s\t%s\t%s%n", fields[0].trim(), fields[1].trim(),
+                        result.isFound() ? Double.toString(result.cost) : "unreachable",
+                        String.join(" ", cluster.names(result.path)));
+                } catch (IllegalArgumentException e) {
+                    System.out.printf("%s\terror: %s%n", line, e.getMessage());
+                }
+            }
+            System.err.printf("%d queries in %d ms, %d rounds, %d costs exchanged%n", count,
+                (System.nanoTime() - startNanos) / 1_000_000, cluster.roundCount(),
+                cluster.messageCount());
+        } catch (IOException e) {
+            System.err.println("Sharded run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Buffered streams over the socket of one worker.
+     */
+    private static final class Connection {
+
+        final SocketChannel channel;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+            in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+
+        static Connection open(SocketAddress address) throws IOException {
+            SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+            try {
+                channel.connect(address);
+                if (address instanceof InetSocketAddress) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return new Connection(channel);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package pathfinding.shard;
+
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.GraphBuilder;
+import pathfinding.engine.GraphFiles;
+import pathfinding.engine.VertexOrder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Splits a graph into shards by region, for {@link ShardCluster} to search
+ * across several processes.
+ *
+ * <pre>
+ * ShardPartitioner &lt;graph file&gt; &lt;shards&gt; [--output=directory]
+ * </pre>
+ *
+ * Vertices are numbered along a Hilbert curve over their coordinates, and
+ * the curve is cut into ranges of equal size, so every shard covers a
+ * compact region and few edges cross between shards. The graph is written
+ * as {@code <name>-<i>.shard} files next to it, or into the output
+ * directory.
+ */
+public final class ShardPartitioner {
+
+    private ShardPartitioner() { }
+
+    public static void main(String[] args) {
+        String graphFile = null;
+        String outputDirectory = null;
+        int shards = 0;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--output=")) {
+                    outputDirectory = arg.substring("--output=".length());
+                } else if (graphFile == null) {
+                    graphFile = arg;
+                } else if (shards == 0) {
+                    shards = Integer.parseInt(arg);
+                } else {
+                    throw new IllegalArgumentException("Unexpected argument " + arg);
+                }
+            }
+            if (graphFile == null || shards <= 0) {
+                throw new IllegalArgumentException("Missing graph file or shard count");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ShardPartitioner <graph file> <shards> [--output=directory]");
+            System.exit(2);
+            return;
+        }
+        try {
+            File input = new File(graphFile);
+            CompactGraph graph = GraphFiles.read(input);
+            File directory = outputDirectory != null ? new File(outputDirectory)
+                : input.getAbsoluteFile().getParentFile();
+            String name = input.getName().replaceFirst("\\.graph$", "");
+            for (File file : write(graph, shards, directory, name)) {
+                System.err.println("Wrote " + file);
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Partitioning failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Splits a graph into shards in memory.
+     *
+     * @param graph graph to split
+     * @param shards number of shards, at least 1
+     * @return the shards, by index
+     */
+    public static Shard[] partition(CompactGraph graph, int shards) {
+        int[] oldToNew = VertexOrder.hilbert(graph).oldToNew;
+        int[] bounds = bounds(graph.vertexCount(), shards);
+        Shard[] result = new Shard[shards];
+        for (int s = 0; s < shards; ++s) {
+            result[s] = build(graph, oldToNew, bounds, s);
+        }
+        return result;
+    }
+
+    /**
+     * Splits a graph into shard files, holding one shard in memory at a
+     * time.
+     *
+     * @param graph graph to split
+     * @param shards number of shards, at least 1
+     * @param directory directory to write to, created if missing
+     * @param name prefix of the file names
+     * @return the files written, by shard index
+     * @throws IOException error writing a file
+     */
+    public static List<File> write(CompactGraph graph, int shards, File directory, String name)
+            throws IOException {
+        int[] oldToNew = VertexOrder.hilbert(graph).oldToNew;
+        int[] bounds = bounds(graph.vertexCount(), shards);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        List<File> files = new ArrayList<>(shards);
+        for (int s = 0; s < shards; ++s) {
+            File file = new File(directory, name + "-" + s + ".shard");
+            build(graph, oldToNew, bounds, s).write(file);
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static int[] bounds(int vertexCount, int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        int[] bounds = new int[shards + 1];
+        for (int s = 0; s <= shards; ++s) {
+            bounds[s] = (int) ((long) vertexCount * s / shards);
+        }
+        return bounds;
+    }
+
+    private static Shard build(CompactGraph graph, int[] oldToNew, int[] bounds, int s) {
+        int n = graph.vertexCount();
+        int first = bounds[s];
+        int owned = bounds[s + 1] - first;
+        int[] newToOld = new int[owned];
+        for (int v = 0; v < n; ++v) {
+            int global = oldToNew[v];
+            if (global >= first && global < bounds[s + 1]) {
+                newToOld[global - first] = v;
+            }
+        }
+        GraphBuilder builder = new GraphBuilder(owned, 0);
+        for (int local = 0; local < owned; ++local) {
+            int v = newToOld[local];
+            builder.addVertex(graph.x(v), graph.y(v), graph.name(v));
+        }
+        // Ghosts are numbered as they are met, after the owned vertices
+        HashMap<Integer, Integer> ghostLocal = new HashMap<>();
+        ArrayList<Integer> ghosts = new ArrayList<>();
+        for (int local = 0; local < owned; ++local) {
+            int v = newToOld[local];
+            for (int a = graph.arcStart(v), end = graph.arcEnd(v); a < end; ++a) {
+                int w = graph.arcHead(a);
+                if (w == v) {
+                    // Loops never shorten a path
+                    continue;
+                }
+                int global = oldToNew[w];
+                if (global >= first && global < bounds[s + 1]) {
+                    // Inner edges are added from their first endpoint only
+                    if (graph.edgeFrom(graph.arcEdge(a)) == v) {
+                        builder.connect(local, global - first, graph.arcWeight(a));
+                    }
+                    continue;
+                }
+                Integer ghost = ghostLocal.get(global);
+                if (ghost == null) {
+                    ghost = builder.addVertex(graph.x(w), graph.y(w), graph.name(w));
+                    ghostLocal.put(global, ghost);
+                    ghosts.add(global);
+                }
+                builder.connect(local, ghost, graph.arcWeight(a));
+            }
+        }
+        int[] ghostIds = new int[ghosts.size()];
+        for (int i = 0; i < ghostIds.length; ++i) {
+            ghostIds[i] = ghosts.get(i);
+        }
+        return new Shard(s, bounds.clone(), builder.build(), ghostIds, newToOld);
+    }
+}
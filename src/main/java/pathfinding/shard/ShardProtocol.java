@@ -0,0 +1,119 @@
+package pathfinding.shard;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.util.Arrays;
+
+/**
+ * Messages between {@link ShardCluster} and its {@link ShardWorker}s.
+ *
+ * <p>Every request starts with one of the op codes below and is answered in
+ * order on the same connection; {@code START}, {@code END} & {@code QUIT}
+ * have no answer, so they cost no round trip. Addresses are written
+ * {@code tcp:host:port} or {@code unix:path}.
+ */
+final class ShardProtocol {
+
+    /** → {@code int index, int count, int[count + 1] bounds, double heuristicScale}. */
+    static final int INFO = 1;
+    /** {@code UTF name} → {@code int global}, -1 unless owned by the worker. */
+    static final int FIND = 2;
+    /** {@code int count, int[count] global} → {@code double x, double y, UTF name} each. */
+    static final int DESCRIBE = 3;
+    /** {@code int goal, double goalX, double goalY, double scale}; goal is -1 for one-to-all. */
+    static final int START = 4;
+    /**
+     * {@code double bound, batch} → {@code double goalCost, long settled, long relaxed,
+     * long pushes, long decreaseKeys, int frontier, batch}.
+     */
+    static final int ROUND = 5;
+    /**
+     * {@code int global} → {@code int length, int[length] global, boolean continues}:
+     * the path back from an owned vertex until it leaves the worker's region.
+     */
+    static final int PATH = 6;
+    /** → {@code double[owned]} costs of the owned vertices. */
+    static final int COSTS = 7;
+    static final int END = 8;
+    static final int QUIT = 9;
+    /**
+     * {@code int fileIndex} → {@code int global}, -1 unless the vertex at that
+     * index of the graph file is owned by the worker.
+     */
+    static final int FIND_INDEX = 10;
+
+    private ShardProtocol() { }
+
+    static SocketAddress parseAddress(String address) {
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+        }
+        if (address.startsWith("tcp:")) {
+            int colon = address.lastIndexOf(':');
+            if (colon > "tcp:".length()) {
+                return new InetSocketAddress(address.substring("tcp:".length(), colon),
+                    Integer.parseInt(address.substring(colon + 1)));
+            }
+        }
+        throw new IllegalArgumentException("Malformed address " + address);
+    }
+
+    static String formatAddress(SocketAddress address) {
+        if (address instanceof UnixDomainSocketAddress) {
+            return "unix:" + ((UnixDomainSocketAddress) address).getPath();
+        }
+        InetSocketAddress inet = (InetSocketAddress) address;
+        return "tcp:" + inet.getHostString() + ":" + inet.getPort();
+    }
+
+    /**
+     * Tentative costs sent across a shard boundary: {@code int size}, then
+     * {@code int vertex, double cost, int parent} each, all by global id.
+     */
+    static final class Batch {
+
+        int size;
+        int[] vertices = new int[16];
+        double[] costs = new double[16];
+        int[] parents = new int[16];
+
+        void add(int vertex, double cost, int parent) {
+            if (size == vertices.length) {
+                vertices = Arrays.copyOf(vertices, 2 * size);
+                costs = Arrays.copyOf(costs, 2 * size);
+                parents = Arrays.copyOf(parents, 2 * size);
+            }
+            vertices[size] = vertex;
+            costs[size] = cost;
+            parents[size] = parent;
+            ++size;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; ++i) {
+                out.writeInt(vertices[i]);
+                out.writeDouble(costs[i]);
+                out.writeInt(parents[i]);
+            }
+        }
+
+        /**
+         * Replaces the batch's contents with one read from a stream.
+         */
+        void read(DataInputStream in) throws IOException {
+            size = 0;
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Malformed batch of " + count);
+            }
+            for (int i = 0; i < count; ++i) {
+                add(in.readInt(), in.readDouble(), in.readInt());
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package pathfinding.shard;
+
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.SearchWorkspace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+
+/**
+ * Process serving one shard to a {@link ShardCluster}.
+ *
+ * <pre>
+ * ShardWorker &lt;shard file&gt; [--listen=tcp:host:port | --listen=unix:path] [--stop-on-eof]
+ * </pre>
+ *
+ * Once the shard is loaded, the worker prints {@code listening <address>}
+ * on stdout and answers one coordinator at a time. Port 0 picks a free
+ * port. With {@code --stop-on-eof} it exits when its stdin closes, so
+ * workers started by a coordinator never outlive it.
+ *
+ * <p>During a search the worker runs Dijkstra, or A* towards a goal, over its
+ * region, rounds at a time. Each round starts from the costs other shards
+ * found for its vertices, and returns the costs it found for its ghosts,
+ * which the coordinator forwards to their owners. Vertices whose cost plus
+ * heuristic reaches the best goal cost known are pruned. Costs may still
+ * drop in a later round, in which case the vertex is expanded again.
+ */
+public final class ShardWorker {
+
+    private static final int NONE = SearchWorkspace.NONE;
+
+    private final Shard shard;
+    private final CompactGraph graph;
+    private final int owned;
+
+    // State of the search in progress
+    private SearchWorkspace workspace;
+    private int goal = NONE;
+    private double goalX;
+    private double goalY;
+    private double scale;
+    private double bound;
+
+    // Ghosts whose cost dropped in the current round, each listed once
+    private final int[] changedRound;
+    private final int[] changed;
+    private int changedCount;
+    private int round;
+
+    private final ShardProtocol.Batch batch = new ShardProtocol.Batch();
+    private long settled;
+    private long relaxed;
+    private long pushes;
+    private long decreaseKeys;
+
+    public ShardWorker(Shard shard) {
+        this.shard = shard;
+        this.graph = shard.graph();
+        this.owned = shard.ownedCount();
+        int ghosts = graph.vertexCount() - owned;
+        changedRound = new int[ghosts];
+        changed = new int[ghosts];
+    }
+
+    public static void main(String[] args) {
+        String shardFile = null;
+        String listen = "tcp:127.0.0.1:0";
+        boolean stopOnEof = false;
+        for (String arg : args) {
+            if (arg.startsWith("--listen=")) {
+                listen = arg.substring("--listen=".length());
+            } else if (arg.equals("--stop-on-eof")) {
+                stopOnEof = true;
+            } else {
+                shardFile = arg;
+            }
+        }
+        if (shardFile == null) {
+            System.err.println("Usage: ShardWorker <shard file> "
+                + "[--listen=tcp:host:port | --listen=unix:path] [--stop-on-eof]");
+            System.exit(2);
+            return;
+        }
+        if (stopOnEof) {
+            Thread watcher = new Thread(() -> {
+                try {
+                    while (System.in.read() >= 0) {
+                        // Nothing is expected on stdin, only its end
+                    }
+                } catch (IOException e) {
+                    // The parent is gone either way
+                }
+                System.exit(0);
+            }, "stop-on-eof");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        try {
+            ShardWorker worker = new ShardWorker(Shard.read(new File(shardFile)));
+            worker.serve(ShardProtocol.parseAddress(listen));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Shard worker failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Listens on an address and answers coordinators one after the other,
+     * until one of them sends {@code QUIT}.
+     *
+     * @param address address to listen on
+     * @throws IOException error listening
+     */
+    public void serve(SocketAddress address) throws IOException {
+        boolean unix = address instanceof UnixDomainSocketAddress;
+        try (ServerSocketChannel server = unix
+                 ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                 : ServerSocketChannel.open()) {
+            server.bind(address);
+            System.out.println("listening " + ShardProtocol.formatAddress(server.getLocalAddress()));
+            System.out.flush();
+            boolean quit = false;
+            while (!quit) {
+                SocketChannel channel = server.accept();
+                try (channel) {
+                    if (address instanceof InetSocketAddress) {
+                        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    }
+                    quit = answer(
+                        new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16)),
+                        new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)));
+                } catch (EOFException e) {
+                    // The coordinator hung up, wait for the next one
+                } catch (IOException | RuntimeException e) {
+                    // A bad request only costs its own connection
+                    System.err.println("Dropped coordinator: " + e.getMessage());
+                } finally {
+                    endSearch();
+                }
+            }
+        } finally {
+            if (unix) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            }
+        }
+    }
+
+    /**
+     * Answers requests until the connection ends.
+     *
+     * @return true if the coordinator asked the worker to quit
+     */
+    private boolean answer(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            int op = in.readInt();
+            switch (op) {
+                case ShardProtocol.INFO:
+                    out.writeInt(shard.index());
+                    out.writeInt(shard.shardCount());
+                    for (int bound : shard.bounds()) {
+                        out.writeInt(bound);
+                    }
+                    out.writeDouble(graph.heuristicScale());
+                    break;
+                case ShardProtocol.FIND: {
+                    int v = graph.indexOf(in.readUTF());
+                    out.writeInt(v >= 0 && shard.isOwned(v) ? shard.globalId(v) : -1);
+                    break;
+                }
+                case ShardProtocol.FIND_INDEX: {
+                    int v = shard.localIdOfFileIndex(in.readInt());
+                    out.writeInt(v >= 0 ? shard.globalId(v) : -1);
+                    break;
+                }
+                case ShardProtocol.DESCRIBE: {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; ++i) {
+                        int v = ownedLocal(in.readInt());
+                        out.writeDouble(graph.x(v));
+                        out.writeDouble(graph.y(v));
+                        out.writeUTF(graph.name(v));
+                    }
+                    break;
+                }
+                case ShardProtocol.START:
+                    startSearch(in.readInt(), in.readDouble(), in.readDouble(), in.readDouble());
+                    continue;
+                case ShardProtocol.ROUND:
+                    runRound(in, out);
+                    break;
+                case ShardProtocol.PATH:
+                    checkSearch();
+                    writePath(ownedLocal(in.readInt()), out);
+                    break;
+                case ShardProtocol.COSTS:
+                    checkSearch();
+                    for (int v = 0; v < owned; ++v) {
+                        out.writeDouble(workspace.dist(v));
+                    }
+                    break;
+                case ShardProtocol.END:
+                    endSearch();
+                    continue;
+                case ShardProtocol.QUIT:
+                    return true;
+                default:
+                    throw new IOException("Unknown request " + op);
+            }
+            out.flush();
+        }
+    }
+
+    private int ownedLocal(int global) throws IOException {
+        int v = shard.localId(global);
+        if (v < 0 || !shard.isOwned(v)) {
+            throw new IOException("Vertex " + global + " is not in shard " + shard.index());
+        }
+        return v;
+    }
+
+    private void checkSearch() throws IOException {
+        if (workspace == null) {
+            throw new IOException("No search started");
+        }
+    }
+
+    private void startSearch(int goalGlobal, double x, double y, double heuristicScale) {
+        endSearch();
+        workspace = SearchWorkspace.acquire(graph.vertexCount());
+        goal = goalGlobal < 0 ? NONE : shard.localId(goalGlobal);
+        goalX = x;
+        goalY = y;
+        scale = goalGlobal < 0 ? 0.0 : heuristicScale;
+        bound = Double.POSITIVE_INFINITY;
+    }
+
+    private void endSearch() {
+        if (workspace != null) {
+            workspace.close();
+            workspace = null;
+        }
+    }
+
+    /**
+     * Takes in the costs found by other shards, searches until nothing
+     * queued can beat the bound, and sends back the ghosts that improved.
+     */
+    private void runRound(DataInputStream in, DataOutputStream out) throws IOException {
+        checkSearch();
+        ++round;
+        changedCount = 0;
+        settled = 0;
+        relaxed = 0;
+        pushes = 0;
+        decreaseKeys = 0;
+        bound = Math.min(bound, in.readDouble());
+        batch.read(in);
+        for (int i = 0; i < batch.size; ++i) {
+            int parent = batch.parents[i];
+            relax(ownedLocal(batch.vertices[i]), batch.costs[i],
+                parent < 0 ? NONE : shard.localId(parent));
+        }
+        int frontier = workspace.queueSize();
+        while (!workspace.isQueueEmpty() && workspace.minKey() < bound) {
+            int current = workspace.poll();
+            ++settled;
+            double currentDist = workspace.dist(current);
+            if (current == goal) {
+                // Only cheaper paths are worth following from now on
+                bound = currentDist;
+                continue;
+            }
+            for (int a = graph.arcStart(current), end = graph.arcEnd(current); a < end; ++a) {
+                ++relaxed;
+                relax(graph.arcHead(a), currentDist + graph.arcWeight(a), current);
+            }
+            frontier = Math.max(frontier, workspace.queueSize());
+        }
+
+        out.writeDouble(goal != NONE && shard.isOwned(goal) ? workspace.dist(goal)
+            : Double.POSITIVE_INFINITY);
+        out.writeLong(settled);
+        out.writeLong(relaxed);
+        out.writeLong(pushes);
+        out.writeLong(decreaseKeys);
+        out.writeInt(frontier);
+        batch.size = 0;
+        for (int i = 0; i < changedCount; ++i) {
+            int ghost = changed[i];
+            // The bound may have dropped since the ghost was reached
+            if (workspace.dist(ghost) + heuristic(ghost) < bound) {
+                batch.add(shard.globalId(ghost), workspace.dist(ghost),
+                    shard.globalId(workspace.parent(ghost)));
+            }
+        }
+        batch.write(out);
+    }
+
+    private void relax(int v, double cost, int parent) {
+        if (cost >= workspace.dist(v)) {
+            return;
+        }
+        double key = cost + heuristic(v);
+        if (key >= bound) {
+            return;
+        }
+        workspace.reach(v, cost, parent, NONE);
+        if (shard.isOwned(v)) {
+            int queued = workspace.insertOrDecrease(v, key);
+            if (queued == SearchWorkspace.INSERTED) {
+                ++pushes;
+            } else if (queued == SearchWorkspace.DECREASED) {
+                ++decreaseKeys;
+            }
+        } else {
+            // Ghosts are expanded by their owner, after the exchange
+            int ghost = v - owned;
+            if (changedRound[ghost] != round) {
+                changedRound[ghost] = round;
+                changed[changedCount++] = v;
+            }
+        }
+    }
+
+    private double heuristic(int v) {
+        if (scale == 0.0) {
+            return 0.0;
+        }
+        if (!workspace.hasHeuristic(v)) {
+            double dx = graph.x(v) - goalX;
+            double dy = graph.y(v) - goalY;
+            workspace.setHeuristic(v, scale * Math.sqrt(dx * dx + dy * dy));
+        }
+        return workspace.heuristic(v);
+    }
+
+    /**
+     * Writes the path back from an owned vertex, up to the source or the
+     * first vertex of another shard.
+     */
+    private void writePath(int v, DataOutputStream out) throws IOException {
+        int length = 0;
+        for (int u = v; u != NONE; u = shard.isOwned(u) ? workspace.parent(u) : NONE) {
+            ++length;
+        }
+        out.writeInt(length);
+        int last = v;
+        for (int u = v; u != NONE; u = shard.isOwned(u) ? workspace.parent(u) : NONE) {
+            out.writeInt(shard.globalId(u));
+            last = u;
+        }
+        out.writeBoolean(!shard.isOwned(last));
+    }
+}
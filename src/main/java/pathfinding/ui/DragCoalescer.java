@@ -0,0 +1,63 @@
+package pathfinding.ui;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Moves a dragged node at most once per pulse, to the last position the
+ * mouse asked for. Mouse events can arrive several times per frame, and
+ * every move updates the geometry of all the node's connections, so
+ * dragging a hub with hundreds of them would otherwise redo that work for
+ * positions that are never drawn.
+ */
+public class DragCoalescer {
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+    private GraphNode node;
+    private double x;
+    private double y;
+    private boolean pending;
+
+    /**
+     * Starts following a drag; positions are applied on every pulse until
+     * {@link #end()}.
+     */
+    public void begin(GraphNode node) {
+        flush();
+        this.node = node;
+        timer.start();
+    }
+
+    /**
+     * Asks for the node to be moved on the next pulse, replacing any move
+     * still pending.
+     */
+    public void moveTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+        pending = node != null;
+    }
+
+    /**
+     * Applies the pending move, if any, right away.
+     */
+    public void flush() {
+        if (pending) {
+            pending = false;
+            node.moveTo(x, y);
+        }
+    }
+
+    /**
+     * Applies the last position & stops following the drag.
+     */
+    public void end() {
+        flush();
+        timer.stop();
+        node = null;
+    }
+}
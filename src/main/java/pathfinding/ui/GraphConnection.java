@@ -2,6 +2,7 @@ package pathfinding.ui;
 
 import javafx.animation.Interpolator;
 import javafx.animation.Transition;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -28,6 +29,8 @@ public class GraphConnection extends Region {
                 parent.getChildren().remove(GraphConnection.this);
                 GraphConnection.this.node1.deleted.removeListener(this);
                 GraphConnection.this.node2.deleted.removeListener(this);
+                unfollow(GraphConnection.this.node1);
+                unfollow(GraphConnection.this.node2);
             }
         }
     }
@@ -39,6 +42,13 @@ public class GraphConnection extends Region {
     private final Label weightLabel;
     private final GraphNode node1, node2;
     private final DoubleProperty weight;
+    // A node being moved updates its connections itself, once both
+    // coordinates are set
+    private final InvalidationListener geometryListener = observable -> {
+        if (!getNode1().isMoving() && !getNode2().isMoving()) {
+            updateGeometry();
+        }
+    };
 
     public GraphConnection(GraphNode node1, GraphNode node2, DoubleProperty weight) {
         this.node1 = node1;
@@ -50,14 +60,6 @@ public class GraphConnection extends Region {
         node2.deleted.addListener(listener);
 
         line = new Line();
-        line.startXProperty().bind(
-            node1.layoutXProperty().add(node1.widthProperty().divide(2)));
-        line.startYProperty().bind(
-            node1.layoutYProperty().add(node1.heightProperty().divide(2)));
-        line.endXProperty().bind(
-            node2.layoutXProperty().add(node2.widthProperty().divide(2)));
-        line.endYProperty().bind(
-            node2.layoutYProperty().add(node2.heightProperty().divide(2)));
         line.setStrokeWidth(2);
         resetColor();
         line.setStrokeLineCap(StrokeLineCap.BUTT);
@@ -68,14 +70,13 @@ public class GraphConnection extends Region {
         weightLabel.textProperty().bind(weight.asString());
         weightLabel.setFont(Font.font("Segoe UI", 18));
         weightLabel.setTextFill(TEXT_FILL);
-        weightLabel.layoutXProperty().bind(
-            line.startXProperty().add(line.endXProperty()).divide(2).subtract(
-                weightLabel.widthProperty().divide(2))
-        );
-        weightLabel.layoutYProperty().bind(
-            line.startYProperty().add(line.endYProperty()).divide(2).subtract(
-                weightLabel.heightProperty().divide(2))
-        );
+        // Geometry is computed directly rather than through chains of
+        // bindings, which cost several objects per connection to update
+        follow(node1);
+        follow(node2);
+        weightLabel.widthProperty().addListener(geometryListener);
+        weightLabel.heightProperty().addListener(geometryListener);
+        updateGeometry();
         weightLabel.setOnMouseClicked(mouseEvent -> {
             mouseEvent.consume();
 
@@ -87,6 +88,10 @@ public class GraphConnection extends Region {
             }
             try {
                 double newWeight = Double.parseDouble(result.get());
+                if (!(newWeight >= 0.0) || Double.isInfinite(newWeight)) {
+                    System.out.println("Weights must be finite & non-negative.");
+                    return;
+                }
                 this.weight.set(newWeight);
             } catch (NumberFormatException e) {
                 System.out.println("Unknown format.");
@@ -97,6 +102,39 @@ public class GraphConnection extends Region {
         getChildren().addAll(line, weightLabel);
     }
 
+    private void follow(GraphNode node) {
+        node.layoutXProperty().addListener(geometryListener);
+        node.layoutYProperty().addListener(geometryListener);
+        node.widthProperty().addListener(geometryListener);
+        node.heightProperty().addListener(geometryListener);
+        node.attach(this);
+    }
+
+    private void unfollow(GraphNode node) {
+        node.layoutXProperty().removeListener(geometryListener);
+        node.layoutYProperty().removeListener(geometryListener);
+        node.widthProperty().removeListener(geometryListener);
+        node.heightProperty().removeListener(geometryListener);
+        node.detach(this);
+    }
+
+    /**
+     * Puts the line between the centers of the nodes and the weight label
+     * at its middle.
+     */
+    void updateGeometry() {
+        double startX = node1.getLayoutX() + node1.getWidth() / 2;
+        double startY = node1.getLayoutY() + node1.getHeight() / 2;
+        double endX = node2.getLayoutX() + node2.getWidth() / 2;
+        double endY = node2.getLayoutY() + node2.getHeight() / 2;
+        line.setStartX(startX);
+        line.setStartY(startY);
+        line.setEndX(endX);
+        line.setEndY(endY);
+        weightLabel.setLayoutX((startX + endX) / 2 - weightLabel.getWidth() / 2);
+        weightLabel.setLayoutY((startY + endY) / 2 - weightLabel.getHeight() / 2);
+    }
+
     public GraphNode getNode1() {
         return node1;
     }
@@ -16,6 +16,9 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.util.Duration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class GraphNode extends Region {
 
     private static final Color RECT_FILL = Color.web("#383838");
@@ -23,6 +26,9 @@ public class GraphNode extends Region {
 
     private final StringProperty data;
     private final Label label;
+    // Connections ending here, whose geometry follows the node
+    private final List<GraphConnection> connections = new ArrayList<>();
+    private boolean moving;
 
     public final BooleanProperty deleted = new SimpleBooleanProperty(false);
 
@@ -49,6 +55,38 @@ public class GraphNode extends Region {
         deleted.set(true);
     }
 
+    /**
+     * Moves the node to a new position, updating the geometry of every
+     * connection once rather than once per coordinate.
+     *
+     * @param x new layout x
+     * @param y new layout y
+     */
+    public void moveTo(double x, double y) {
+        moving = true;
+        try {
+            setLayoutX(x);
+            setLayoutY(y);
+        } finally {
+            moving = false;
+        }
+        for (GraphConnection connection : connections) {
+            connection.updateGeometry();
+        }
+    }
+
+    boolean isMoving() {
+        return moving;
+    }
+
+    void attach(GraphConnection connection) {
+        connections.add(connection);
+    }
+
+    void detach(GraphConnection connection) {
+        connections.remove(connection);
+    }
+
     public String getData() {
         return data.get();
     }
@@ -57,6 +95,10 @@ public class GraphNode extends Region {
         data.set(s);
     }
 
+    public StringProperty getDataProperty() {
+        return data;
+    }
+
     public void resetColor() {
         setColor(RECT_FILL, TEXT_FILL);
     }
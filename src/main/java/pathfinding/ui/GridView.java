@@ -0,0 +1,118 @@
+package pathfinding.ui;
+
+import javafx.geometry.Point2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import pathfinding.engine.GridMap;
+
+/**
+ * Draws a grid map, scaled to fit its size, with an optional path on top.
+ * Maps have up to millions of cells, so they are painted onto one canvas
+ * rather than made of nodes.
+ */
+public class GridView extends Canvas {
+
+    private static final Color FREE_FILL = Color.web("#5a5a5a");
+    private static final Color BLOCKED_FILL = Color.web("#1e1e1e");
+    private static final Color PATH_FILL = Color.ORANGE;
+    private static final Color ENDPOINT_FILL = Color.DEEPSKYBLUE;
+
+    private final GridMap map;
+    private int[] path = new int[0];
+    private int start = -1;
+
+    public GridView(GridMap map) {
+        this.map = map;
+        widthProperty().addListener((observable, oldValue, newValue) -> draw());
+        heightProperty().addListener((observable, oldValue, newValue) -> draw());
+    }
+
+    public GridMap getMap() {
+        return map;
+    }
+
+    /**
+     * Returns the cell under a point of the canvas.
+     *
+     * @param point position in the canvas' coordinates
+     * @return the cell, or -1 outside the map
+     */
+    public int cellAt(Point2D point) {
+        double size = cellSize();
+        int x = (int) Math.floor(point.getX() / size);
+        int y = (int) Math.floor(point.getY() / size);
+        if (x < 0 || y < 0 || x >= map.width() || y >= map.height()) {
+            return -1;
+        }
+        return map.cell(x, y);
+    }
+
+    /**
+     * Marks the start of a path being chosen, -1 for none.
+     */
+    public void setStart(int cell) {
+        start = cell;
+        draw();
+    }
+
+    public void showPath(int[] cells) {
+        path = cells;
+        draw();
+    }
+
+    public void clearPath() {
+        path = new int[0];
+        start = -1;
+        draw();
+    }
+
+    private double cellSize() {
+        return Math.max(Double.MIN_NORMAL,
+            Math.min(getWidth() / map.width(), getHeight() / map.height()));
+    }
+
+    public void draw() {
+        GraphicsContext g = getGraphicsContext2D();
+        double size = cellSize();
+        g.clearRect(0, 0, getWidth(), getHeight());
+        g.setFill(FREE_FILL);
+        g.fillRect(0, 0, size * map.width(), size * map.height());
+        g.setFill(BLOCKED_FILL);
+        for (int y = 0; y < map.height(); ++y) {
+            // Runs of blocked cells in one rectangle each
+            int x = 0;
+            while (x < map.width()) {
+                if (map.isFree(x, y)) {
+                    ++x;
+                    continue;
+                }
+                int end = x + 1;
+                while (end < map.width() && !map.isFree(end, y)) {
+                    ++end;
+                }
+                g.fillRect(x * size, y * size, (end - x) * size, size);
+                x = end;
+            }
+        }
+        g.setFill(PATH_FILL);
+        for (int cell : path) {
+            fillCell(g, cell, size);
+        }
+        g.setFill(ENDPOINT_FILL);
+        if (path.length > 0) {
+            fillCell(g, path[0], size);
+            fillCell(g, path[path.length - 1], size);
+        }
+        if (start >= 0) {
+            fillCell(g, start, size);
+        }
+    }
+
+    private void fillCell(GraphicsContext g, int cell, double size) {
+        // At least a pixel, so paths stay visible on large maps
+        double drawn = Math.max(size, 1.0);
+        g.fillRect(map.x(cell) * size, map.y(cell) * size, drawn, drawn);
+    }
+}
@@ -0,0 +1,50 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.Random;
+
+class AllPairsTest {
+
+    @Test
+    void tablesMatchDijkstra() {
+        Random random = new Random(21);
+        // Past one Floyd-Warshall block, and dense enough for compute() to
+        // pick it on some rounds
+        for (int round = 0; round < 8; ++round) {
+            int n = 1 + random.nextInt(150);
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, n, random.nextInt(n * n / 2 + 1));
+            AllPairs[] tables = {AllPairs.floydWarshall(graph), AllPairs.dijkstra(graph), AllPairs.compute(graph)};
+            for (int source = 0; source < n; ++source) {
+                double[] expected = ReferenceGraphs.dijkstra(graph, source);
+                for (AllPairs table : tables) {
+                    for (int goal = 0; goal < n; ++goal) {
+                        String what = source + "->" + goal + ", round " + round;
+                        assertCost(expected[goal], table.cost(source, goal), what);
+                        PathResult path = table.path(source, goal);
+                        assertCost(expected[goal], path.cost, what);
+                        PathSearchTest.checkPath(graph, path, source, goal, what);
+                        if (expected[goal] == Double.POSITIVE_INFINITY) {
+                            assertEquals(-1, table.nextHop(source, goal), what);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsLargeGraphs() {
+        GraphBuilder builder = new GraphBuilder();
+        for (int v = 0; v <= AllPairs.MAX_VERTICES; ++v) {
+            builder.addVertex(v, 0.0, "v" + v);
+        }
+        CompactGraph graph = builder.build();
+        assertThrows(IllegalArgumentException.class, () -> AllPairs.floydWarshall(graph));
+        assertThrows(IllegalArgumentException.class, () -> AllPairs.dijkstra(graph));
+    }
+}
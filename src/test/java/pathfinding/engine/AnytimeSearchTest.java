@@ -0,0 +1,46 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class AnytimeSearchTest {
+
+    @Test
+    void solutionsKeepTheirBoundsAndEndOptimal() {
+        Random random = new Random(41);
+        for (int round = 0; round < 20; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 5 + random.nextInt(80), random.nextInt(100));
+            int n = graph.vertexCount();
+            for (int query = 0; query < 5; ++query) {
+                int source = random.nextInt(n);
+                int goal = random.nextInt(n);
+                double expected = ReferenceGraphs.dijkstra(graph, source)[goal];
+                List<AnytimeSearch.Solution> solutions = new ArrayList<>();
+                AnytimeSearch.Solution last = AnytimeSearch.search(graph, source, goal,
+                    1.0 + random.nextDouble() * 4.0, 0.5, solutions::add);
+                String what = "ARA* " + source + "->" + goal;
+                assertCost(expected, last.result.cost, what);
+                if (expected == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                assertTrue(last.isOptimal(), what);
+                double previous = Double.POSITIVE_INFINITY;
+                for (AnytimeSearch.Solution solution : solutions) {
+                    assertTrue(solution.result.cost <= solution.bound * expected + ReferenceGraphs.EPSILON,
+                        what + " within its bound");
+                    assertTrue(solution.result.cost <= previous + ReferenceGraphs.EPSILON, what + " improving");
+                    previous = solution.result.cost;
+                    PathSearchTest.checkPath(graph, solution.result, source, goal, what);
+                }
+                assertEquals(last.result.cost, solutions.get(solutions.size() - 1).result.cost, what);
+            }
+        }
+    }
+}
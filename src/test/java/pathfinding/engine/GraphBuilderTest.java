@@ -0,0 +1,239 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+class GraphBuilderTest {
+
+    /**
+     * Vertices & edges kept in plain lists, renumbered on removal the way
+     * the builder documents it.
+     */
+    private static final class Model {
+
+        final List<double[]> positions = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<int[]> ends = new ArrayList<>();
+        final List<Double> weights = new ArrayList<>();
+
+        Model copy() {
+            Model copy = new Model();
+            for (double[] position : positions) {
+                copy.positions.add(position.clone());
+            }
+            copy.names.addAll(names);
+            for (int[] edge : ends) {
+                copy.ends.add(edge.clone());
+            }
+            copy.weights.addAll(weights);
+            return copy;
+        }
+
+        int degree(int v) {
+            int degree = 0;
+            for (int[] edge : ends) {
+                degree += (edge[0] == v ? 1 : 0) + (edge[1] == v ? 1 : 0);
+            }
+            return degree;
+        }
+
+        int removeEdge(int e) {
+            int last = ends.size() - 1;
+            ends.set(e, ends.get(last));
+            weights.set(e, weights.get(last));
+            ends.remove(last);
+            weights.remove(last);
+            return last == e ? -1 : last;
+        }
+
+        int removeVertex(int v) {
+            int last = positions.size() - 1;
+            positions.set(v, positions.get(last));
+            names.set(v, names.get(last));
+            positions.remove(last);
+            names.remove(last);
+            for (int[] edge : ends) {
+                for (int k = 0; k < 2; ++k) {
+                    if (edge[k] == last) {
+                        edge[k] = v;
+                    }
+                }
+            }
+            return last == v ? -1 : last;
+        }
+
+        /**
+         * Builds the model's graph from scratch, in a fresh builder.
+         */
+        CompactGraph build() {
+            GraphBuilder builder = new GraphBuilder();
+            for (int v = 0; v < positions.size(); ++v) {
+                builder.addVertex(positions.get(v)[0], positions.get(v)[1], names.get(v));
+            }
+            for (int e = 0; e < ends.size(); ++e) {
+                builder.connect(ends.get(e)[0], ends.get(e)[1], weights.get(e));
+            }
+            return builder.build();
+        }
+    }
+
+    @Test
+    void snapshotsMatchGraphsBuiltFromScratch() {
+        Random random = new Random(111);
+        for (int sequence = 0; sequence < 300; ++sequence) {
+            GraphBuilder builder = new GraphBuilder();
+            Model model = new Model();
+            List<CompactGraph> snapshots = new ArrayList<>();
+            List<Model> snapshotModels = new ArrayList<>();
+            TreeSet<Integer> edited = new TreeSet<>();
+            boolean topologyChanged = true;
+
+            for (int step = 0; step < 60; ++step) {
+                int n = model.positions.size();
+                int m = model.ends.size();
+                int op = random.nextInt(10);
+                if (op == 0 || n == 0) {
+                    double x = random.nextDouble() * 100.0;
+                    double y = random.nextDouble() * 100.0;
+                    assertEquals(n, builder.addVertex(x, y, "v" + step));
+                    model.positions.add(new double[] {x, y});
+                    model.names.add("v" + step);
+                    topologyChanged = true;
+                } else if (op <= 2) {
+                    int u = random.nextInt(n);
+                    // Loops now & then
+                    int v = random.nextInt(8) == 0 ? u : random.nextInt(n);
+                    double weight = random.nextDouble() * 10.0;
+                    assertEquals(m, builder.connect(u, v, weight));
+                    model.ends.add(new int[] {u, v});
+                    model.weights.add(weight);
+                    topologyChanged = true;
+                } else if (op == 3 && m > 0) {
+                    int e = random.nextInt(m);
+                    double weight = random.nextDouble() * 10.0;
+                    builder.setWeight(e, weight);
+                    model.weights.set(e, weight);
+                    edited.add(e);
+                } else if (op == 4 && m > 0) {
+                    int[] edges = random.ints(1 + random.nextInt(3), 0, m).distinct().toArray();
+                    double[] weights = new double[edges.length];
+                    for (int i = 0; i < edges.length; ++i) {
+                        weights[i] = random.nextDouble() * 10.0;
+                        model.weights.set(edges[i], weights[i]);
+                        edited.add(edges[i]);
+                    }
+                    builder.setWeights(edges, weights);
+                } else if (op == 5) {
+                    int v = random.nextInt(n);
+                    double x = random.nextDouble() * 100.0;
+                    double y = random.nextDouble() * 100.0;
+                    builder.moveVertex(v, x, y);
+                    model.positions.set(v, new double[] {x, y});
+                } else if (op == 6) {
+                    int v = random.nextInt(n);
+                    builder.renameVertex(v, "r" + step);
+                    model.names.set(v, "r" + step);
+                } else if (op == 7 && m > 0) {
+                    int e = random.nextInt(m);
+                    assertEquals(model.removeEdge(e), builder.removeEdge(e));
+                    topologyChanged = true;
+                } else if (op == 8) {
+                    int v = random.nextInt(n);
+                    if (model.degree(v) > 0) {
+                        assertThrows(IllegalStateException.class, () -> builder.removeVertex(v));
+                    } else {
+                        assertEquals(model.removeVertex(v), builder.removeVertex(v));
+                        topologyChanged = true;
+                    }
+                } else {
+                    CompactGraph graph = builder.build();
+                    assertSame(model.build(), graph, "Sequence " + sequence + ", step " + step);
+                    snapshots.add(graph);
+                    snapshotModels.add(model.copy());
+                    topologyChanged = false;
+                    edited.clear();
+                }
+
+                String what = "Sequence " + sequence + ", step " + step;
+                assertEquals(topologyChanged, builder.isTopologyChanged(), what);
+                if (topologyChanged) {
+                    assertNull(builder.changedEdges(), what);
+                } else {
+                    assertArrayEquals(edited.stream().mapToInt(Integer::intValue).toArray(),
+                        builder.changedEdges(), what);
+                }
+            }
+            // Later edits never leak into snapshots sharing their arrays
+            for (int i = 0; i < snapshots.size(); ++i) {
+                assertSame(snapshotModels.get(i).build(), snapshots.get(i), "Sequence " + sequence + ", snapshot " + i);
+            }
+        }
+    }
+
+    @Test
+    void buildWithoutChangesReturnsTheSameSnapshot() {
+        GraphBuilder builder = new GraphBuilder();
+        builder.addVertex(0.0, 0.0, "a");
+        builder.addVertex(1.0, 0.0, "b");
+        builder.connect(0, 1, 2.0);
+        CompactGraph graph = builder.build();
+        assertTrue(graph == builder.build());
+        assertFalse(builder.isTopologyChanged());
+        assertEquals(0, builder.changedEdges().length);
+    }
+
+    @Test
+    void invalidWeightsAreRejectedWithoutChanges() {
+        GraphBuilder builder = new GraphBuilder();
+        builder.addVertex(0.0, 0.0, "a");
+        builder.addVertex(1.0, 0.0, "b");
+        builder.connect(0, 1, 2.0);
+        builder.build();
+        for (double weight : new double[] {-5.0, Double.NaN, Double.POSITIVE_INFINITY}) {
+            assertThrows(IllegalArgumentException.class, () -> builder.setWeight(0, weight));
+            assertThrows(IllegalArgumentException.class,
+                () -> builder.setWeights(new int[] {0}, new double[] {weight}));
+        }
+        assertEquals(2.0, builder.weight(0));
+        assertEquals(0, builder.changedEdges().length);
+    }
+
+    /**
+     * Compares vertices, edges & every vertex's arcs.
+     */
+    private static void assertSame(CompactGraph expected, CompactGraph actual, String what) {
+        assertEquals(expected.vertexCount(), actual.vertexCount(), what);
+        assertEquals(expected.edgeCount(), actual.edgeCount(), what);
+        for (int v = 0; v < expected.vertexCount(); ++v) {
+            assertEquals(expected.x(v), actual.x(v), what);
+            assertEquals(expected.y(v), actual.y(v), what);
+            assertEquals(expected.name(v), actual.name(v), what);
+            assertEquals(arcs(expected, v), arcs(actual, v), what + ", arcs of " + v);
+        }
+        for (int e = 0; e < expected.edgeCount(); ++e) {
+            assertEquals(expected.edgeFrom(e), actual.edgeFrom(e), what);
+            assertEquals(expected.edgeTo(e), actual.edgeTo(e), what);
+            assertEquals(expected.edgeWeight(e), actual.edgeWeight(e), what);
+        }
+    }
+
+    private static List<String> arcs(CompactGraph graph, int v) {
+        List<String> arcs = new ArrayList<>();
+        for (int a = graph.arcStart(v); a < graph.arcEnd(v); ++a) {
+            arcs.add(graph.arcHead(a) + ":" + graph.arcEdge(a) + ":" + graph.arcWeight(a));
+        }
+        arcs.sort(null);
+        return arcs;
+    }
+}
@@ -0,0 +1,70 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class GraphFilesTest {
+
+    @Test
+    void roundTripKeepsEveryVertexAndEdge() throws IOException {
+        Random random = new Random(101);
+        for (int round = 0; round < 30; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 1 + random.nextInt(60), random.nextInt(80));
+            StringWriter out = new StringWriter();
+            GraphFiles.write(graph, out);
+            CompactGraph loaded = GraphFiles.read(new StringReader(out.toString()));
+
+            String what = "Round " + round;
+            assertEquals(graph.vertexCount(), loaded.vertexCount(), what);
+            for (int v = 0; v < graph.vertexCount(); ++v) {
+                assertEquals(graph.x(v), loaded.x(v), what);
+                assertEquals(graph.y(v), loaded.y(v), what);
+                assertEquals(graph.name(v), loaded.name(v), what);
+            }
+            // Parallel edges included
+            assertEquals(edges(graph), edges(loaded), what);
+        }
+    }
+
+    @Test
+    void firstLineListingAPairConnectsIt() throws IOException {
+        // 0-1 only on 1's line, 0-2 on both with different weights, 1-2
+        // twice on 1's line only, and a loop on 2
+        String file = "0.0,0.0,a|1.0,0.0,b|2.0,0.0,c|\n"
+            + "5.0,2|\n"
+            + "3.0,0|4.0,2|6.0,2|\n"
+            + "7.0,0|8.0,2|\n";
+        CompactGraph graph = GraphFiles.read(new StringReader(file));
+        assertEquals(List.of("0-1:3.0", "0-2:5.0", "1-2:4.0", "1-2:6.0"), edges(graph));
+    }
+
+    @Test
+    void missingTrailingLinesMeanNoEdges() throws IOException {
+        CompactGraph graph = GraphFiles.read(new StringReader("0.0,0.0,a|1.0,1.0,b|\n2.5,1|"));
+        assertArrayEquals(new String[] {"a", "b"}, new String[] {graph.name(0), graph.name(1)});
+        assertEquals(List.of("0-1:2.5"), edges(graph));
+    }
+
+    /**
+     * Lists every edge as {@code low-high:weight}, sorted.
+     */
+    private static List<String> edges(CompactGraph graph) {
+        List<String> edges = new ArrayList<>();
+        for (int e = 0; e < graph.edgeCount(); ++e) {
+            int u = Math.min(graph.edgeFrom(e), graph.edgeTo(e));
+            int v = Math.max(graph.edgeFrom(e), graph.edgeTo(e));
+            edges.add(u + "-" + v + ":" + graph.edgeWeight(e));
+        }
+        edges.sort(null);
+        return edges;
+    }
+}
@@ -0,0 +1,49 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.Random;
+
+class IsochroneTest {
+
+    @Test
+    void bandsMatchDijkstra() {
+        Random random = new Random(31);
+        for (int round = 0; round < 40; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 1 + random.nextInt(80), random.nextInt(100));
+            int n = graph.vertexCount();
+            int source = random.nextInt(n);
+            double[] expected = ReferenceGraphs.dijkstra(graph, source);
+            double[] thresholds = new double[1 + random.nextInt(3)];
+            for (int b = 0; b < thresholds.length; ++b) {
+                thresholds[b] = (b == 0 ? 0.0 : thresholds[b - 1]) + 1.0 + random.nextDouble() * 60.0;
+            }
+            Isochrone isochrone = Isochrone.compute(graph, source, thresholds);
+            double budget = thresholds[thresholds.length - 1];
+
+            int within = 0;
+            for (double cost : expected) {
+                if (cost <= budget) {
+                    ++within;
+                }
+            }
+            String what = "Round " + round;
+            assertEquals(within, isochrone.size(), what);
+            assertEquals(source, isochrone.vertices[0], what);
+            for (int b = 0; b < isochrone.bandCount(); ++b) {
+                double low = b == 0 ? Double.NEGATIVE_INFINITY : thresholds[b - 1];
+                for (int i = isochrone.bandStart(b); i < isochrone.bandEnd(b); ++i) {
+                    int v = isochrone.vertices[i];
+                    assertCost(expected[v], isochrone.costs[i], what + ", vertex " + v);
+                    assertTrue(isochrone.costs[i] > low && isochrone.costs[i] <= thresholds[b],
+                        what + ", vertex " + v + " in band " + b);
+                }
+            }
+            assertEquals(isochrone.size(), isochrone.bandEnd(isochrone.bandCount() - 1), what);
+        }
+    }
+}
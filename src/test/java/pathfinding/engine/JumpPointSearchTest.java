@@ -0,0 +1,72 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.Random;
+
+class JumpPointSearchTest {
+
+    @Test
+    void jumpsMatchDijkstraOnTheGridGraph() {
+        Random random = new Random(71);
+        for (int round = 0; round < 15; ++round) {
+            GridMap map = new GridMap(5 + random.nextInt(40), 5 + random.nextInt(40));
+            double density = random.nextDouble() * 0.4;
+            for (int y = 0; y < map.height(); ++y) {
+                for (int x = 0; x < map.width(); ++x) {
+                    if (random.nextDouble() < density) {
+                        map.setBlocked(x, y, true);
+                    }
+                }
+            }
+            int[] vertexOfCell = new int[map.cellCount()];
+            CompactGraph graph = map.toGraph(1.0, vertexOfCell);
+            JumpTable table = JumpTable.build(map);
+            for (int query = 0; query < 20; ++query) {
+                int start = random.nextInt(map.cellCount());
+                int goal = random.nextInt(map.cellCount());
+                double expected = vertexOfCell[start] < 0 || vertexOfCell[goal] < 0
+                    ? Double.POSITIVE_INFINITY
+                    : ReferenceGraphs.dijkstra(graph, vertexOfCell[start])[vertexOfCell[goal]];
+                String what = start + "->" + goal + ", round " + round;
+                checkCells(map, graph, vertexOfCell, JumpPointSearch.search(map, start, goal),
+                    start, goal, expected, "JPS " + what);
+                checkCells(map, graph, vertexOfCell, table.search(start, goal),
+                    start, goal, expected, "JPS+ " + what);
+            }
+        }
+    }
+
+    @Test
+    void tableRefusesChangedMaps() {
+        GridMap map = new GridMap(8, 8);
+        JumpTable table = JumpTable.build(map);
+        map.setBlocked(3, 3, true);
+        assertThrows(IllegalStateException.class, () -> table.search(0, 63));
+    }
+
+    /**
+     * Checks the cost of a path of cells, and that each cell is free &
+     * a move away from the previous one.
+     */
+    private static void checkCells(GridMap map, CompactGraph graph, int[] vertexOfCell, PathResult result,
+                                   int start, int goal, double expected, String what) {
+        assertCost(expected, result.cost, what);
+        if (!result.isFound()) {
+            return;
+        }
+        assertEquals(start, result.path[0], what);
+        assertEquals(goal, result.path[result.path.length - 1], what);
+        int[] vertices = new int[result.path.length];
+        for (int i = 0; i < vertices.length; ++i) {
+            vertices[i] = vertexOfCell[result.path[i]];
+            assertTrue(vertices[i] >= 0, what + " crosses a blocked cell");
+        }
+        assertCost(result.cost, ReferenceGraphs.pathCost(graph, vertices), what + " path");
+    }
+}
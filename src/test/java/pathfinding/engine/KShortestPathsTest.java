@@ -0,0 +1,70 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class KShortestPathsTest {
+
+    @Test
+    void costsMatchEveryLooplessPath() {
+        Random random = new Random(51);
+        for (int round = 0; round < 40; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 2 + random.nextInt(8), random.nextInt(10));
+            int n = graph.vertexCount();
+            int source = random.nextInt(n);
+            int goal = random.nextInt(n);
+            List<Double> expected = new ArrayList<>();
+            boolean[] visited = new boolean[n];
+            visited[source] = true;
+            enumerate(graph, source, goal, 0.0, visited, expected);
+            Collections.sort(expected);
+
+            int k = 1 + random.nextInt(12);
+            List<PathResult> paths = KShortestPaths.find(graph, source, goal, k);
+            String what = source + "->" + goal + ", round " + round;
+            assertEquals(Math.min(k, expected.size()), paths.size(), what);
+            assertCost(ReferenceGraphs.dijkstra(graph, source)[goal],
+                paths.isEmpty() ? Double.POSITIVE_INFINITY : paths.get(0).cost, what);
+            for (int i = 0; i < paths.size(); ++i) {
+                PathResult path = paths.get(i);
+                assertCost(expected.get(i), path.cost, what + ", path " + i);
+                assertEquals(source, path.path[0], what);
+                assertEquals(goal, path.path[path.path.length - 1], what);
+                Set<Integer> seen = new HashSet<>();
+                for (int v : path.path) {
+                    assertTrue(seen.add(v), what + ", path " + i + " loops");
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the cost of every loopless path to the goal, parallel edges
+     * making distinct paths.
+     */
+    private static void enumerate(CompactGraph graph, int v, int goal, double cost,
+                                  boolean[] visited, List<Double> costs) {
+        if (v == goal) {
+            costs.add(cost);
+            return;
+        }
+        for (int a = graph.arcStart(v); a < graph.arcEnd(v); ++a) {
+            int w = graph.arcHead(a);
+            if (!visited[w]) {
+                visited[w] = true;
+                enumerate(graph, w, goal, cost + graph.arcWeight(a), visited, costs);
+                visited[w] = false;
+            }
+        }
+    }
+}
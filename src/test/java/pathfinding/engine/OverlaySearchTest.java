@@ -0,0 +1,44 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.Random;
+
+class OverlaySearchTest {
+
+    @Test
+    void searchesMatchDijkstraAcrossUpdates() {
+        Random random = new Random(61);
+        for (int round = 0; round < 10; ++round) {
+            int n = 20 + random.nextInt(300);
+            GraphBuilder builder = ReferenceGraphs.randomBuilder(random, n, n + random.nextInt(n));
+            CompactGraph graph = builder.build();
+            MultiLevelPartition partition = random.nextBoolean()
+                ? MultiLevelPartition.build(graph, 8)
+                : MultiLevelPartition.build(graph, 4, 16, 64);
+            OverlayMetric metric = OverlayMetric.customize(partition, graph);
+            for (int update = 0; update < 4; ++update) {
+                for (int query = 0; query < 15; ++query) {
+                    int source = random.nextInt(n);
+                    int goal = random.nextInt(n);
+                    double expected = ReferenceGraphs.dijkstra(graph, source)[goal];
+                    PathResult result = OverlaySearch.search(metric, source, goal);
+                    String what = source + "->" + goal + ", round " + round + ", update " + update;
+                    assertCost(expected, result.cost, what);
+                    PathSearchTest.checkPath(graph, result, source, goal, what);
+                }
+                int[] edges = random.ints(1 + random.nextInt(10), 0, graph.edgeCount()).distinct().toArray();
+                double[] weights = new double[edges.length];
+                for (int i = 0; i < edges.length; ++i) {
+                    weights[i] = graph.edgeWeight(edges[i]) * random.nextDouble() * 3.0;
+                }
+                builder.setWeights(edges, weights);
+                int[] changed = builder.changedEdges();
+                graph = builder.build();
+                metric = metric.update(graph, changed);
+            }
+        }
+    }
+}
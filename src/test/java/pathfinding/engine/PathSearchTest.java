@@ -0,0 +1,88 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.Random;
+
+class PathSearchTest {
+
+    @Test
+    void optimalMethodsMatchDijkstra() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 5 + random.nextInt(60), random.nextInt(80));
+            int n = graph.vertexCount();
+            for (int query = 0; query < 10; ++query) {
+                int source = random.nextInt(n);
+                int goal = random.nextInt(n);
+                double expected = ReferenceGraphs.dijkstra(graph, source)[goal];
+                for (String method : new String[] {SearchMethods.UCS, SearchMethods.A_STAR}) {
+                    PathResult result = PathSearch.search(graph, source, goal, method);
+                    String what = method + " " + source + "->" + goal;
+                    assertCost(expected, result.cost, what);
+                    checkPath(graph, result, source, goal, what);
+                }
+            }
+        }
+    }
+
+    @Test
+    void greedyFindsValidPathsWhenReachable() {
+        Random random = new Random(2);
+        for (int round = 0; round < 20; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 5 + random.nextInt(60), random.nextInt(80));
+            int n = graph.vertexCount();
+            for (int query = 0; query < 10; ++query) {
+                int source = random.nextInt(n);
+                int goal = random.nextInt(n);
+                double expected = ReferenceGraphs.dijkstra(graph, source)[goal];
+                PathResult result = PathSearch.search(graph, source, goal, SearchMethods.GREEDY);
+                String what = "Greedy " + source + "->" + goal;
+                assertEquals(expected < Double.POSITIVE_INFINITY, result.isFound(), what);
+                assertTrue(result.cost >= expected - ReferenceGraphs.EPSILON, what);
+                checkPath(graph, result, source, goal, what);
+                // Keys are fixed heuristics, so none ever drops
+                assertEquals(0, result.stats.decreaseKeys, what);
+            }
+        }
+    }
+
+    @Test
+    void nearestMatchesCheapestPair() {
+        Random random = new Random(3);
+        for (int round = 0; round < 30; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 5 + random.nextInt(60), random.nextInt(80));
+            int n = graph.vertexCount();
+            int[] sources = random.ints(1 + random.nextInt(3), 0, n).toArray();
+            int[] goals = random.ints(1 + random.nextInt(3), 0, n).toArray();
+            double expected = Double.POSITIVE_INFINITY;
+            for (int source : sources) {
+                double[] dist = ReferenceGraphs.dijkstra(graph, source);
+                for (int goal : goals) {
+                    expected = Math.min(expected, dist[goal]);
+                }
+            }
+            PathResult result = PathSearch.searchNearest(graph, sources, goals);
+            assertCost(expected, result.cost, "Nearest, round " + round);
+            if (result.isFound()) {
+                assertCost(result.cost, ReferenceGraphs.pathCost(graph, result.path), "Nearest path");
+            }
+        }
+    }
+
+    /**
+     * Checks that a found path joins the source to the goal at its cost.
+     */
+    static void checkPath(CompactGraph graph, PathResult result, int source, int goal, String what) {
+        if (!result.isFound()) {
+            return;
+        }
+        assertEquals(source, result.path[0], what);
+        assertEquals(goal, result.path[result.path.length - 1], what);
+        assertCost(result.cost, ReferenceGraphs.pathCost(graph, result.path), what + " path");
+    }
+}
@@ -0,0 +1,184 @@
+package pathfinding.engine;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Random graphs & a plain Dijkstra to check the engine's searches against:
+ * a linear scan for the cheapest unsettled vertex, no heap & no pooling.
+ */
+public final class ReferenceGraphs {
+
+    /** Tolerance for comparing costs summed in a different order. */
+    public static final double EPSILON = 1e-9;
+
+    private ReferenceGraphs() { }
+
+    /**
+     * Generates a graph of vertices scattered over a square, most of them
+     * joined to an earlier one & a few left in their own components, plus
+     * extra edges, some of them parallel. Weights are mostly at least the
+     * straight line distance, a few much lower.
+     *
+     * @param random source of randomness
+     * @param n number of vertices
+     * @param extraEdges number of edges beyond the spanning ones
+     * @return the builder, already built once
+     */
+    public static GraphBuilder randomBuilder(Random random, int n, int extraEdges) {
+        GraphBuilder builder = new GraphBuilder();
+        for (int v = 0; v < n; ++v) {
+            builder.addVertex(random.nextDouble() * 100.0, random.nextDouble() * 100.0, "v" + v);
+        }
+        CompactGraph positions = builder.build();
+        for (int v = 1; v < n; ++v) {
+            if (random.nextInt(10) > 0) {
+                int u = random.nextInt(v);
+                builder.connect(u, v, randomWeight(random, positions, u, v));
+            }
+        }
+        for (int i = 0; i < extraEdges && n > 1; ++i) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u != v) {
+                builder.connect(u, v, randomWeight(random, positions, u, v));
+            }
+        }
+        builder.build();
+        return builder;
+    }
+
+    public static CompactGraph randomGraph(Random random, int n, int extraEdges) {
+        return randomBuilder(random, n, extraEdges).build();
+    }
+
+    private static double randomWeight(Random random, CompactGraph positions, int u, int v) {
+        double distance = positions.distance(u, v);
+        return random.nextInt(20) == 0
+            ? distance * random.nextDouble() * 0.5
+            : distance * (1.0 + random.nextDouble());
+    }
+
+    /**
+     * Computes the cost from a source to every vertex.
+     *
+     * @param graph graph to search
+     * @param source start vertex
+     * @return cost of every vertex, infinite if unreachable
+     */
+    public static double[] dijkstra(CompactGraph graph, int source) {
+        int n = graph.vertexCount();
+        double[] dist = new double[n];
+        boolean[] settled = new boolean[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[source] = 0.0;
+        while (true) {
+            int current = -1;
+            for (int v = 0; v < n; ++v) {
+                if (!settled[v] && dist[v] < Double.POSITIVE_INFINITY
+                        && (current < 0 || dist[v] < dist[current])) {
+                    current = v;
+                }
+            }
+            if (current < 0) {
+                return dist;
+            }
+            settled[current] = true;
+            for (int e = 0; e < graph.edgeCount(); ++e) {
+                int neighbor = graph.edgeFrom(e) == current ? graph.edgeTo(e)
+                    : graph.edgeTo(e) == current ? graph.edgeFrom(e) : -1;
+                if (neighbor >= 0 && dist[current] + graph.edgeWeight(e) < dist[neighbor]) {
+                    dist[neighbor] = dist[current] + graph.edgeWeight(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the earliest arrival at every vertex for a departure time,
+     * crossing every edge at the time it is reached.
+     *
+     * @param profiles travel times of the graph's edges
+     * @param source start vertex
+     * @param departure time of leaving the source
+     * @return arrival time at every vertex, infinite if unreachable
+     */
+    public static double[] earliestArrivals(TravelTimeProfiles profiles, int source, double departure) {
+        CompactGraph graph = profiles.graph();
+        int n = graph.vertexCount();
+        double[] arrival = new double[n];
+        boolean[] settled = new boolean[n];
+        Arrays.fill(arrival, Double.POSITIVE_INFINITY);
+        arrival[source] = departure;
+        while (true) {
+            int current = -1;
+            for (int v = 0; v < n; ++v) {
+                if (!settled[v] && arrival[v] < Double.POSITIVE_INFINITY
+                        && (current < 0 || arrival[v] < arrival[current])) {
+                    current = v;
+                }
+            }
+            if (current < 0) {
+                return arrival;
+            }
+            settled[current] = true;
+            for (int e = 0; e < graph.edgeCount(); ++e) {
+                int neighbor = graph.edgeFrom(e) == current ? graph.edgeTo(e)
+                    : graph.edgeTo(e) == current ? graph.edgeFrom(e) : -1;
+                if (neighbor < 0) {
+                    continue;
+                }
+                double reached = arrival[current] + profiles.travelTime(e, arrival[current]);
+                if (reached < arrival[neighbor]) {
+                    arrival[neighbor] = reached;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cost of walking a path through the cheapest edge between
+     * each pair of consecutive vertices.
+     *
+     * @param graph graph the path is on
+     * @param path vertices of the path
+     * @return the cost, infinite if two consecutive vertices are not joined
+     */
+    public static double pathCost(CompactGraph graph, int[] path) {
+        double cost = 0.0;
+        for (int i = 1; i < path.length; ++i) {
+            double step = Double.POSITIVE_INFINITY;
+            for (int a = graph.arcStart(path[i - 1]); a < graph.arcEnd(path[i - 1]); ++a) {
+                if (graph.arcHead(a) == path[i]) {
+                    step = Math.min(step, graph.arcWeight(a));
+                }
+            }
+            cost += step;
+        }
+        return cost;
+    }
+
+    /**
+     * Returns whether two costs are equal up to rounding, infinite ones
+     * included.
+     */
+    public static boolean sameCost(double expected, double actual) {
+        return expected == actual
+            || Math.abs(expected - actual) <= EPSILON * Math.max(1.0, Math.abs(expected));
+    }
+
+    /**
+     * Fails unless two costs are equal up to rounding.
+     *
+     * @param expected cost found by the reference
+     * @param actual cost found by the engine
+     * @param what description of the query, for the failure message
+     */
+    public static void assertCost(double expected, double actual, String what) {
+        if (!sameCost(expected, actual)) {
+            fail(what + ": expected cost " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.Random;
+
+class ShortestPathsTest {
+
+    @Test
+    void fromSourceMatchesDijkstra() {
+        Random random = new Random(11);
+        for (int round = 0; round < 30; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 1 + random.nextInt(80), random.nextInt(100));
+            int source = random.nextInt(graph.vertexCount());
+            double[] expected = ReferenceGraphs.dijkstra(graph, source);
+            double[] actual = ShortestPaths.fromSource(graph, source);
+            for (int v = 0; v < expected.length; ++v) {
+                assertCost(expected[v], actual[v], "From " + source + " to " + v);
+            }
+        }
+    }
+
+    @Test
+    void fromSourcesFindsNearestFacility() {
+        Random random = new Random(12);
+        for (int round = 0; round < 30; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 1 + random.nextInt(80), random.nextInt(100));
+            int n = graph.vertexCount();
+            int[] sources = random.ints(1 + random.nextInt(5), 0, n).toArray();
+            double[][] dist = new double[sources.length][];
+            for (int i = 0; i < sources.length; ++i) {
+                dist[i] = ReferenceGraphs.dijkstra(graph, sources[i]);
+            }
+            NearestFacilities nearest = ShortestPaths.fromSources(graph, sources);
+            for (int v = 0; v < n; ++v) {
+                double expected = Double.POSITIVE_INFINITY;
+                for (double[] d : dist) {
+                    expected = Math.min(expected, d[v]);
+                }
+                String what = "Vertex " + v + ", round " + round;
+                assertCost(expected, nearest.costs[v], what);
+                if (expected == Double.POSITIVE_INFINITY) {
+                    assertEquals(-1, nearest.nearest(v), what);
+                } else {
+                    assertEquals(sources[nearest.facility[v]], nearest.nearest(v), what);
+                    assertCost(expected, dist[nearest.facility[v]][v], what + " facility");
+                }
+            }
+        }
+    }
+
+    @Test
+    void toTargetsMatchesDijkstra() {
+        Random random = new Random(13);
+        for (int round = 0; round < 30; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 1 + random.nextInt(80), random.nextInt(100));
+            int n = graph.vertexCount();
+            int source = random.nextInt(n);
+            int[] targets = random.ints(random.nextInt(8), 0, n).toArray();
+            double[] expected = ReferenceGraphs.dijkstra(graph, source);
+            double[] actual = ShortestPaths.toTargets(graph, source, targets);
+            for (int i = 0; i < targets.length; ++i) {
+                assertCost(expected[targets[i]], actual[i], "From " + source + " to " + targets[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.Random;
+
+class TimeDependentSearchTest {
+
+    private static final double PERIOD = 100.0;
+    // Profiles are merged & interpolated, so allow more than for sums
+    private static final double PROFILE_TOLERANCE = 1e-6;
+
+    @Test
+    void pointQueriesMatchTimeDependentDijkstra() {
+        Random random = new Random(81);
+        for (int round = 0; round < 20; ++round) {
+            TravelTimeProfiles profiles = randomProfiles(random);
+            int n = profiles.graph().vertexCount();
+            for (int query = 0; query < 10; ++query) {
+                int source = random.nextInt(n);
+                int goal = random.nextInt(n);
+                double departure = random.nextDouble() * 3.0 * PERIOD;
+                double expected = ReferenceGraphs.earliestArrivals(profiles, source, departure)[goal] - departure;
+                for (String method : new String[] {SearchMethods.UCS, SearchMethods.A_STAR}) {
+                    PathResult result = TimeDependentSearch.search(profiles, source, goal, departure, method);
+                    String what = method + " " + source + "->" + goal + " at " + departure;
+                    assertCost(expected, result.cost, what);
+                    if (result.isFound()) {
+                        assertEquals(source, result.path[0], what);
+                        assertEquals(goal, result.path[result.path.length - 1], what);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void profilesMatchTimeDependentDijkstra() {
+        Random random = new Random(82);
+        for (int round = 0; round < 20; ++round) {
+            TravelTimeProfiles profiles = randomProfiles(random);
+            int n = profiles.graph().vertexCount();
+            for (int query = 0; query < 5; ++query) {
+                int source = random.nextInt(n);
+                int goal = random.nextInt(n);
+                double windowStart = random.nextDouble() * PERIOD;
+                double windowEnd = windowStart + random.nextDouble() * 2.0 * PERIOD;
+                ArrivalProfile profile = TimeDependentSearch.profile(profiles, source, goal, windowStart, windowEnd);
+                String what = source + "->" + goal + " over [" + windowStart + ", " + windowEnd + "]";
+                if (ReferenceGraphs.earliestArrivals(profiles, source, windowStart)[goal]
+                        == Double.POSITIVE_INFINITY) {
+                    assertNull(profile, what);
+                    continue;
+                }
+                assertEquals(windowStart, profile.windowStart(), what);
+                assertEquals(windowEnd, profile.windowEnd(), what);
+                for (int sample = 0; sample <= 20; ++sample) {
+                    double departure = sample == 20
+                        ? windowEnd : windowStart + (windowEnd - windowStart) * sample / 20.0;
+                    double expected = ReferenceGraphs.earliestArrivals(profiles, source, departure)[goal];
+                    assertEquals(expected, profile.arrival(departure),
+                        PROFILE_TOLERANCE * Math.max(1.0, expected), what + " at " + departure);
+                }
+                double best = profile.bestDeparture();
+                assertTrue(best >= windowStart && best <= windowEnd, what);
+            }
+        }
+    }
+
+    /**
+     * Gives about half of a random graph's edges a FIFO profile: up to 4
+     * breakpoints at least 3/16 of a period apart, their travel times
+     * within 15 of each other.
+     */
+    private static TravelTimeProfiles randomProfiles(Random random) {
+        CompactGraph graph = ReferenceGraphs.randomGraph(random, 2 + random.nextInt(40), random.nextInt(50));
+        TravelTimeProfiles.Builder builder = new TravelTimeProfiles.Builder(graph, PERIOD);
+        for (int e = 0; e < graph.edgeCount(); ++e) {
+            if (random.nextBoolean()) {
+                continue;
+            }
+            int count = 1 + random.nextInt(4);
+            double[] times = new double[count];
+            double[] travelTimes = new double[count];
+            double slot = PERIOD / count;
+            for (int i = 0; i < count; ++i) {
+                times[i] = i * slot + random.nextDouble() * slot / 4.0;
+                travelTimes[i] = graph.edgeWeight(e) + random.nextDouble() * 15.0;
+            }
+            builder.setProfile(e, times, travelTimes);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,51 @@
+package pathfinding.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.util.Random;
+
+class VertexOrderTest {
+
+    @Test
+    void reorderedGraphsKeepEveryCost() {
+        Random random = new Random(121);
+        for (int round = 0; round < 20; ++round) {
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, 1 + random.nextInt(80), random.nextInt(100));
+            int n = graph.vertexCount();
+            for (String strategy : new String[] {VertexOrder.HILBERT, VertexOrder.BFS, VertexOrder.RCM}) {
+                String what = strategy + ", round " + round;
+                VertexOrder order = VertexOrder.of(strategy, graph);
+                assertEquals(n, order.newToOld.length, what);
+                assertEquals(n, order.oldToNew.length, what);
+                for (int v = 0; v < n; ++v) {
+                    assertEquals(v, order.newToOld[order.oldToNew[v]], what);
+                    assertEquals(v, order.oldToNew[order.newToOld[v]], what);
+                }
+
+                CompactGraph reordered = order.apply(graph);
+                assertEquals(n, reordered.vertexCount(), what);
+                assertEquals(graph.edgeCount(), reordered.edgeCount(), what);
+                for (int v = 0; v < n; ++v) {
+                    int old = order.newToOld[v];
+                    assertEquals(graph.name(old), reordered.name(v), what);
+                    assertEquals(graph.x(old), reordered.x(v), what);
+                    assertEquals(graph.y(old), reordered.y(v), what);
+                }
+                for (int query = 0; query < 3; ++query) {
+                    int source = random.nextInt(n);
+                    double[] expected = ReferenceGraphs.dijkstra(graph, source);
+                    double[] actual = ReferenceGraphs.dijkstra(reordered, order.oldToNew[source]);
+                    double[] searched = ShortestPaths.fromSource(reordered, order.oldToNew[source]);
+                    for (int v = 0; v < n; ++v) {
+                        int old = order.newToOld[v];
+                        assertCost(expected[old], actual[v], what + ", " + source + "->" + old);
+                        assertCost(expected[old], searched[v], what + ", searched " + source + "->" + old);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package pathfinding.shard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pathfinding.engine.CompactGraph;
+import pathfinding.engine.PathResult;
+import pathfinding.engine.ReferenceGraphs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static pathfinding.engine.ReferenceGraphs.assertCost;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+class ShardClusterTest {
+
+    @Test
+    void clustersMatchDijkstra(@TempDir File directory) throws IOException {
+        Random random = new Random(91);
+        for (int shards = 2; shards <= 5; ++shards) {
+            int n = 30 + random.nextInt(150);
+            CompactGraph graph = ReferenceGraphs.randomGraph(random, n, n);
+            List<File> files = ShardPartitioner.write(graph, shards, directory, "graph" + shards);
+            try (ShardCluster cluster = ShardCluster.launch(files, false, List.of())) {
+                assertEquals(n, cluster.vertexCount());
+                assertEquals(shards, cluster.shardCount());
+                // Cluster ids follow the shards' order, not the graph's
+                int[] global = new int[n];
+                for (int v = 0; v < n; ++v) {
+                    global[v] = cluster.resolve(Integer.toString(v));
+                    assertEquals(global[v], cluster.indexOf(graph.name(v)), "Vertex " + v);
+                }
+                for (int query = 0; query < 10; ++query) {
+                    int source = random.nextInt(n);
+                    int goal = random.nextInt(n);
+                    double[] expected = ReferenceGraphs.dijkstra(graph, source);
+                    String what = shards + " shards, " + source + "->" + goal;
+                    PathResult result = cluster.search(global[source], global[goal]);
+                    assertCost(expected[goal], result.cost, what);
+                    if (result.isFound()) {
+                        assertEquals(global[source], result.path[0], what);
+                        assertEquals(global[goal], result.path[result.path.length - 1], what);
+                    }
+                    double[] costs = cluster.fromSource(global[source]);
+                    for (int v = 0; v < n; ++v) {
+                        assertCost(expected[v], costs[global[v]], what + ", cost of " + v);
+                    }
+                }
+            }
+        }
+    }
+}